@@ -0,0 +1,96 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.appender.ConsoleAppender;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Measures several threads logging through one logger, comparing the lock
+ * free appender dispatch in <code>Logger.log</code> with dispatching under one
+ * global monitor, which is how it used to be done. Run with e.g.
+ * <code>-t 1</code> or <code>-t 8</code> to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AppenderDispatchBenchmark {
+	private final Object globalMonitor = new Object();
+
+	private Logger logger;
+
+	@Setup
+	public void setup() {
+		logger = new Logger(AppenderDispatchBenchmark.class.getName(), DefaultLoggerRepository.INSTANCE);
+		logger.setLevel(Level.DEBUG);
+		logger.addAppender(new NullAppender());
+	}
+
+	@TearDown
+	public void teardown() {
+		DefaultLoggerRepository.INSTANCE.reset();
+	}
+
+	@Benchmark
+	public void lockFree() {
+		logger.info("benchmark");
+	}
+
+	@Benchmark
+	public void globalMonitor() {
+		synchronized (globalMonitor) {
+			logger.info("benchmark");
+		}
+	}
+
+	/**
+	 * An appender that drops the events, so that only the dispatch is
+	 * measured.
+	 */
+	private static class NullAppender extends ConsoleAppender {
+		@Override
+		public void append(LogEvent event) {
+			// Nothing to do
+		}
+
+		@Override
+		public void open() throws IOException {
+			logOpen = true;
+		}
+	}
+}
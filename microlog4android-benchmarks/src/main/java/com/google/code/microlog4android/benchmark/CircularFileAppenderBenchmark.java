@@ -0,0 +1,82 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.appender.CircularFileAppender;
+import com.google.code.microlog4android.format.SimpleFormatter;
+
+/**
+ * Measures the <code>CircularFileAppender</code> writing to a temporary file,
+ * which wraps around many times during a measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircularFileAppenderBenchmark {
+	@Param({ "4096", "262144" })
+	public int fileSize;
+
+	private final LogEvent event = new LogEvent();
+
+	private File logFile;
+
+	private CircularFileAppender appender;
+
+	@Setup
+	public void setup() throws IOException {
+		logFile = File.createTempFile("microlog-benchmark", ".log");
+
+		appender = new CircularFileAppender(logFile);
+		appender.setFileSize(fileSize);
+		appender.setFormatter(new SimpleFormatter());
+		appender.open();
+
+		event.set("Microlog", "com.example.benchmark.CircularFileAppenderBenchmark",
+				System.currentTimeMillis(), 1234, Level.INFO, "A message to write", null, "main");
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		appender.close();
+		logFile.delete();
+	}
+
+	@Benchmark
+	public void append() {
+		appender.append(event);
+	}
+}
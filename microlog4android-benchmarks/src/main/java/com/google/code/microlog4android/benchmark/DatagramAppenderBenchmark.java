@@ -0,0 +1,85 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.appender.DatagramAppender;
+import com.google.code.microlog4android.format.SimpleFormatter;
+
+/**
+ * Measures the <code>DatagramAppender</code> sending to a local socket. The
+ * socket never reads, so the datagrams are dropped once its receive buffer
+ * is full, which is what happens when nobody listens to the log either.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatagramAppenderBenchmark {
+	@Param({ "false", "true" })
+	public boolean garbageFree;
+
+	private final LogEvent event = new LogEvent();
+
+	private DatagramSocket receiver;
+
+	private DatagramAppender appender;
+
+	@Setup
+	public void setup() throws IOException {
+		receiver = new DatagramSocket(0, InetAddress.getByName("127.0.0.1"));
+
+		appender = new DatagramAppender();
+		appender.setPort(receiver.getLocalPort());
+		appender.setGarbageFree(garbageFree);
+		appender.setFormatter(new SimpleFormatter());
+		appender.open();
+
+		event.set("Microlog", "com.example.benchmark.DatagramAppenderBenchmark", System.currentTimeMillis(), 1234,
+				Level.INFO, "A message to send", null, "main");
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		appender.close();
+		receiver.close();
+	}
+
+	@Benchmark
+	public void append() {
+		appender.append(event);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.appender.FileAppender;
+import com.google.code.microlog4android.appender.FileChannelAppender;
+import com.google.code.microlog4android.format.SimpleFormatter;
+
+/**
+ * Measures the <code>FileChannelAppender</code> writing to a temporary file
+ * with the same flush policies as the <code>FileAppenderBenchmark</code>, for
+ * comparison with the garbage free <code>FileAppender</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileChannelAppenderBenchmark {
+	@Param({ FileAppender.IMMEDIATE_FLUSH_POLICY, FileAppender.COUNT_FLUSH_POLICY,
+			FileAppender.ON_CLOSE_FLUSH_POLICY })
+	public String flushPolicy;
+
+	private static final String FLUSH_COUNT = "64";
+
+	private final LogEvent event = new LogEvent();
+
+	private File logFile;
+
+	private FileChannelAppender appender;
+
+	@Setup
+	public void setup() throws IOException {
+		logFile = File.createTempFile("microlog-benchmark", ".txt");
+
+		appender = new TempFileChannelAppender(logFile);
+		appender.setAppend(false);
+		appender.setProperty(FileAppender.FLUSH_POLICY_PROPERTY, flushPolicy);
+		appender.setProperty(FileAppender.FLUSH_COUNT_PROPERTY, FLUSH_COUNT);
+		appender.setFormatter(new SimpleFormatter());
+		appender.open();
+
+		event.set("Microlog", "com.example.benchmark.FileChannelAppenderBenchmark", System.currentTimeMillis(), 1234,
+				Level.INFO, "A message to write", null, "main");
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		appender.close();
+		logFile.delete();
+	}
+
+	@Benchmark
+	public void append() {
+		appender.append(event);
+	}
+
+	/**
+	 * Logs to the specified file instead of the external storage of Android.
+	 */
+	private static class TempFileChannelAppender extends FileChannelAppender {
+		private final File file;
+
+		TempFileChannelAppender(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public File getLogFile() {
+			return file;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.PatternFormatter;
+import com.google.code.microlog4android.format.SimpleFormatter;
+
+/**
+ * Measures the formatters, both formatting into a reused
+ * <code>StringBuilder</code> and formatting into a new <code>String</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+	private final LogEvent event = new LogEvent();
+
+	private final LogEvent throwableEvent = new LogEvent();
+
+	private final StringBuilder buffer = new StringBuilder(4096);
+
+	private PatternFormatter defaultPatternFormatter;
+
+	private PatternFormatter iso8601PatternFormatter;
+
+	private PatternFormatter constantDatePatternFormatter;
+
+	private PatternFormatter userDatePatternFormatter;
+
+	private SimpleFormatter simpleFormatter;
+
+	@Setup
+	public void setup() {
+		event.set("Microlog", "com.example.benchmark.FormatterBenchmark", System.currentTimeMillis(), 1234,
+				Level.INFO, "A message to format", null, "main");
+
+		throwableEvent.set("Microlog", "com.example.benchmark.FormatterBenchmark", System.currentTimeMillis(),
+				1234, Level.ERROR, "A message to format", new IllegalStateException("A failure", new RuntimeException(
+						"The cause")), "main");
+
+		defaultPatternFormatter = new PatternFormatter();
+
+		iso8601PatternFormatter = new PatternFormatter();
+		iso8601PatternFormatter.setPattern("%d{ISO8601} %c [%P] %m %T");
+
+		// The same output as the ISO8601 pattern with a literal date, which is
+		// the goal for events within the same second.
+		constantDatePatternFormatter = new PatternFormatter();
+		constantDatePatternFormatter.setPattern("2011-01-01 12:00:00,000 %c [%P] %m %T");
+
+		userDatePatternFormatter = new PatternFormatter();
+		userDatePatternFormatter.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSZ} %c [%P] %m %T");
+
+		simpleFormatter = new SimpleFormatter();
+	}
+
+	@Benchmark
+	public int patternFormatterDefault() {
+		buffer.setLength(0);
+		defaultPatternFormatter.format(event, buffer);
+		return buffer.length();
+	}
+
+	@Benchmark
+	public String patternFormatterDefaultString() {
+		return defaultPatternFormatter.format(event.getClientID(), event.getLoggerName(), event.getTime(),
+				event.getLevel(), event.getMessage(), event.getThrowable());
+	}
+
+	/**
+	 * The same exception logged over and over again, which only renders the
+	 * stack trace once.
+	 */
+	@Benchmark
+	public int patternFormatterThrowable() {
+		buffer.setLength(0);
+		defaultPatternFormatter.format(throwableEvent, buffer);
+		return buffer.length();
+	}
+
+	@Benchmark
+	public int patternFormatterIso8601() {
+		buffer.setLength(0);
+		iso8601PatternFormatter.format(event, buffer);
+		return buffer.length();
+	}
+
+	@Benchmark
+	public int patternFormatterConstantDate() {
+		buffer.setLength(0);
+		constantDatePatternFormatter.format(event, buffer);
+		return buffer.length();
+	}
+
+	@Benchmark
+	public int patternFormatterUserDate() {
+		buffer.setLength(0);
+		userDatePatternFormatter.format(event, buffer);
+		return buffer.length();
+	}
+
+	@Benchmark
+	public int simpleFormatter() {
+		buffer.setLength(0);
+		simpleFormatter.format(event, buffer);
+		return buffer.length();
+	}
+
+	@Benchmark
+	public String simpleFormatterString() {
+		return simpleFormatter.format(event.getClientID(), event.getLoggerName(), event.getTime(),
+				event.getLevel(), event.getMessage(), event.getThrowable());
+	}
+}
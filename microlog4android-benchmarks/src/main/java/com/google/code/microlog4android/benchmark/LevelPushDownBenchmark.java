@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Compares resolving the effective level on every call, by walking up a deep
+ * logger hierarchy, with the level threshold that is pushed down to every
+ * logger when a level is changed. Also measures how long it takes to set the
+ * level of a subtree with thousands of loggers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelPushDownBenchmark {
+	private static final int DEPTH = 12;
+
+	private static final int SUBTREE_PACKAGES = 50;
+
+	private static final int SUBTREE_CLASSES = 100;
+
+	private final DefaultLoggerRepository repository = DefaultLoggerRepository.INSTANCE;
+
+	private Logger deepLogger;
+
+	private boolean subtreeWarn;
+
+	@Setup
+	public void setup() {
+		StringBuilder name = new StringBuilder("com");
+		for (int i = 1; i < DEPTH; i++) {
+			name.append(".level").append(i);
+		}
+
+		deepLogger = repository.getLogger(name.toString());
+		repository.getRootLogger().setLevel(Level.WARN);
+
+		for (int i = 0; i < SUBTREE_PACKAGES; i++) {
+			for (int j = 0; j < SUBTREE_CLASSES; j++) {
+				repository.getLogger("com.foo.package" + i + ".Class" + j).setLevel(Level.DEBUG);
+			}
+		}
+	}
+
+	@TearDown
+	public void teardown() {
+		repository.reset();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean resolvePerCall() {
+		return deepLogger.getEffectiveLevel().toInt() <= Level.INFO_INT;
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean pushedDown() {
+		return deepLogger.isInfoEnabled();
+	}
+
+	/**
+	 * Set the level of all the <code>SUBTREE_PACKAGES * SUBTREE_CLASSES</code>
+	 * loggers below <code>com.foo</code>, alternating between two levels so
+	 * that every call changes them.
+	 */
+	@Benchmark
+	public void subtreeLevel() {
+		subtreeWarn = !subtreeWarn;
+		repository.setLevel("com.foo.*", subtreeWarn ? Level.WARN : Level.DEBUG);
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Measures a logging call that is disabled by the level, and an enabled
+ * logging call that ends up in an appender that does nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerBenchmark {
+	private Logger disabledLogger;
+
+	private Logger enabledLogger;
+
+	private Integer value = Integer.valueOf(4711);
+
+	@Setup
+	public void setup() {
+		DefaultLoggerRepository.INSTANCE.reset();
+
+		disabledLogger = DefaultLoggerRepository.INSTANCE.getLogger("benchmark.Disabled");
+		disabledLogger.setLevel(Level.INFO);
+
+		enabledLogger = DefaultLoggerRepository.INSTANCE.getLogger("benchmark.Enabled");
+		enabledLogger.setLevel(Level.DEBUG);
+		enabledLogger.setAdditivity(false);
+		enabledLogger.addAppender(new NoOpAppender());
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		enabledLogger.close();
+		DefaultLoggerRepository.INSTANCE.reset();
+	}
+
+	@Benchmark
+	public void disabledDebug() {
+		disabledLogger.debug("A disabled message");
+	}
+
+	@Benchmark
+	public void disabledDebugParameterized() {
+		disabledLogger.debug("A disabled message with the value {}", value);
+	}
+
+	@Benchmark
+	public void enabledNoOpAppender() {
+		enabledLogger.debug("An enabled message");
+	}
+
+	@Benchmark
+	public void enabledNoOpAppenderParameterized() {
+		enabledLogger.debug("An enabled message with the value {}", value);
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.io.IOException;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.appender.AbstractAppender;
+
+/**
+ * An appender that does nothing, so that a benchmark measures the cost of the
+ * logger itself.
+ */
+public class NoOpAppender extends AbstractAppender {
+
+	@Override
+	public void open() throws IOException {
+		logOpen = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		logOpen = false;
+	}
+
+	@Override
+	public void clear() {
+	}
+
+	@Override
+	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable t) {
+	}
+
+	@Override
+	public void append(LogEvent event) {
+	}
+
+	public long getLogSize() {
+		return SIZE_UNDEFINED;
+	}
+
+	public String[] getPropertyNames() {
+		return new String[0];
+	}
+
+	public void setProperty(String name, String value) {
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.impl.MicrologLoggerAdapter;
+import org.slf4j.impl.repository.Slf4jLoggerRepository;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.appender.ConsoleAppender;
+
+/**
+ * Compares the parameterized SLF4J methods with eager string concatenation,
+ * both for a disabled level, where the parameterized methods should not build
+ * any message at all, and for an enabled level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterizedLoggingBenchmark {
+	/**
+	 * The level of the logger, which disables the debug events when it is
+	 * <code>INFO</code>.
+	 */
+	@Param({ "INFO", "DEBUG" })
+	public String level;
+
+	private final Integer size = Integer.valueOf(4096);
+
+	private final String file = "microlog.txt";
+
+	private MicrologLoggerAdapter adapter;
+
+	@Setup
+	public void setup() {
+		adapter = (MicrologLoggerAdapter) Slf4jLoggerRepository.INSTANCE
+				.getLogger(ParameterizedLoggingBenchmark.class.getName());
+		adapter.getMicrologLogger().addAppender(new LengthAppender());
+		adapter.getMicrologLogger().setLevel(Level.valueOf(level));
+	}
+
+	@TearDown
+	public void teardown() {
+		Slf4jLoggerRepository.INSTANCE.reset();
+	}
+
+	@Benchmark
+	public void parameterized() {
+		adapter.debug("Read {} bytes from {}", size, file);
+	}
+
+	@Benchmark
+	public void concatenated() {
+		adapter.debug("Read " + size + " bytes from " + file);
+	}
+
+	/**
+	 * An appender that uses the messages, so that building them is not
+	 * optimized away.
+	 */
+	private static class LengthAppender extends ConsoleAppender {
+		long length;
+
+		@Override
+		public void append(LogEvent event) {
+			length += event.getMessage().toString().length();
+		}
+
+		@Override
+		public void open() throws IOException {
+			logOpen = true;
+		}
+	}
+}
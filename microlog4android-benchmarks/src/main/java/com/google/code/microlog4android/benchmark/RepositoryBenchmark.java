@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Measures <code>DefaultLoggerRepository.getLogger</code> with four threads,
+ * both for loggers that exist and for a mix where one lookup in sixteen
+ * creates a new logger. The repository is reset before every iteration, so
+ * that the tree does not grow without bounds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RepositoryBenchmark {
+	private static final int KNOWN_NAME_COUNT = 1024;
+
+	private static final int NEW_NAME_INTERVAL = 16;
+
+	private final String[] knownNames = new String[KNOWN_NAME_COUNT];
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		DefaultLoggerRepository.INSTANCE.reset();
+
+		for (int i = 0; i < KNOWN_NAME_COUNT; i++) {
+			knownNames[i] = "com.example.module" + (i % 8) + ".package" + (i % 64) + ".Class" + i;
+			DefaultLoggerRepository.INSTANCE.getLogger(knownNames[i]);
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void teardown() {
+		DefaultLoggerRepository.INSTANCE.reset();
+	}
+
+	@Benchmark
+	public Logger getKnownLogger(ThreadState threadState) {
+		return DefaultLoggerRepository.INSTANCE.getLogger(knownNames[threadState.next() & (KNOWN_NAME_COUNT - 1)]);
+	}
+
+	@Benchmark
+	public Logger getKnownAndNewLoggers(ThreadState threadState) {
+		int index = threadState.next();
+
+		if (index % NEW_NAME_INTERVAL == 0) {
+			return DefaultLoggerRepository.INSTANCE.getLogger(threadState.newName());
+		}
+
+		return DefaultLoggerRepository.INSTANCE.getLogger(knownNames[index & (KNOWN_NAME_COUNT - 1)]);
+	}
+
+	/**
+	 * The position of each thread in the names.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private int index = (int) Thread.currentThread().getId() * 7919;
+
+		private int newNameCount;
+
+		private final String prefix = "com.example.created.Thread" + Thread.currentThread().getId() + ".Class";
+
+		int next() {
+			return index++ & 0x7fffffff;
+		}
+
+		String newName() {
+			return prefix + newNameCount++;
+		}
+	}
+}
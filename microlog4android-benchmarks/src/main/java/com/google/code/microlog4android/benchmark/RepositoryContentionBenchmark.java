@@ -0,0 +1,121 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Measures several threads resolving loggers, comparing the concurrent lookups
+ * of the <code>DefaultLoggerRepository</code> with lookups under one global
+ * monitor, which is how it used to be done. One lookup in
+ * <code>NEW_NAME_INTERVAL</code> asks for a logger that does not exist yet.
+ * Run with e.g. <code>-t 1</code> or <code>-t 8</code> to change the number of
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RepositoryContentionBenchmark {
+	private static final int KNOWN_NAME_COUNT = 1000;
+
+	private static final int NEW_NAME_INTERVAL = 20;
+
+	private static final String[] knownNames = new String[KNOWN_NAME_COUNT];
+
+	static {
+		for (int i = 0; i < KNOWN_NAME_COUNT; i++) {
+			knownNames[i] = "com.example.module" + (i % 10) + ".package" + (i % 100) + ".Class" + i;
+		}
+	}
+
+	private final DefaultLoggerRepository repository = DefaultLoggerRepository.INSTANCE;
+
+	private final AtomicInteger newNameCounter = new AtomicInteger();
+
+	private final Object globalMonitor = new Object();
+
+	/**
+	 * The position of each thread in the names, which starts at a different
+	 * name for every thread.
+	 */
+	@State(Scope.Thread)
+	public static class Lookup {
+		int index = System.identityHashCode(Thread.currentThread());
+	}
+
+	/**
+	 * Start every iteration with only the known loggers, so that the created
+	 * loggers do not pile up.
+	 */
+	@Setup(Level.Iteration)
+	public void setup() {
+		repository.reset();
+
+		for (String name : knownNames) {
+			repository.getLogger(name);
+		}
+	}
+
+	@TearDown
+	public void teardown() {
+		repository.reset();
+	}
+
+	@Benchmark
+	public Logger concurrent(Lookup lookup) {
+		return repository.getLogger(nextName(lookup));
+	}
+
+	@Benchmark
+	public Logger globalMonitor(Lookup lookup) {
+		String name = nextName(lookup);
+
+		synchronized (globalMonitor) {
+			return repository.getLogger(name);
+		}
+	}
+
+	private String nextName(Lookup lookup) {
+		int index = lookup.index++;
+
+		if (index % NEW_NAME_INTERVAL == 0) {
+			return "com.example.created" + (index % 10) + ".Class" + newNameCounter.incrementAndGet();
+		}
+
+		return knownNames[(index & 0x7fffffff) % KNOWN_NAME_COUNT];
+	}
+}
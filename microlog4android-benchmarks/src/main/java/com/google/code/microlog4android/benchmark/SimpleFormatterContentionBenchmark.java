@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.format.SimpleFormatter;
+
+/**
+ * Measures several threads formatting with one shared
+ * <code>SimpleFormatter</code>, which is how the
+ * <code>PropertyConfigurator</code> sets it up, comparing the per thread
+ * builders with one shared buffer under a monitor, which is the least it takes
+ * to make the shared buffer correct. Run with e.g. <code>-t 1</code> or
+ * <code>-t 8</code> to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SimpleFormatterContentionBenchmark {
+	private final SimpleFormatter formatter = new SimpleFormatter();
+
+	private final StringBuffer sharedBuffer = new StringBuffer(256);
+
+	@Benchmark
+	public String threadBuilders() {
+		return formatter.format(null, "name", 1234, Level.INFO, "benchmark", null);
+	}
+
+	@Benchmark
+	public String sharedBuffer() {
+		synchronized (sharedBuffer) {
+			sharedBuffer.setLength(0);
+			sharedBuffer.append(1234);
+			sharedBuffer.append(':');
+			sharedBuffer.append('[');
+			sharedBuffer.append(Level.INFO);
+			sharedBuffer.append(']');
+			sharedBuffer.append(SimpleFormatter.DEFAULT_DELIMITER);
+			sharedBuffer.append("benchmark");
+			return sharedBuffer.toString();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.google.code.microlog4android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class ClockTest {
+
+	@Test
+	public void testMonotonicClockFollowsWallClock() {
+		MonotonicClock clock = new MonotonicClock();
+
+		long before = System.currentTimeMillis();
+		long time = clock.currentTimeMillis();
+		long after = System.currentTimeMillis();
+
+		assertTrue(time >= before - 1);
+		assertTrue(time <= after + 1);
+	}
+
+	@Test
+	public void testMonotonicClockNeverGoesBackwards() {
+		MonotonicClock clock = new MonotonicClock(1);
+		long previous = clock.currentTimeMillis();
+
+		for (int i = 0; i < 100000; i++) {
+			long time = clock.currentTimeMillis();
+			assertTrue(time >= previous);
+			previous = time;
+		}
+	}
+
+	@Test
+	public void testMonotonicClockNeverGoesBackwardsAcrossThreads() throws InterruptedException {
+		final MonotonicClock clock = new MonotonicClock(1);
+		final AtomicLong latest = new AtomicLong(clock.currentTimeMillis());
+		final AtomicBoolean wentBackwards = new AtomicBoolean();
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 100000; j++) {
+						long seen = latest.get();
+						long time = clock.currentTimeMillis();
+
+						if (time < seen) {
+							wentBackwards.set(true);
+						}
+
+						while (time > seen && !latest.compareAndSet(seen, time)) {
+							seen = latest.get();
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+
+		assertFalse(wentBackwards.get());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMonotonicClockInvalidResyncInterval() {
+		new MonotonicClock(0);
+	}
+
+	@Test
+	public void testCachedClockReadsClockWhenStopped() {
+		FixedClock fixedClock = new FixedClock();
+		fixedClock.time = 1000;
+		CachedClock clock = new CachedClock(fixedClock, 10);
+
+		assertFalse(clock.isStarted());
+		assertEquals(1000, clock.currentTimeMillis());
+		fixedClock.time = 2000;
+		assertEquals(2000, clock.currentTimeMillis());
+	}
+
+	@Test
+	public void testCachedClockIsUpdatedByTicker() throws InterruptedException {
+		FixedClock fixedClock = new FixedClock();
+		fixedClock.time = 1000;
+		CachedClock clock = new CachedClock(fixedClock, 1);
+
+		clock.start();
+		try {
+			assertTrue(clock.isStarted());
+			assertEquals(1000, clock.currentTimeMillis());
+
+			fixedClock.time = 2000;
+			long deadline = System.currentTimeMillis() + 5000;
+			while (clock.currentTimeMillis() != 2000 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+
+			assertEquals(2000, clock.currentTimeMillis());
+		} finally {
+			clock.stop();
+		}
+
+		assertFalse(clock.isStarted());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCachedClockNullClock() {
+		new CachedClock(null, 10);
+	}
+
+	@Test
+	public void testEventTimestampIsReadFromLoggerClock() {
+		FixedClock fixedClock = new FixedClock();
+		fixedClock.time = 123456789L;
+		Clock previousClock = Logger.getClock();
+
+		Logger.setClock(fixedClock);
+		try {
+			LogEvent event = new LogEvent();
+			event.set("client", "name", 42, Level.INFO, "message", null, "thread");
+
+			assertEquals(123456789L, event.getTimestamp());
+			assertEquals(42, event.getTime());
+		} finally {
+			Logger.setClock(previousClock);
+		}
+	}
+
+	private static class FixedClock implements Clock {
+		volatile long time;
+
+		public long currentTimeMillis() {
+			return time;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.google.code.microlog4android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class LogEventTest {
+
+	@Test
+	public void testObtainReusesRecycledEvent() {
+		LogEvent event = LogEvent.obtain();
+		event.recycle();
+
+		LogEvent reused = LogEvent.obtain();
+		reused.recycle();
+
+		assertSame(event, reused);
+	}
+
+	@Test
+	public void testObtainWhileInUse() {
+		LogEvent event = LogEvent.obtain();
+		LogEvent nested = LogEvent.obtain();
+
+		assertNotSame(event, nested);
+
+		nested.recycle();
+		event.recycle();
+	}
+
+	@Test
+	public void testCopyFromAndRecycle() {
+		Exception e = new Exception();
+		LogEvent event = LogEvent.obtain();
+		event.set("client", "name", 42, Level.WARN, "message", e, "thread");
+
+		LogEvent copy = new LogEvent();
+		copy.copyFrom(event);
+		event.recycle();
+
+		assertEquals("client", copy.getClientID());
+		assertEquals("name", copy.getLoggerName());
+		assertEquals(42, copy.getTime());
+		assertEquals(Level.WARN, copy.getLevel());
+		assertEquals("message", copy.getMessage());
+		assertSame(e, copy.getThrowable());
+		assertEquals("thread", copy.getThreadName());
+		assertNull(event.getMessage());
+	}
+}
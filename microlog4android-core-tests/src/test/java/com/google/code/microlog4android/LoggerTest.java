@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
@@ -11,7 +12,9 @@ import org.junit.Test;
 
 import android.test.AndroidTestCase;
 
+import com.google.code.microlog4android.appender.AbstractAppender;
 import com.google.code.microlog4android.appender.Appender;
+import com.google.code.microlog4android.appender.ConsoleAppender;
 import com.google.code.microlog4android.appender.LogCatAppender;
 import com.google.code.microlog4android.repository.DefaultLoggerRepository;
 
@@ -119,8 +122,7 @@ public class LoggerTest {
 
 		logger.log(Level.INFO, "test");
 
-		verify(mockedAppender).doLog(anyString(), anyString(), anyLong(), any(Level.class), anyString(),
-				any(Throwable.class));
+		verify(mockedAppender).append(any(LogEvent.class));
 	}
 
 	@Test
@@ -137,6 +139,41 @@ public class LoggerTest {
 		verifyZeroInteractions(mockedAppender);
 	}
 	
+	@Test
+	public void testLogParameterizedMessage() {
+		Appender mockedAppender = mockAbstractAppender();
+		Exception e = new Exception();
+
+		logger.addAppender(mockedAppender);
+
+		DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		DefaultLoggerRepository.INSTANCE.setLevel(LoggerTest.class.getName(), Level.DEBUG);
+
+		logger.info("Read {} bytes from {}", 42, "file");
+		logger.warn("Failed to read {}", "file", e);
+
+		verify(mockedAppender).doLog(anyString(), anyString(), anyLong(), eq(Level.INFO),
+				eq("Read 42 bytes from file"), (Throwable) isNull());
+		verify(mockedAppender).doLog(anyString(), anyString(), anyLong(), eq(Level.WARN),
+				eq("Failed to read file"), same(e));
+	}
+
+	@Test
+	public void testParameterizedMessageNotFormattedWhenDisabled() {
+		Appender mockedAppender = mock(Appender.class);
+		Object argument = mock(Object.class);
+
+		logger.addAppender(mockedAppender);
+
+		DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
+		DefaultLoggerRepository.INSTANCE.setLevel(LoggerTest.class.getName(), Level.INFO);
+
+		logger.debug("Argument {}", argument);
+
+		verifyZeroInteractions(mockedAppender);
+		verifyZeroInteractions(argument);
+	}
+
 	@Test
 	public void testDefaultLevel() {
 		Logger defaultLevelLogger = DefaultLoggerRepository.INSTANCE.getLogger(LoggerTest.class.getName());
@@ -163,4 +200,42 @@ public class LoggerTest {
         logger.debug("Main thread!");
 	    t.join();
 	}
+
+	@Test
+	public void testConcurrentLogDeliversAllEvents() throws InterruptedException {
+		final AtomicInteger count = new AtomicInteger();
+		logger.setLevel(Level.DEBUG);
+		logger.addAppender(new ConsoleAppender() {
+			public void append(LogEvent event) {
+				count.incrementAndGet();
+			}
+		});
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						logger.info("Stuff from thread!");
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(threads.length * 10000, count.get());
+	}
+
+	/**
+	 * Mock an appender that passes the events to <code>doLog</code>, so that
+	 * the data can be verified although the events are recycled.
+	 */
+	private static Appender mockAbstractAppender() {
+		AbstractAppender appender = mock(AbstractAppender.class);
+		doCallRealMethod().when(appender).append(any(LogEvent.class));
+		return appender;
+	}
 }
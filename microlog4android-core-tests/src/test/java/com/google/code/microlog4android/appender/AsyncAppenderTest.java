@@ -0,0 +1,250 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.PatternFormatter;
+
+public class AsyncAppenderTest {
+	private AsyncAppender asyncAppender;
+	private Appender mockedAppender;
+
+	@Before
+	public void setup() {
+		asyncAppender = new AsyncAppender(16);
+		mockedAppender = mockAbstractAppender();
+		asyncAppender.addAppender(mockedAppender);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		asyncAppender.close();
+	}
+
+	@Test
+	public void testOpenOpensAttachedAppenders() throws IOException {
+		asyncAppender.open();
+
+		assertTrue(asyncAppender.isLogOpen());
+		verify(mockedAppender).open();
+	}
+
+	@Test
+	public void testCloseDeliversAllEvents() throws IOException, InterruptedException {
+		when(mockedAppender.isLogOpen()).thenReturn(true);
+		asyncAppender.open();
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						asyncAppender.doLog("client", "name", j, Level.INFO, "message", null);
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+
+		asyncAppender.close();
+
+		verify(mockedAppender, times(4000)).doLog(anyString(), anyString(), anyLong(), eq(Level.INFO),
+				any(), any(Throwable.class));
+		verify(mockedAppender).close();
+		assertEquals(0, asyncAppender.getQueueSize());
+	}
+
+	@Test
+	public void testDoLogWhenClosedIsIgnored() {
+		asyncAppender.doLog("client", "name", 0, Level.INFO, "message", null);
+
+		verify(mockedAppender, times(0)).doLog(anyString(), anyString(), anyLong(), any(Level.class), any(),
+				any(Throwable.class));
+	}
+
+	@Test
+	public void testDoLogAfterCloseIsCountedAsDropped() throws IOException {
+		asyncAppender.open();
+		asyncAppender.close();
+		long droppedCount = asyncAppender.getDroppedCount();
+
+		asyncAppender.doLog("client", "name", 0, Level.INFO, "message", null);
+
+		assertEquals(droppedCount + 1, asyncAppender.getDroppedCount());
+	}
+
+	@Test
+	public void testCloseWhileLoggingLosesNoEvent() throws IOException, InterruptedException {
+		final AtomicInteger loggedCount = new AtomicInteger();
+		AsyncAppender appender = new AsyncAppender(4);
+		appender.addAppender(new ConsoleAppender() {
+			public void append(LogEvent event) {
+				loggedCount.incrementAndGet();
+			}
+		});
+		appender.open();
+
+		final AsyncAppender loggingAppender = appender;
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						loggingAppender.doLog("client", "name", j, Level.INFO, "message", null);
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		Thread.sleep(5);
+		appender.close();
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+
+		assertEquals(threads.length * 10000, loggedCount.get() + appender.getDroppedCount());
+	}
+
+	@Test
+	public void testSetCapacityProperty() {
+		asyncAppender.setProperty(AsyncAppender.CAPACITY_PROPERTY, "1024");
+
+		assertEquals(1024, asyncAppender.getCapacity());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddItself() {
+		asyncAppender.addAppender(asyncAppender);
+	}
+
+	@Test
+	public void testRingBufferCapacityIsPowerOfTwo() {
+		LogEventRingBuffer ringBuffer = new LogEventRingBuffer(100);
+
+		assertEquals(128, ringBuffer.getCapacity());
+	}
+
+	@Test
+	public void testRingBufferOfOneEvent() {
+		LogEventRingBuffer ringBuffer = new LogEventRingBuffer(1);
+
+		assertEquals(2, ringBuffer.getCapacity());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(ringBuffer.offer("client", "name", 0, Level.INFO, "message", null));
+			assertTrue(ringBuffer.dispatchNext(new Appender[] { mockedAppender }));
+			assertEquals(false, ringBuffer.dispatchNext(new Appender[] { mockedAppender }));
+		}
+
+		verify(mockedAppender, times(4)).doLog("client", "name", 0, Level.INFO, "message", null);
+	}
+
+	@Test
+	public void testRingBufferFull() {
+		LogEventRingBuffer ringBuffer = new LogEventRingBuffer(2);
+
+		assertTrue(ringBuffer.offer("client", "name", 0, Level.INFO, "1", null));
+		assertTrue(ringBuffer.offer("client", "name", 0, Level.INFO, "2", null));
+		assertEquals(false, ringBuffer.offer("client", "name", 0, Level.INFO, "3", null));
+
+		assertTrue(ringBuffer.dispatchNext(new Appender[] { mockedAppender }));
+		verify(mockedAppender).doLog("client", "name", 0, Level.INFO, "1", null);
+		assertEquals(1, ringBuffer.size());
+	}
+
+	@Test
+	public void testRingBufferSurvivesAppenderError() {
+		LogEventRingBuffer ringBuffer = new LogEventRingBuffer(2);
+		Appender failingAppender = new ConsoleAppender() {
+			public void append(LogEvent event) {
+				throw new StackOverflowError();
+			}
+		};
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(ringBuffer.offer("client", "name", 0, Level.INFO, "message", null));
+			assertTrue(ringBuffer.dispatchNext(new Appender[] { failingAppender, mockedAppender }));
+		}
+
+		verify(mockedAppender, times(4)).doLog("client", "name", 0, Level.INFO, "message", null);
+		assertTrue(ringBuffer.isEmpty());
+	}
+
+	@Test
+	public void testFormattedWithTheThreadAndTimestampOfTheEvent() throws IOException {
+		final File logFile = File.createTempFile("microlog-async-test", ".txt");
+		FileAppender fileAppender = new FileAppender() {
+			@Override
+			public File getLogFile() {
+				return logFile;
+			}
+		};
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%t %d{yyyy-MM-dd} %m");
+		fileAppender.setFormatter(formatter);
+
+		Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		calendar.clear();
+		calendar.set(2011, Calendar.MARCH, 4, 12, 0, 0);
+
+		AsyncAppender appender = new AsyncAppender(16);
+		appender.addAppender(fileAppender);
+
+		try {
+			appender.open();
+			LogEvent event = LogEvent.obtain();
+			event.set("client", "name", calendar.getTimeInMillis(), 0, Level.INFO, "message", null,
+					"logging-thread");
+			appender.append(event);
+			event.recycle();
+			appender.close();
+
+			BufferedReader reader = new BufferedReader(new FileReader(logFile));
+			try {
+				assertEquals("logging-thread 2011-03-04 message", reader.readLine());
+			} finally {
+				reader.close();
+			}
+		} finally {
+			logFile.delete();
+		}
+	}
+
+	/**
+	 * Mock an appender that passes the events to <code>doLog</code>, so that
+	 * the data can be verified although the events are recycled.
+	 */
+	private static Appender mockAbstractAppender() {
+		AbstractAppender appender = mock(AbstractAppender.class);
+		doCallRealMethod().when(appender).append(any(LogEvent.class));
+		return appender;
+	}
+}
@@ -0,0 +1,203 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.PatternFormatter;
+
+public class CircularFileAppenderTest {
+	private static final int FILE_SIZE = 256;
+
+	private File logFile;
+
+	private CircularFileAppender appender;
+
+	private final LogEvent event = new LogEvent();
+
+	@Before
+	public void setup() throws IOException {
+		logFile = File.createTempFile("microlog-circular-test", ".log");
+		appender = createAppender();
+	}
+
+	@After
+	public void teardown() throws IOException {
+		appender.close();
+		logFile.delete();
+	}
+
+	private CircularFileAppender createAppender() {
+		CircularFileAppender circularAppender = new CircularFileAppender(logFile);
+		circularAppender.setFileSize(FILE_SIZE);
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m");
+		circularAppender.setFormatter(formatter);
+		return circularAppender;
+	}
+
+	private void log(String message) {
+		event.set(null, "name", 0, 1, Level.INFO, message, null, "main");
+		appender.append(event);
+	}
+
+	private List<String> readRecords() throws IOException {
+		List<String> records = new ArrayList<String>();
+
+		for (String record : new CircularFileReader(logFile)) {
+			records.add(record);
+		}
+
+		return records;
+	}
+
+	private List<String> logMessages(int count) {
+		List<String> messages = new ArrayList<String>();
+
+		for (int i = 0; i < count; i++) {
+			String message = "message " + i;
+			messages.add(message);
+			log(message);
+		}
+
+		return messages;
+	}
+
+	@Test
+	public void testNonAsciiRecordsAreUtf8() throws IOException {
+		String message = "r\u00e4ksm\u00f6rg\u00e5s \u20ac";
+		appender.open();
+		log(message);
+		appender.close();
+
+		assertEquals(message.getBytes("UTF-8").length + CircularFileAppender.LENGTH_SIZE,
+				new CircularFileReader(logFile).getUsedSize());
+		assertEquals(Arrays.asList(message), readRecords());
+	}
+
+	@Test
+	public void testRecordsInOrder() throws IOException {
+		appender.open();
+		assertEquals(FILE_SIZE, logFile.length());
+
+		List<String> messages = logMessages(5);
+		appender.close();
+
+		assertEquals(messages, readRecords());
+		assertEquals(FILE_SIZE, logFile.length());
+	}
+
+	@Test
+	public void testOverwritesOldestRecords() throws IOException {
+		appender.open();
+		List<String> messages = logMessages(100);
+		appender.close();
+
+		List<String> records = readRecords();
+		assertTrue(records.size() > 5);
+		assertTrue(records.size() < messages.size());
+		assertEquals(messages.subList(messages.size() - records.size(), messages.size()), records);
+		assertEquals(FILE_SIZE, logFile.length());
+	}
+
+	@Test
+	public void testReadWhileLogging() throws IOException {
+		// The records are readable without close(), e.g. after a crash
+		appender.open();
+		List<String> messages = logMessages(30);
+
+		List<String> records = readRecords();
+		assertEquals(messages.subList(messages.size() - records.size(), messages.size()), records);
+		assertEquals(appender.getLogSize(), new CircularFileReader(logFile).getUsedSize());
+	}
+
+	@Test
+	public void testKeepsRecordsWhenReopened() throws IOException {
+		appender.open();
+		log("before");
+		appender.close();
+
+		appender = createAppender();
+		appender.open();
+		log("after");
+		appender.close();
+
+		List<String> records = readRecords();
+		assertEquals(2, records.size());
+		assertEquals("before", records.get(0));
+		assertEquals("after", records.get(1));
+	}
+
+	@Test
+	public void testStartsOverWithInvalidHeader() throws IOException {
+		RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+		try {
+			file.write(new byte[FILE_SIZE]);
+		} finally {
+			file.close();
+		}
+
+		appender.open();
+		log("first");
+		appender.close();
+
+		List<String> records = readRecords();
+		assertEquals(1, records.size());
+		assertEquals("first", records.get(0));
+	}
+
+	@Test
+	public void testLongRecordIsCutOff() throws IOException {
+		StringBuilder message = new StringBuilder();
+		for (int i = 0; i < FILE_SIZE; i++) {
+			message.append('x');
+		}
+
+		appender.open();
+		log("short");
+		log(message.toString());
+		appender.close();
+
+		List<String> records = readRecords();
+		assertEquals(1, records.size());
+		assertEquals(FILE_SIZE - CircularFileAppender.HEADER_SIZE - CircularFileAppender.LENGTH_SIZE, records
+				.get(0).length());
+	}
+
+	@Test
+	public void testClear() throws IOException {
+		appender.open();
+		logMessages(10);
+		appender.clear();
+		assertEquals(0, appender.getLogSize());
+
+		log("kept");
+		appender.close();
+
+		List<String> records = readRecords();
+		assertEquals(1, records.size());
+		assertEquals("kept", records.get(0));
+	}
+
+	@Test(expected = IOException.class)
+	public void testReaderRejectsOtherFiles() throws IOException {
+		new CircularFileReader(logFile);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooSmallFileSize() {
+		appender.setFileSize(CircularFileAppender.HEADER_SIZE);
+	}
+}
@@ -0,0 +1,172 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.config.PropertyConfigurator;
+import com.google.code.microlog4android.format.PatternFormatter;
+
+public class FileChannelAppenderTest {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private File logFile;
+
+	private FileChannelAppender appender;
+
+	private final LogEvent event = new LogEvent();
+
+	@Before
+	public void setup() throws IOException {
+		logFile = File.createTempFile("microlog-channel-test", ".txt");
+		appender = new TempFileChannelAppender(logFile, UTF_8);
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m");
+		appender.setFormatter(formatter);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		appender.close();
+		logFile.delete();
+	}
+
+	private void log(Level level, String message) {
+		event.set(null, "name", 0, 1, level, message, null, "main");
+		appender.append(event);
+	}
+
+	private List<String> readLines() throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(logFile), UTF_8));
+		List<String> lines = new ArrayList<String>();
+
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+
+		return lines;
+	}
+
+	@Test
+	public void testAsciiAndNonAsciiMessages() throws IOException {
+		appender.open();
+		log(Level.INFO, "plain");
+		log(Level.INFO, "r\u00e4ksm\u00f6rg\u00e5s \u20ac");
+		log(Level.INFO, "plain again");
+		appender.close();
+
+		assertEquals(Arrays.asList("plain", "r\u00e4ksm\u00f6rg\u00e5s \u20ac", "plain again"), readLines());
+	}
+
+	@Test
+	public void testMessagesLongerThanTheBuffer() throws IOException {
+		appender.setBufferSize(16);
+		appender.setFlushPolicy(new OnCloseFlushPolicy());
+		appender.open();
+
+		String ascii = "0123456789012345678901234567890123456789";
+		String nonAscii = "\u00e5\u00e4\u00f6\u00e5\u00e4\u00f6\u00e5\u00e4\u00f6\u00e5\u00e4\u00f6\u00e5\u00e4";
+		log(Level.INFO, "short");
+		log(Level.INFO, ascii);
+		log(Level.INFO, nonAscii);
+		log(Level.INFO, "short");
+		appender.close();
+
+		assertEquals(Arrays.asList("short", ascii, nonAscii, "short"), readLines());
+	}
+
+	@Test
+	public void testReopen() throws IOException {
+		String nonAscii = "\u00e5\u00e4\u00f6\u00e5\u00e4\u00f6\u00e5\u00e4\u00f6\u00e5\u00e4\u00f6\u00e5\u00e4";
+		appender.setBufferSize(16);
+		appender.setAppend(true);
+		appender.open();
+		log(Level.INFO, nonAscii);
+		log(Level.INFO, "first");
+		appender.close();
+
+		// The same buffer size, so the buffers are reused
+		appender.open();
+		log(Level.INFO, "second");
+		log(Level.INFO, nonAscii);
+		appender.close();
+
+		appender.setBufferSize(64);
+		appender.open();
+		log(Level.INFO, nonAscii);
+		appender.close();
+
+		assertEquals(Arrays.asList(nonAscii, "first", "second", nonAscii, nonAscii), readLines());
+	}
+
+	@Test
+	public void testFlushPolicy() throws IOException {
+		appender.setFlushPolicy(new LevelFlushPolicy(Level.ERROR, new OnCloseFlushPolicy()));
+		appender.open();
+
+		log(Level.WARN, "buffered");
+		assertEquals(0, logFile.length());
+		assertTrue(appender.getLogSize() > 0);
+
+		log(Level.ERROR, "flushed");
+		assertEquals(Arrays.asList("buffered", "flushed"), readLines());
+
+		log(Level.INFO, "buffered");
+		appender.flush();
+		assertEquals(3, readLines().size());
+	}
+
+	@Test
+	public void testDoLog() throws IOException {
+		appender.open();
+		appender.doLog(null, "name", 0, Level.INFO, "message", null);
+		appender.close();
+
+		assertEquals(Arrays.asList("message"), readLines());
+	}
+
+	@Test
+	public void testAppenderAlias() {
+		int index = Arrays.asList(PropertyConfigurator.APPENDER_ALIASES).indexOf("FileChannelAppender");
+
+		assertTrue(index >= 0);
+		assertEquals(FileChannelAppender.class.getName(), PropertyConfigurator.APPENDER_CLASS_NAMES[index]);
+	}
+
+	/**
+	 * Logs to the specified file instead of the external storage of Android.
+	 */
+	private static class TempFileChannelAppender extends FileChannelAppender {
+		private final File file;
+
+		TempFileChannelAppender(File file, Charset charset) {
+			super(charset);
+			this.file = file;
+		}
+
+		@Override
+		public File getLogFile() {
+			return file;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.SimpleFormatter;
+
+public class FlushPolicyTest {
+	private File logFile;
+
+	private FileAppender appender;
+
+	private final LogEvent event = new LogEvent();
+
+	@Before
+	public void setup() throws IOException {
+		logFile = File.createTempFile("microlog-flush-test", ".txt");
+		appender = new TempFileAppender(logFile);
+		appender.setFormatter(new SimpleFormatter());
+	}
+
+	@After
+	public void teardown() throws IOException {
+		appender.close();
+		logFile.delete();
+	}
+
+	private void log(Level level) {
+		event.set(null, "name", 0, 1, level, "message", null, "main");
+		appender.append(event);
+	}
+
+	@Test
+	public void testCountingPolicy() {
+		CountingFlushPolicy policy = new CountingFlushPolicy(3);
+
+		assertFalse(policy.flushAfterWrite(Level.INFO));
+		assertFalse(policy.flushAfterWrite(Level.INFO));
+		assertTrue(policy.flushAfterWrite(Level.INFO));
+		assertFalse(policy.flushAfterWrite(Level.INFO));
+	}
+
+	@Test
+	public void testIntervalPolicy() {
+		assertTrue(new IntervalFlushPolicy(0).flushAfterWrite(Level.INFO));
+		assertFalse(new IntervalFlushPolicy(60000).flushAfterWrite(Level.INFO));
+	}
+
+	@Test
+	public void testLevelPolicy() {
+		LevelFlushPolicy policy = new LevelFlushPolicy(Level.ERROR, new OnCloseFlushPolicy());
+
+		assertFalse(policy.flushAfterWrite(Level.WARN));
+		assertTrue(policy.flushAfterWrite(Level.ERROR));
+		assertTrue(policy.flushAfterWrite(Level.FATAL));
+	}
+
+	@Test
+	public void testLevelPolicyRestartsTheCountAfterAFlush() {
+		LevelFlushPolicy policy = new LevelFlushPolicy(Level.ERROR, new CountingFlushPolicy(3));
+
+		assertFalse(policy.flushAfterWrite(Level.INFO));
+		assertTrue(policy.flushAfterWrite(Level.ERROR));
+		policy.flushed();
+
+		assertFalse(policy.flushAfterWrite(Level.INFO));
+		assertFalse(policy.flushAfterWrite(Level.INFO));
+		assertTrue(policy.flushAfterWrite(Level.INFO));
+	}
+
+	@Test
+	public void testIntervalPolicyRestartsTheIntervalAfterAFlush() throws InterruptedException {
+		IntervalFlushPolicy policy = new IntervalFlushPolicy(50);
+
+		Thread.sleep(60);
+		policy.flushed();
+
+		assertFalse(policy.flushAfterWrite(Level.INFO));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCountingPolicyWithZeroCount() {
+		new CountingFlushPolicy(0);
+	}
+
+	@Test
+	public void testImmediateFlushIsTheDefault() throws IOException {
+		appender.open();
+		log(Level.INFO);
+
+		assertTrue(logFile.length() > 0);
+	}
+
+	@Test
+	public void testConfiguredCountPolicy() throws IOException {
+		appender.setProperty(FileAppender.FLUSH_POLICY_PROPERTY, FileAppender.COUNT_FLUSH_POLICY);
+		appender.setProperty(FileAppender.FLUSH_COUNT_PROPERTY, "3");
+		appender.open();
+
+		log(Level.INFO);
+		log(Level.INFO);
+		assertEquals(0, logFile.length());
+
+		log(Level.INFO);
+		assertTrue(logFile.length() > 0);
+	}
+
+	@Test
+	public void testConfiguredFlushLevel() throws IOException {
+		appender.setProperty(FileAppender.FLUSH_POLICY_PROPERTY, FileAppender.ON_CLOSE_FLUSH_POLICY);
+		appender.setProperty(FileAppender.FLUSH_LEVEL_PROPERTY, "ERROR");
+		appender.setGarbageFree(true);
+		appender.open();
+
+		log(Level.WARN);
+		assertEquals(0, logFile.length());
+
+		log(Level.ERROR);
+		long flushedLength = logFile.length();
+		assertTrue(flushedLength > 0);
+
+		log(Level.INFO);
+		assertEquals(flushedLength, logFile.length());
+
+		appender.close();
+		assertTrue(logFile.length() > flushedLength);
+	}
+
+	@Test
+	public void testFlushLevelRestartsTheCount() throws IOException {
+		appender.setProperty(FileAppender.FLUSH_POLICY_PROPERTY, FileAppender.COUNT_FLUSH_POLICY);
+		appender.setProperty(FileAppender.FLUSH_COUNT_PROPERTY, "3");
+		appender.setProperty(FileAppender.FLUSH_LEVEL_PROPERTY, "ERROR");
+		appender.open();
+
+		log(Level.INFO);
+		log(Level.ERROR);
+		long flushedLength = logFile.length();
+		assertTrue(flushedLength > 0);
+
+		log(Level.INFO);
+		log(Level.INFO);
+		assertEquals(flushedLength, logFile.length());
+
+		log(Level.INFO);
+		assertTrue(logFile.length() > flushedLength);
+	}
+
+	@Test
+	public void testConfiguredIntervalPolicyFlushesWithoutMoreEvents() throws IOException, InterruptedException {
+		appender.setProperty(FileAppender.FLUSH_POLICY_PROPERTY, FileAppender.INTERVAL_FLUSH_POLICY);
+		appender.setProperty(FileAppender.FLUSH_INTERVAL_PROPERTY, "50");
+		appender.open();
+
+		log(Level.INFO);
+
+		for (int i = 0; i < 100 && logFile.length() == 0; i++) {
+			Thread.sleep(20);
+		}
+		assertTrue(logFile.length() > 0);
+	}
+
+	/**
+	 * Logs to the specified file instead of the external storage of Android.
+	 */
+	private static class TempFileAppender extends FileAppender {
+		private final File file;
+
+		TempFileAppender(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public File getLogFile() {
+			return file;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.format.SimpleFormatter;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+/**
+ * Counts the bytes allocated by the logging thread, using the allocation
+ * counters of the HotSpot <code>ThreadMXBean</code>. The test is skipped on
+ * virtual machines that do not count allocations.
+ */
+public class GarbageFreeLoggingTest {
+	private static final int WARMUP_EVENTS = 20000;
+
+	private static final int EVENTS = 10000;
+
+	private static final int MEASUREMENT_ROUNDS = 3;
+
+	private static final int DISCARD_PORT = 9;
+
+	/**
+	 * Some slack for allocations made by the virtual machine itself.
+	 */
+	private static final long MAX_ALLOCATED_BYTES = 1024;
+
+	private Logger logger;
+
+	private File logFile;
+
+	@Before
+	public void setup() {
+		logger = DefaultLoggerRepository.INSTANCE.getLogger(GarbageFreeLoggingTest.class.getName());
+		logger.setLevel(Level.DEBUG);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		logger.close();
+		DefaultLoggerRepository.INSTANCE.reset();
+
+		if (logFile != null) {
+			logFile.delete();
+		}
+	}
+
+	@Test
+	public void testFileAppender() throws IOException {
+		logFile = File.createTempFile("microlog-garbage-free-test", ".txt");
+		FileAppender appender = new FileAppender() {
+			@Override
+			public File getLogFile() {
+				return logFile;
+			}
+		};
+		appender.setGarbageFree(true);
+		appender.setFormatter(new SimpleFormatter());
+		logger.addAppender(appender);
+
+		assertGarbageFree(0);
+
+		BufferedReader reader = new BufferedReader(new FileReader(appender.getLogFile()));
+		try {
+			assertTrue(reader.readLine().endsWith(":[INFO]-Garbage free message"));
+			assertTrue(reader.readLine().endsWith(":[INFO]-42"));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testDatagramAppender() throws IOException {
+		DatagramAppender appender = new DatagramAppender();
+		appender.setPort(DISCARD_PORT);
+		appender.setGarbageFree(true);
+		appender.setFormatter(new SimpleFormatter());
+		logger.addAppender(appender);
+
+		// Some DatagramSocket implementations allocate when sending, which
+		// is not counted against the appender.
+		assertGarbageFree(measureSocketAllocation(2 * EVENTS));
+	}
+
+	private long measureSocketAllocation(int count) throws IOException {
+		com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+		DatagramSocket socket = new DatagramSocket();
+		byte[] data = new byte[64];
+		DatagramPacket packet = new DatagramPacket(data, data.length, InetAddress.getByName("127.0.0.1"),
+				DISCARD_PORT);
+
+		try {
+			for (int i = 0; i < WARMUP_EVENTS; i++) {
+				socket.send(packet);
+			}
+
+			long threadId = Thread.currentThread().getId();
+			long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < count; i++) {
+				packet.setData(data, 0, data.length);
+				socket.send(packet);
+			}
+
+			return allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		} finally {
+			socket.close();
+		}
+	}
+
+	private com.sun.management.ThreadMXBean getAllocationBean() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+		return allocationBean;
+	}
+
+	private void assertGarbageFree(long allowedBytes) {
+		com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+
+		Integer number = Integer.valueOf(42);
+		logMessages(WARMUP_EVENTS, number);
+
+		// The virtual machine now and then allocates on the logging thread,
+		// e.g. when a method is compiled, so the least of a few rounds counts.
+		long threadId = Thread.currentThread().getId();
+		long allocated = Long.MAX_VALUE;
+		for (int round = 0; round < MEASUREMENT_ROUNDS && allocated >= allowedBytes + MAX_ALLOCATED_BYTES; round++) {
+			long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+			logMessages(EVENTS, number);
+			allocated = Math.min(allocated, allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore);
+		}
+
+		assertTrue("Allocated " + allocated + " bytes for " + 2 * EVENTS + " events",
+				allocated < allowedBytes + MAX_ALLOCATED_BYTES);
+	}
+
+	private void logMessages(int count, Integer number) {
+		for (int i = 0; i < count; i++) {
+			logger.info("Garbage free message");
+			logger.info(number);
+		}
+	}
+}
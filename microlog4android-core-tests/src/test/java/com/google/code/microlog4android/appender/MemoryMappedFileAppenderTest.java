@@ -0,0 +1,163 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.PatternFormatter;
+
+public class MemoryMappedFileAppenderTest {
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private File logFile;
+
+	private MemoryMappedFileAppender appender;
+
+	private final LogEvent event = new LogEvent();
+
+	@Before
+	public void setup() throws IOException {
+		logFile = File.createTempFile("microlog-mapped-test", ".txt");
+		appender = createAppender();
+	}
+
+	@After
+	public void teardown() throws IOException {
+		appender.close();
+		logFile.delete();
+	}
+
+	private MemoryMappedFileAppender createAppender() {
+		MemoryMappedFileAppender mappedAppender = new MemoryMappedFileAppender(logFile);
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m");
+		mappedAppender.setFormatter(formatter);
+		return mappedAppender;
+	}
+
+	private void log(String message) {
+		event.set(null, "name", 0, 1, Level.INFO, message, null, "main");
+		appender.append(event);
+	}
+
+	private List<String> readLines() throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(logFile));
+		List<String> lines = new ArrayList<String>();
+
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+
+		return lines;
+	}
+
+	@Test
+	public void testLogSizeAndTruncateOnClose() throws IOException {
+		appender.open();
+		assertEquals(0, appender.getLogSize());
+
+		log("first");
+		log("second");
+		long logSize = 11 + 2 * LINE_SEPARATOR.length();
+		assertEquals(logSize, appender.getLogSize());
+		assertEquals(MemoryMappedFileAppender.DEFAULT_REGION_SIZE, logFile.length());
+
+		appender.close();
+		assertEquals(Appender.SIZE_UNDEFINED, appender.getLogSize());
+		assertEquals(logSize, logFile.length());
+		assertEquals(Arrays.asList("first", "second"), readLines());
+	}
+
+	@Test
+	public void testEventsSpanningRegions() throws IOException {
+		appender.setRegionSize(8);
+		appender.open();
+
+		List<String> messages = new ArrayList<String>();
+		for (int i = 0; i < 20; i++) {
+			String message = "message number " + i;
+			messages.add(message);
+			log(message);
+		}
+
+		appender.close();
+		assertEquals(messages, readLines());
+	}
+
+	@Test
+	public void testAppendAfterCrash() throws IOException {
+		// A crashed process leaves the unused part of the region in the file
+		RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+		try {
+			file.write(("logged before the crash" + LINE_SEPARATOR).getBytes());
+			file.write(new byte[100]);
+		} finally {
+			file.close();
+		}
+
+		appender.setAppend(true);
+		appender.setRegionSize(16);
+		appender.open();
+		log("logged after the crash");
+		appender.close();
+
+		assertEquals(Arrays.asList("logged before the crash", "logged after the crash"), readLines());
+	}
+
+	@Test
+	public void testOverwriteLongerFile() throws IOException {
+		RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+		try {
+			for (int i = 0; i < 20; i++) {
+				file.write(("logged by the last session" + LINE_SEPARATOR).getBytes());
+			}
+		} finally {
+			file.close();
+		}
+
+		appender.setRegionSize(16);
+		appender.open();
+		log("new");
+
+		// Only the mapped region is left if the process dies now
+		assertEquals(16, logFile.length());
+
+		appender.close();
+		assertEquals(Arrays.asList("new"), readLines());
+	}
+
+	@Test
+	public void testClear() throws IOException {
+		appender.open();
+		log("cleared");
+		appender.clear();
+		assertEquals(0, appender.getLogSize());
+
+		log("kept");
+		appender.close();
+		assertEquals(Arrays.asList("kept"), readLines());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroRegionSize() {
+		appender.setRegionSize(0);
+	}
+}
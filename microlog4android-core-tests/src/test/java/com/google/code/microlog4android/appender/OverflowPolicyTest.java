@@ -0,0 +1,118 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+public class OverflowPolicyTest {
+	private LogEventRingBuffer ringBuffer;
+
+	@Before
+	public void setup() {
+		ringBuffer = new LogEventRingBuffer(4);
+	}
+
+	private void fill(Level level) {
+		while (ringBuffer.offer("client", "name", 0, level, "message", null)) {
+			// Keep on filling
+		}
+	}
+
+	@Test
+	public void testDropNewest() {
+		fill(Level.INFO);
+
+		assertFalse(new DropNewestOverflowPolicy().onBufferFull(ringBuffer, Level.FATAL, System.nanoTime()));
+	}
+
+	@Test
+	public void testDropOldest() {
+		ringBuffer.offer("client", "name", 0, Level.INFO, "oldest", null);
+		fill(Level.INFO);
+
+		assertTrue(new DropOldestOverflowPolicy().onBufferFull(ringBuffer, Level.INFO, System.nanoTime()));
+		assertTrue(ringBuffer.offer("client", "name", 0, Level.INFO, "newest", null));
+		assertEquals(1, ringBuffer.getDroppedCount());
+
+		Appender appender = mockAbstractAppender();
+		ringBuffer.dispatchNext(new Appender[] { appender });
+		verify(appender).doLog("client", "name", 0, Level.INFO, "message", null);
+	}
+
+	@Test
+	public void testBlockingTimeout() {
+		fill(Level.INFO);
+		long start = System.nanoTime() - 20 * 1000 * 1000L;
+
+		assertFalse(new BlockingOverflowPolicy(10).onBufferFull(ringBuffer, Level.INFO, start));
+		assertTrue(new BlockingOverflowPolicy().onBufferFull(ringBuffer, Level.INFO, start));
+	}
+
+	@Test
+	public void testLevelDiscardingKeepsRoomForImportantEvents() {
+		LevelDiscardingOverflowPolicy policy = new LevelDiscardingOverflowPolicy(Level.INFO, 25);
+		ringBuffer.offer("client", "name", 0, Level.INFO, "message", null);
+		ringBuffer.offer("client", "name", 0, Level.INFO, "message", null);
+
+		assertFalse(policy.discardBeforeOffer(ringBuffer, Level.DEBUG));
+
+		ringBuffer.offer("client", "name", 0, Level.INFO, "message", null);
+
+		assertTrue(policy.discardBeforeOffer(ringBuffer, Level.DEBUG));
+		assertFalse(policy.discardBeforeOffer(ringBuffer, Level.INFO));
+	}
+
+	@Test
+	public void testLevelDiscardingNeverDropsErrors() {
+		LevelDiscardingOverflowPolicy policy = new LevelDiscardingOverflowPolicy(Level.FATAL);
+		fill(Level.INFO);
+
+		assertFalse(policy.discardBeforeOffer(ringBuffer, Level.ERROR));
+		assertTrue(policy.onBufferFull(ringBuffer, Level.ERROR, System.nanoTime()));
+		assertFalse(policy.onBufferFull(ringBuffer, Level.WARN, System.nanoTime()));
+	}
+
+	@Test
+	public void testAsyncAppenderCountsDroppedEvents() throws Exception {
+		AsyncAppender asyncAppender = new AsyncAppender(2);
+		asyncAppender.setProperty(AsyncAppender.OVERFLOW_POLICY_PROPERTY, AsyncAppender.DROP_NEWEST_POLICY);
+		asyncAppender.addAppender(new ConsoleAppender() {
+			public void append(LogEvent event) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		asyncAppender.open();
+
+		for (int i = 0; i < 100; i++) {
+			asyncAppender.doLog("client", "name", 0, Level.INFO, "message", null);
+		}
+		asyncAppender.close();
+
+		assertTrue(asyncAppender.getOverflowPolicy() instanceof DropNewestOverflowPolicy);
+		assertTrue(asyncAppender.getDroppedCount() > 0);
+	}
+
+	/**
+	 * Mock an appender that passes the events to <code>doLog</code>, so that
+	 * the data can be verified although the events are recycled.
+	 */
+	private static Appender mockAbstractAppender() {
+		AbstractAppender appender = mock(AbstractAppender.class);
+		doCallRealMethod().when(appender).append(any(LogEvent.class));
+		return appender;
+	}
+}
@@ -0,0 +1,337 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.microlog4android.Clock;
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.format.PatternFormatter;
+
+public class RollingFileAppenderTest {
+	private static final int EVENTS = 40;
+
+	private File directory;
+
+	private File logFile;
+
+	private RollingFileAppender appender;
+
+	private final LogEvent event = new LogEvent();
+
+	@Before
+	public void setup() throws IOException {
+		directory = File.createTempFile("microlog-rolling-test", "");
+		directory.delete();
+		directory.mkdir();
+		logFile = new File(directory, "microlog.txt");
+
+		appender = new TempRollingFileAppender(logFile);
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m");
+		appender.setFormatter(formatter);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		appender.close();
+
+		File[] files = directory.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			files[i].delete();
+		}
+		directory.delete();
+	}
+
+	private void log(long timestamp, String message) {
+		event.set(null, "name", timestamp, 1, Level.INFO, message, null, "main");
+		appender.append(event);
+	}
+
+	private List<String> logMessages() {
+		List<String> messages = new ArrayList<String>();
+
+		for (int i = 0; i < EVENTS; i++) {
+			String message = "message " + i;
+			messages.add(message);
+			log(0, message);
+		}
+
+		return messages;
+	}
+
+	private List<String> readLines(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		if (file.getName().endsWith(RollingFileAppender.COMPRESSED_SUFFIX)) {
+			in = new GZIPInputStream(in);
+		}
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+		List<String> lines = new ArrayList<String>();
+
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+
+		return lines;
+	}
+
+	private List<String> readAllLines() throws IOException {
+		List<String> lines = new ArrayList<String>();
+		File[] archives = RollingFileAppender.listArchives(logFile);
+
+		for (int i = 0; i < archives.length; i++) {
+			lines.addAll(readLines(archives[i]));
+		}
+
+		lines.addAll(readLines(logFile));
+		return lines;
+	}
+
+	@Test
+	public void testRollOverBySize() throws IOException {
+		appender.setCompress(false);
+		appender.setMaxFileSize(100);
+		appender.setMaxArchives(100);
+		appender.open();
+
+		List<String> messages = logMessages();
+		appender.close();
+
+		File[] archives = RollingFileAppender.listArchives(logFile);
+		assertTrue(archives.length >= 3);
+		for (int i = 0; i < archives.length; i++) {
+			assertEquals(i + 1, RollingFileAppender.getArchiveIndex(logFile, archives[i]));
+			assertTrue(archives[i].length() <= 100 + 12);
+		}
+
+		assertEquals(messages, readAllLines());
+	}
+
+	@Test
+	public void testCompressedArchives() throws IOException {
+		appender.setMaxFileSize(100);
+		appender.setMaxArchives(100);
+		appender.open();
+
+		List<String> messages = logMessages();
+		appender.close();
+
+		File[] archives = RollingFileAppender.listArchives(logFile);
+		assertTrue(archives.length >= 3);
+		for (int i = 0; i < archives.length; i++) {
+			assertTrue(archives[i].getName().endsWith(RollingFileAppender.COMPRESSED_SUFFIX));
+		}
+
+		assertEquals(messages, readAllLines());
+	}
+
+	@Test
+	public void testMaxArchives() throws IOException {
+		appender.setCompress(false);
+		appender.setMaxFileSize(100);
+		appender.setMaxArchives(2);
+		appender.open();
+
+		logMessages();
+		appender.close();
+
+		File[] archives = RollingFileAppender.listArchives(logFile);
+		assertEquals(2, archives.length);
+
+		List<String> lines = readAllLines();
+		assertEquals("message " + (EVENTS - 1), lines.get(lines.size() - 1));
+	}
+
+	@Test
+	public void testMaxTotalSize() throws IOException {
+		appender.setCompress(false);
+		appender.setMaxFileSize(100);
+		appender.setMaxArchives(100);
+		appender.setMaxTotalSize(250);
+		appender.open();
+
+		logMessages();
+		appender.close();
+
+		long totalSize = 0;
+		File[] archives = RollingFileAppender.listArchives(logFile);
+		for (int i = 0; i < archives.length; i++) {
+			totalSize += archives[i].length();
+		}
+
+		assertTrue(archives.length > 0);
+		assertTrue(totalSize <= 250);
+	}
+
+	@Test
+	public void testContinuesArchiveIndexWhenReopened() throws IOException {
+		appender.setCompress(false);
+		appender.open();
+		log(0, "first");
+		appender.rollOver();
+		appender.close();
+
+		appender.open();
+		log(0, "second");
+		appender.rollOver();
+		appender.close();
+
+		File[] archives = RollingFileAppender.listArchives(logFile);
+		assertEquals(2, archives.length);
+		assertEquals(2, RollingFileAppender.getArchiveIndex(logFile, archives[1]));
+	}
+
+	@Test
+	public void testKeepsTheLogWhenReopened() throws IOException {
+		appender.setCompress(false);
+		appender.open();
+		log(0, "first");
+		appender.close();
+
+		appender.open();
+		log(0, "second");
+		appender.close();
+
+		assertEquals(0, RollingFileAppender.listArchives(logFile).length);
+		assertEquals(2, readLines(logFile).size());
+		assertEquals("first", readLines(logFile).get(0));
+	}
+
+	@Test
+	public void testDeletesStaleTemporaryFiles() throws IOException {
+		File stale = new File(directory, "microlog.txt.1.gz.tmp");
+		File other = new File(directory, "other.txt.1.gz.tmp");
+		assertTrue(stale.createNewFile());
+		assertTrue(other.createNewFile());
+
+		appender.open();
+		appender.close();
+
+		assertFalse(stale.exists());
+		assertTrue(other.exists());
+	}
+
+	@Test
+	public void testRollOverByTime() throws IOException {
+		final long[] now = new long[] { 10500 };
+		Clock previousClock = Logger.getClock();
+		Logger.setClock(new Clock() {
+			public long currentTimeMillis() {
+				return now[0];
+			}
+		});
+
+		try {
+			appender.setCompress(false);
+			appender.setRollInterval(60 * 60 * 1000L);
+			appender.open();
+
+			log(now[0], "first window");
+			log(now[0] + 1000, "first window");
+			assertEquals(0, RollingFileAppender.listArchives(logFile).length);
+
+			now[0] += 2 * 60 * 60 * 1000L;
+			log(now[0], "second window");
+			appender.close();
+
+			File[] archives = RollingFileAppender.listArchives(logFile);
+			assertEquals(1, archives.length);
+			assertEquals(2, readLines(archives[0]).size());
+			assertEquals(1, readLines(logFile).size());
+		} finally {
+			Logger.setClock(previousClock);
+		}
+	}
+
+	@Test
+	public void testRetryAfterFailedRename() throws IOException {
+		final long[] now = new long[] { 10500 };
+		Clock previousClock = Logger.getClock();
+		Logger.setClock(new Clock() {
+			public long currentTimeMillis() {
+				return now[0];
+			}
+		});
+
+		// A directory that is not empty cannot be replaced by the archive
+		File blocker = new File(directory, "microlog.txt.1");
+		File blockerContent = new File(blocker, "content");
+
+		try {
+			appender.setCompress(false);
+			appender.setMaxFileSize(10);
+			appender.open();
+			blocker.mkdir();
+			blockerContent.createNewFile();
+
+			log(now[0], "first message");
+			log(now[0], "rename fails");
+			blockerContent.delete();
+			blocker.delete();
+
+			log(now[0], "waiting for the retry");
+			assertEquals(0, RollingFileAppender.listArchives(logFile).length);
+
+			now[0] += RollingFileAppender.RENAME_RETRY_DELAY;
+			log(now[0], "rolled over");
+			appender.close();
+
+			File[] archives = RollingFileAppender.listArchives(logFile);
+			assertEquals(1, archives.length);
+			assertEquals(3, readLines(archives[0]).size());
+			assertEquals(1, readLines(logFile).size());
+		} finally {
+			Logger.setClock(previousClock);
+			blockerContent.delete();
+			blocker.delete();
+		}
+	}
+
+	@Test
+	public void testArchiveIndex() {
+		assertEquals(12, RollingFileAppender.getArchiveIndex(logFile, new File(directory, "microlog.txt.12")));
+		assertEquals(3, RollingFileAppender.getArchiveIndex(logFile, new File(directory, "microlog.txt.3.gz")));
+		assertEquals(-1, RollingFileAppender.getArchiveIndex(logFile, new File(directory, "microlog.txt")));
+		assertEquals(-1, RollingFileAppender.getArchiveIndex(logFile, new File(directory, "microlog.txt.gz")));
+		assertEquals(-1, RollingFileAppender.getArchiveIndex(logFile, new File(directory, "microlog.txt.1.gz.tmp")));
+		assertFalse(RollingFileAppender.getArchiveIndex(logFile, new File(directory, "other.txt.1")) > 0);
+	}
+
+	/**
+	 * Logs to the specified file instead of the external storage of Android.
+	 */
+	private static class TempRollingFileAppender extends RollingFileAppender {
+		private final File file;
+
+		TempRollingFileAppender(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public File getLogFile() {
+			return file;
+		}
+	}
+}
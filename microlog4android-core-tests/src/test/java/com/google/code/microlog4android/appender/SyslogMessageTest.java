@@ -0,0 +1,66 @@
+package com.google.code.microlog4android.appender;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class SyslogMessageTest {
+	private static final int THREADS = 8;
+
+	private static final int MESSAGES = 5000;
+
+	// 2011-03-04 05:06:07 UTC
+	private static final long TIMESTAMP = 1299215167000L;
+
+	private SyslogMessage createSyslogMessage() {
+		SyslogMessage syslogMessage = new SyslogMessage();
+		syslogMessage.setTag("tag");
+		syslogMessage.setHostname("host");
+		syslogMessage.setHeader(true);
+		return syslogMessage;
+	}
+
+	@Test
+	public void testMessageData() {
+		assertEquals("<15>Mar 04 05:06:07 host tag: message", createSyslogMessage().createMessageData("message",
+				TIMESTAMP));
+	}
+
+	@Test
+	public void testConcurrentMessageData() throws InterruptedException {
+		final SyslogMessage syslogMessage = createSyslogMessage();
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		Thread[] threads = new Thread[THREADS];
+
+		for (int i = 0; i < threads.length; i++) {
+			final String message = "message from thread " + i;
+			final long timestamp = TIMESTAMP + i * 1000L;
+			int second = 7 + i;
+			final String expected = "<15>Mar 04 05:06:" + (second < 10 ? "0" : "") + second + " host tag: "
+					+ message;
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < MESSAGES; j++) {
+						String data = syslogMessage.createMessageData(message, timestamp);
+
+						if (!expected.equals(data)) {
+							failure.set(data);
+						}
+					}
+				}
+			};
+		}
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].start();
+		}
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+
+		assertEquals(null, failure.get());
+	}
+}
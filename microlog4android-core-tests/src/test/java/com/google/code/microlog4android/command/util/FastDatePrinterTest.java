@@ -0,0 +1,72 @@
+package com.google.code.microlog4android.command.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.format.command.util.FastDatePrinter;
+
+public class FastDatePrinterTest {
+	private static final String[] TIME_ZONES = { "UTC", "Europe/Stockholm", "America/New_York",
+			"Australia/Lord_Howe", "Asia/Kathmandu", "Pacific/Chatham" };
+
+	private static void assertSameAsSimpleDateFormat(String pattern, TimeZone timeZone, long timestamp) {
+		SimpleDateFormat expectedFormat = new SimpleDateFormat(pattern);
+		expectedFormat.setTimeZone(timeZone);
+		FastDatePrinter printer = new FastDatePrinter(pattern, timeZone);
+
+		assertEquals(timeZone.getID() + " " + timestamp, expectedFormat.format(new Date(timestamp)), printer
+				.format(timestamp));
+	}
+
+	@Test
+	public void testIso8601Pattern() {
+		FastDatePrinter printer = new FastDatePrinter("yyyy-MM-dd'T'HH:mm:ss.SSSZ", TimeZone.getTimeZone("UTC"));
+
+		assertEquals("2011-03-13T07:06:40.005+0000", printer.format(1300000000005L));
+	}
+
+	@Test
+	public void testAllFields() {
+		String pattern = "G yy yyyy M MM MMM MMMM d dd D E EEEE u a H k K h m s S SSS Z X XX XXX 'quoted ''text''' ''";
+
+		for (String id : TIME_ZONES) {
+			TimeZone timeZone = TimeZone.getTimeZone(id);
+			for (long timestamp = -2000000000000L; timestamp < 4000000000000L; timestamp += 12345678901L) {
+				assertSameAsSimpleDateFormat(pattern, timeZone, timestamp);
+			}
+		}
+	}
+
+	@Test
+	public void testAroundDaylightSavingTransitions() {
+		String pattern = "yyyy-MM-dd HH:mm:ss.SSS Z";
+
+		for (String id : TIME_ZONES) {
+			TimeZone timeZone = TimeZone.getTimeZone(id);
+			FastDatePrinter printer = new FastDatePrinter(pattern, timeZone);
+			SimpleDateFormat expectedFormat = new SimpleDateFormat(pattern);
+			expectedFormat.setTimeZone(timeZone);
+
+			// Step through 2011 in 17 minute steps, using the same printer so
+			// that the cached offsets are used.
+			for (long timestamp = 1293840000000L; timestamp < 1325376000000L; timestamp += 17 * 60 * 1000 + 1) {
+				assertEquals(id, expectedFormat.format(new Date(timestamp)), printer.format(timestamp));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalPatternCharacter() {
+		new FastDatePrinter("yyyy-MM-dd Q");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnterminatedQuote() {
+		new FastDatePrinter("yyyy 'T");
+	}
+}
@@ -0,0 +1,101 @@
+package com.google.code.microlog4android.command.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.format.command.util.StackTraceRenderer;
+
+public class StackTraceRendererTest {
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private static String printStackTrace(Throwable throwable) {
+		StringWriter writer = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(writer);
+		throwable.printStackTrace(printWriter);
+		printWriter.flush();
+		return writer.toString();
+	}
+
+	private static Throwable createNestedException(String message) {
+		try {
+			try {
+				throw new IllegalStateException("Inner " + message);
+			} catch (IllegalStateException e) {
+				throw new RuntimeException("Outer " + message, e);
+			}
+		} catch (RuntimeException e) {
+			return e;
+		}
+	}
+
+	@Test
+	public void testSameAsPrintStackTrace() {
+		Throwable throwable = createNestedException("failure");
+
+		assertEquals(printStackTrace(throwable), new StackTraceRenderer().render(throwable));
+	}
+
+	@Test
+	public void testMaxLines() {
+		Throwable throwable = createNestedException("failure");
+		String rendered = new StackTraceRenderer(2, null).render(throwable);
+		String[] lines = printStackTrace(throwable).split(LINE_SEPARATOR);
+
+		assertEquals(lines[0] + LINE_SEPARATOR + lines[1] + LINE_SEPARATOR, rendered);
+	}
+
+	@Test
+	public void testZeroMaxLinesRendersNothing() {
+		assertEquals("", new StackTraceRenderer(0, null).render(createNestedException("failure")));
+	}
+
+	@Test
+	public void testFilteredPackages() {
+		Throwable throwable = createNestedException("failure");
+		String rendered = new StackTraceRenderer(StackTraceRenderer.NO_MAX_LINES, new String[] { "org.junit." })
+				.render(throwable);
+
+		assertTrue(printStackTrace(throwable).contains("\tat org.junit."));
+		assertTrue(!rendered.contains("\tat org.junit."));
+		assertTrue(rendered.contains(" filtered" + LINE_SEPARATOR));
+	}
+
+	@Test
+	public void testIdenticalTracesRenderTheSame() {
+		StackTraceRenderer renderer = new StackTraceRenderer();
+		String first = null;
+
+		for (int i = 0; i < 3; i++) {
+			String rendered = renderer.render(createNestedException("failure"));
+			if (first == null) {
+				first = rendered;
+			}
+			assertEquals(first, rendered);
+		}
+
+		Throwable other = createNestedException("other");
+		assertEquals(printStackTrace(other), renderer.render(other));
+	}
+
+	@Test
+	public void testCircularCause() {
+		final RuntimeException outer = new RuntimeException("Outer");
+		RuntimeException inner = new RuntimeException("Inner") {
+			private static final long serialVersionUID = 1L;
+
+			public synchronized Throwable getCause() {
+				return outer;
+			}
+		};
+		outer.initCause(inner);
+
+		String rendered = new StackTraceRenderer().render(outer);
+
+		assertTrue(rendered.contains("Caused by: [CIRCULAR REFERENCE: java.lang.RuntimeException: Outer]"));
+	}
+}
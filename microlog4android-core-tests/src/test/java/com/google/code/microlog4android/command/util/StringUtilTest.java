@@ -27,4 +27,23 @@ public class StringUtilTest {
 		
 		assertEquals(StringUtilTest.class.getName(), className);
 	}
+	
+	@Test
+	public void testPartialClassNameIndex() {
+		assertEquals(4, StringUtil.getPartialClassNameIndex("com.Foo", 1));
+		assertEquals(0, StringUtil.getPartialClassNameIndex("Foo", 1));
+	}
+	
+	@Test
+	public void testAbbreviateClassName() {
+		assertEquals("c.g.c.m.Logger", StringUtil.abbreviateClassName("com.google.code.microlog4android.Logger", 20));
+		assertEquals("c.g.code.Logger", StringUtil.abbreviateClassName("com.google.code.Logger", 16));
+		assertEquals("c.g.c.VeryLongClassName", StringUtil.abbreviateClassName("com.google.code.VeryLongClassName", 10));
+	}
+	
+	@Test
+	public void testAbbreviateShortClassName() {
+		assertEquals("com.Foo", StringUtil.abbreviateClassName("com.Foo", 10));
+		assertEquals("VeryLongClassName", StringUtil.abbreviateClassName("VeryLongClassName", 10));
+	}
 }
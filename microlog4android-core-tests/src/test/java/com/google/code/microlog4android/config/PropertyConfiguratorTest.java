@@ -0,0 +1,58 @@
+package com.google.code.microlog4android.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+
+public class PropertyConfiguratorTest {
+	private static final int RESOURCE_ID = 1;
+
+	@After
+	public void teardown() {
+		DefaultLoggerRepository.INSTANCE.reset();
+	}
+
+	private void configure(String properties) {
+		Context context = mock(Context.class);
+		Resources resources = mock(Resources.class);
+		when(context.getResources()).thenReturn(resources);
+		when(resources.openRawResource(RESOURCE_ID)).thenReturn(new ByteArrayInputStream(properties.getBytes()));
+
+		PropertyConfigurator.getConfigurator(context).configure(RESOURCE_ID);
+	}
+
+	@Test
+	public void testSubtreeWildcard() {
+		Logger child = DefaultLoggerRepository.INSTANCE.getLogger("com.example.sub.Child");
+		child.setLevel(Level.TRACE);
+
+		configure("microlog.rootLogger=INFO\n" + "microlog.logger.com.example.*=WARN\n"
+				+ "microlog.logger.com.example.sub.Kept=DEBUG\n");
+
+		Logger parent = DefaultLoggerRepository.INSTANCE.getLogger("com.example");
+		assertEquals(Level.WARN, parent.getLevel());
+		assertEquals(null, child.getLevel());
+		assertFalse(child.isInfoEnabled());
+		assertTrue(child.isEnabledFor(Level.WARN));
+
+		// A level set for a logger in the subtree is kept
+		assertTrue(DefaultLoggerRepository.INSTANCE.getLogger("com.example.sub.Kept").isDebugEnabled());
+
+		// No logger is created with the wildcard in its name
+		assertFalse(DefaultLoggerRepository.INSTANCE.contains("com.example.*"));
+	}
+}
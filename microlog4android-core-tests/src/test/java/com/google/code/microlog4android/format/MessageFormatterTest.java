@@ -0,0 +1,65 @@
+package com.google.code.microlog4android.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class MessageFormatterTest {
+
+	@Test
+	public void testFormatOneArgument() {
+		assertEquals("Read 42 bytes", MessageFormatter.format("Read {} bytes", 42));
+	}
+
+	@Test
+	public void testFormatTwoArguments() {
+		assertEquals("Read 42 bytes from file", MessageFormatter.format("Read {} bytes from {}", 42, "file"));
+	}
+
+	@Test
+	public void testArrayFormat() {
+		assertEquals("a, b, c", MessageFormatter.arrayFormat("{}, {}, {}", new Object[] { "a", "b", "c" }));
+	}
+
+	@Test
+	public void testMissingArgumentKeepsPlaceholder() {
+		assertEquals("a and {}", MessageFormatter.format("{} and {}", "a"));
+	}
+
+	@Test
+	public void testEscapedPlaceholder() {
+		assertEquals("{} is a", MessageFormatter.format("\\{} is {}", "a"));
+	}
+
+	@Test
+	public void testNullArgument() {
+		assertEquals("value=null", MessageFormatter.format("value={}", null));
+	}
+
+	@Test
+	public void testArrayArgument() {
+		assertEquals("values=[1, 2]", MessageFormatter.format("values={}", (Object) new Object[] { 1, 2 }));
+	}
+
+	@Test
+	public void testNestedFormatting() {
+		Object argument = new Object() {
+			public String toString() {
+				return MessageFormatter.format("inner {}", "value");
+			}
+		};
+
+		assertEquals("outer inner value", MessageFormatter.format("outer {}", argument));
+	}
+
+	@Test
+	public void testThrowableCandidate() {
+		Exception e = new Exception();
+
+		assertSame(e, MessageFormatter.getThrowableCandidate("failed {}", e, 2));
+		assertNull(MessageFormatter.getThrowableCandidate("failed {}", e, 1));
+		assertNull(MessageFormatter.getThrowableCandidate("failed {}", "a", 2));
+	}
+}
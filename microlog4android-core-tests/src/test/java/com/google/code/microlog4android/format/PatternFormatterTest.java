@@ -0,0 +1,143 @@
+package com.google.code.microlog4android.format;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+public class PatternFormatterTest {
+
+	private static LogEvent createEvent(Object message, Throwable throwable) {
+		LogEvent event = new LogEvent();
+		event.set("client", "com.example.Foo", 0, 42, Level.INFO, message, throwable, "worker");
+		return event;
+	}
+
+	@Test
+	public void testDefaultPattern() {
+		PatternFormatter formatter = new PatternFormatter();
+		StringBuilder buffer = new StringBuilder();
+
+		formatter.format(createEvent("Hello", null), buffer);
+
+		assertEquals("42 Foo [INFO] Hello ", buffer.toString());
+	}
+
+	@Test
+	public void testAppendsToExistingContent() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m");
+		StringBuilder buffer = new StringBuilder("prefix:");
+
+		formatter.format(createEvent(Integer.valueOf(7), null), buffer);
+
+		assertEquals("prefix:7", buffer.toString());
+	}
+
+	@Test
+	public void testAllConversions() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%i|%c|%c{2}|%P|%r|%t|%m|100%%");
+		StringBuilder buffer = new StringBuilder();
+
+		formatter.format(createEvent("Hello", null), buffer);
+
+		assertEquals("client|Foo|example.Foo|INFO|42|worker|Hello|100%", buffer.toString());
+	}
+
+	@Test
+	public void testThrowableIsAppended() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m %T");
+		StringBuilder buffer = new StringBuilder();
+
+		formatter.format(createEvent("Failed", new IllegalStateException("Broken")), buffer);
+
+		assertEquals(true, buffer.toString().startsWith("Failed java.lang.IllegalStateException: Broken"));
+	}
+
+	@Test
+	public void testNullMessageIsEmpty() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("[%m]");
+		StringBuilder buffer = new StringBuilder();
+
+		formatter.format(createEvent(null, null), buffer);
+
+		assertEquals("[]", buffer.toString());
+	}
+
+	@Test
+	public void testLegacyFormatMatchesEventFormat() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%i %c %P %r [%t] %m");
+		StringBuilder buffer = new StringBuilder();
+		LogEvent event = new LogEvent();
+		event.set("client", "com.example.Foo", 0, 42, Level.WARN, "Hello", null, Thread.currentThread().getName());
+
+		formatter.format(event, buffer);
+
+		assertEquals(buffer.toString(), formatter.format("client", "com.example.Foo", 42, Level.WARN, "Hello", null));
+	}
+
+	@Test
+	public void testUserDatePattern() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSS} %m");
+		StringBuilder buffer = new StringBuilder();
+		LogEvent event = createEvent("Hello", null);
+		event.set("client", "com.example.Foo", 1300000000005L, 42, Level.INFO, "Hello", null, "worker");
+
+		formatter.format(event, buffer);
+
+		assertEquals(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(new Date(1300000000005L)) + " Hello",
+				buffer.toString());
+	}
+
+	@Test
+	public void testCategoryAbbreviatedToLength() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%c{~20}|%c{1}");
+		StringBuilder buffer = new StringBuilder();
+		LogEvent event = new LogEvent();
+
+		event.set(null, "com.google.code.microlog4android.Logger", 0, 0, Level.INFO, null, null, null);
+		formatter.format(event, buffer);
+		buffer.append(' ');
+		event.set(null, "com.example.Foo", 0, 0, Level.INFO, null, null, null);
+		formatter.format(event, buffer);
+
+		assertEquals("c.g.c.m.Logger|Logger com.example.Foo|Foo", buffer.toString());
+	}
+
+	@Test
+	public void testCategoryPartsAboveTen() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%c{10}|%c{20}");
+		StringBuilder buffer = new StringBuilder();
+		LogEvent event = new LogEvent();
+
+		event.set(null, "com.google.code.microlog4android.Logger", 0, 0, Level.INFO, null, null, null);
+		formatter.format(event, buffer);
+
+		assertEquals("com.google.code.microlog4android.Logger|com.google.code.microlog4android.Logger",
+				buffer.toString());
+	}
+
+	@Test
+	public void testThrowableLineLimit() {
+		PatternFormatter formatter = new PatternFormatter();
+		formatter.setPattern("%m %T{1}");
+		StringBuilder buffer = new StringBuilder();
+
+		formatter.format(createEvent("Failed", new IllegalStateException("Broken")), buffer);
+
+		assertEquals("Failed java.lang.IllegalStateException: Broken" + System.getProperty("line.separator"), buffer
+				.toString());
+	}
+}
@@ -0,0 +1,72 @@
+package com.google.code.microlog4android.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ReusableBuilderTest {
+	private final ReusableBuilder reusableBuilder = new ReusableBuilder(16, 64);
+
+	@Test
+	public void testBuilderIsReused() {
+		StringBuilder builder = reusableBuilder.obtain();
+		builder.append("text");
+		reusableBuilder.release(builder);
+
+		StringBuilder reused = reusableBuilder.obtain();
+		assertSame(builder, reused);
+		assertEquals(0, reused.length());
+		reusableBuilder.release(reused);
+	}
+
+	@Test
+	public void testNestedObtainGetsNewBuilder() {
+		StringBuilder builder = reusableBuilder.obtain();
+		builder.append("outer");
+
+		StringBuilder nested = reusableBuilder.obtain();
+		assertNotSame(builder, nested);
+		nested.append("inner");
+		reusableBuilder.release(nested);
+
+		assertEquals("outer", builder.toString());
+		reusableBuilder.release(builder);
+		assertSame(builder, reusableBuilder.obtain());
+	}
+
+	@Test
+	public void testLargeBuilderIsNotKept() {
+		StringBuilder builder = reusableBuilder.obtain();
+		for (int i = 0; i < 100; i++) {
+			builder.append('x');
+		}
+		reusableBuilder.release(builder);
+
+		assertNotSame(builder, reusableBuilder.obtain());
+	}
+
+	@Test
+	public void testBuildersArePerThread() throws InterruptedException {
+		final StringBuilder builder = reusableBuilder.obtain();
+		final StringBuilder[] otherBuilder = new StringBuilder[1];
+
+		Thread thread = new Thread() {
+			public void run() {
+				otherBuilder[0] = reusableBuilder.obtain();
+				reusableBuilder.release(otherBuilder[0]);
+			}
+		};
+		thread.start();
+		thread.join();
+
+		assertNotSame(builder, otherBuilder[0]);
+		reusableBuilder.release(builder);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInitialSizeLargerThanMaxSize() {
+		new ReusableBuilder(128, 64);
+	}
+}
@@ -0,0 +1,85 @@
+package com.google.code.microlog4android.format;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+public class SimpleFormatterTest {
+
+	@Test
+	public void testFormat() {
+		SimpleFormatter formatter = new SimpleFormatter();
+
+		assertEquals("client 42:[INFO]-Hello", formatter.format("client", "name", 42, Level.INFO, "Hello", null));
+		assertEquals("7:[WARN]-Hello-java.lang.IllegalStateException: Broken", formatter.format(null, "name", 7,
+				Level.WARN, "Hello", new IllegalStateException("Broken")));
+	}
+
+	@Test
+	public void testFormatEventIsSameAsFormat() {
+		SimpleFormatter formatter = new SimpleFormatter();
+		LogEvent event = new LogEvent();
+		event.set("client", "name", 0, 42, Level.ERROR, Integer.valueOf(5), null, "main");
+		StringBuilder buffer = new StringBuilder();
+
+		formatter.format(event, buffer);
+
+		assertEquals(formatter.format("client", "name", 42, Level.ERROR, Integer.valueOf(5), null), buffer.toString());
+	}
+
+	@Test
+	public void testMessageThatFormatsInToString() {
+		final SimpleFormatter formatter = new SimpleFormatter();
+		Object message = new Object() {
+			public String toString() {
+				return formatter.format(null, "name", 1, Level.DEBUG, "inner", null);
+			}
+		};
+
+		assertEquals("2:[INFO]-1:[DEBUG]-inner", formatter.format(null, "name", 2, Level.INFO, message, null));
+	}
+
+	@Test
+	public void testConcurrentFormatting() throws InterruptedException {
+		final SimpleFormatter formatter = new SimpleFormatter();
+		final int threadCount = 8;
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		Thread[] threads = new Thread[threadCount];
+
+		for (int i = 0; i < threadCount; i++) {
+			final String message = "Message from thread " + i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						startLatch.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					for (int j = 0; j < 20000; j++) {
+						String formatted = formatter.format(null, "name", j, Level.INFO, message, null);
+						String expected = j + ":[INFO]-" + message;
+						if (!expected.equals(formatted)) {
+							failure.compareAndSet(null, expected + " != " + formatted);
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		startLatch.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(null, failure.get());
+	}
+}
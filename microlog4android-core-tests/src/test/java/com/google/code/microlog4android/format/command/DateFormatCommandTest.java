@@ -0,0 +1,125 @@
+package com.google.code.microlog4android.format.command;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class DateFormatCommandTest {
+	private static final long TIMESTAMP = 1300000000005L;
+
+	private static String expected(String pattern, long timestamp) {
+		return new SimpleDateFormat(pattern).format(new Date(timestamp));
+	}
+
+	@Test
+	public void testAbsoluteFormatPadsMillisecondsToThreeDigits() {
+		DateFormatCommand command = new DateFormatCommand();
+
+		assertEquals(expected("HH:mm:ss,SSS", TIMESTAMP), command.format(TIMESTAMP));
+		assertEquals(expected("HH:mm:ss,SSS", TIMESTAMP + 45), command.format(TIMESTAMP + 45));
+		assertEquals(expected("HH:mm:ss,SSS", TIMESTAMP + 990), command.format(TIMESTAMP + 990));
+	}
+
+	@Test
+	public void testDateFormat() {
+		DateFormatCommand command = new DateFormatCommand();
+		command.init(DateFormatCommand.DATE_FORMAT_STRING);
+
+		String expected = expected("dd ", TIMESTAMP) + DateFormatCommand.MONTH_ARRAY[2]
+				+ expected(" yyyy HH:mm:ss,SSS", TIMESTAMP);
+		assertEquals(expected, command.format(TIMESTAMP));
+	}
+
+	@Test
+	public void testIso8601Format() {
+		DateFormatCommand command = new DateFormatCommand();
+		command.init(DateFormatCommand.ISO_8601_FORMAT_STRING);
+
+		assertEquals(expected("yyyy-MM-dd HH:mm:ss,SSS", TIMESTAMP), command.format(TIMESTAMP));
+	}
+
+	@Test
+	public void testNextSecondIsFormatted() {
+		DateFormatCommand command = new DateFormatCommand();
+		command.init(DateFormatCommand.ISO_8601_FORMAT_STRING);
+
+		command.format(TIMESTAMP);
+
+		assertEquals(expected("yyyy-MM-dd HH:mm:ss,SSS", TIMESTAMP + 1000), command.format(TIMESTAMP + 1000));
+		assertEquals(expected("yyyy-MM-dd HH:mm:ss,SSS", TIMESTAMP), command.format(TIMESTAMP));
+	}
+
+	@Test
+	public void testTimestampBefore1970() {
+		DateFormatCommand command = new DateFormatCommand();
+
+		assertEquals(expected("HH:mm:ss,SSS", -1), command.format(-1));
+	}
+
+	@Test
+	public void testConcurrentFormatting() throws InterruptedException {
+		final DateFormatCommand command = new DateFormatCommand();
+		command.init(DateFormatCommand.ISO_8601_FORMAT_STRING);
+		final int threadCount = 4;
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for (int i = 0; i < threadCount; i++) {
+			final long offset = i * 1000L;
+			Thread thread = new Thread() {
+				public void run() {
+					StringBuilder buffer = new StringBuilder();
+					try {
+						startLatch.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					for (int j = 0; j < 2000; j++) {
+						long timestamp = TIMESTAMP + offset + j % 7 * 3600000L + j % 1000;
+						buffer.setLength(0);
+						command.append(timestamp, buffer);
+						String expected = expected("yyyy-MM-dd HH:mm:ss,SSS", timestamp);
+						if (!expected.equals(buffer.toString())) {
+							failure.compareAndSet(null, expected + " != " + buffer);
+						}
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+
+		startLatch.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(null, failure.get());
+	}
+
+	@Test
+	public void testUserPattern() {
+		DateFormatCommand command = new DateFormatCommand();
+		command.init("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+		assertEquals(expected("yyyy-MM-dd'T'HH:mm:ss.SSSZ", TIMESTAMP), command.format(TIMESTAMP));
+	}
+
+	@Test
+	public void testInvalidUserPatternKeepsFormat() {
+		DateFormatCommand command = new DateFormatCommand();
+		command.init(DateFormatCommand.ISO_8601_FORMAT_STRING);
+		command.init("yyyy-MM-dd Q");
+
+		assertEquals(expected("yyyy-MM-dd HH:mm:ss,SSS", TIMESTAMP), command.format(TIMESTAMP));
+	}
+}
@@ -1,14 +1,26 @@
 package com.google.code.microlog4android.repository;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.appender.Appender;
 import com.google.code.microlog4android.repository.DefaultLoggerRepository;
 
 public class DefaultLoggerRepositoryTest {
@@ -61,4 +73,269 @@ public class DefaultLoggerRepositoryTest {
 		
 		assertEquals(defaultLoggerRepository.getEffectiveLevel(logger.getName()), Level.INFO);
 	}
+
+	@Test
+	public void testInheritedAppenders() {
+		Appender rootAppender = mock(Appender.class);
+		Appender parentAppender = mock(Appender.class);
+		defaultLoggerRepository.getRootLogger().addAppender(rootAppender);
+		defaultLoggerRepository.getLogger("com.example").addAppender(parentAppender);
+
+		Logger logger = defaultLoggerRepository.getLogger("com.example.Child");
+		logger.info("test");
+
+		verify(rootAppender).append(any(LogEvent.class));
+		verify(parentAppender).append(any(LogEvent.class));
+	}
+
+	@Test
+	public void testNonAdditiveLoggerStopsInheritance() {
+		Appender rootAppender = mock(Appender.class);
+		Appender parentAppender = mock(Appender.class);
+		defaultLoggerRepository.getRootLogger().addAppender(rootAppender);
+		Logger parentLogger = defaultLoggerRepository.getLogger("com.example");
+		parentLogger.addAppender(parentAppender);
+		parentLogger.setAdditivity(false);
+
+		defaultLoggerRepository.getLogger("com.example.Child").info("test");
+
+		verify(parentAppender).append(any(LogEvent.class));
+		verifyZeroInteractions(rootAppender);
+	}
+
+	@Test
+	public void testCloseClosesInheritedAppenders() throws IOException {
+		Appender rootAppender = mock(Appender.class);
+		Appender otherAppender = mock(Appender.class);
+		defaultLoggerRepository.getRootLogger().addAppender(rootAppender);
+		defaultLoggerRepository.getLogger("com.other").addAppender(otherAppender);
+
+		defaultLoggerRepository.getLogger("com.example.Child").close();
+
+		verify(rootAppender).close();
+		verify(otherAppender, times(0)).close();
+	}
+
+	@Test
+	public void testAppenderAddedAfterFirstLogEvent() {
+		Appender rootAppender = mock(Appender.class);
+		Appender parentAppender = mock(Appender.class);
+		defaultLoggerRepository.getRootLogger().addAppender(rootAppender);
+		Logger logger = defaultLoggerRepository.getLogger("com.example.Child");
+		logger.info("first");
+
+		defaultLoggerRepository.getLogger("com.example").addAppender(parentAppender);
+		logger.info("second");
+
+		verify(rootAppender, times(2)).append(any(LogEvent.class));
+		verify(parentAppender).append(any(LogEvent.class));
+	}
+
+	@Test
+	public void testAppenderAttachedTwiceLogsOnce() {
+		Appender appender = mock(Appender.class);
+		defaultLoggerRepository.getRootLogger().addAppender(appender);
+		Logger logger = defaultLoggerRepository.getLogger("com.example.Child");
+		logger.addAppender(appender);
+
+		logger.info("test");
+
+		verify(appender).append(any(LogEvent.class));
+	}
+
+	@Test
+	public void testCachedLevelFollowsParentLevel() {
+		Logger parentLogger = defaultLoggerRepository.getLogger("com.example");
+		Logger logger = defaultLoggerRepository.getLogger("com.example.Child");
+		assertTrue(logger.isDebugEnabled());
+
+		parentLogger.setLevel(Level.WARN);
+		assertFalse(logger.isInfoEnabled());
+		assertEquals(Level.WARN, logger.getEffectiveLevel());
+
+		defaultLoggerRepository.resetConfig();
+		assertTrue(logger.isDebugEnabled());
+	}
+
+	@Test
+	public void testLoggerHeldAcrossResetFollowsNewLevels() {
+		Logger logger = defaultLoggerRepository.getLogger("a.b");
+		defaultLoggerRepository.setLevel("a", Level.ERROR);
+		assertFalse(logger.isDebugEnabled());
+
+		defaultLoggerRepository.reset();
+		defaultLoggerRepository.setLevel("a", Level.DEBUG);
+
+		assertTrue(logger.isDebugEnabled());
+		assertEquals(Level.DEBUG, logger.getEffectiveLevel());
+
+		defaultLoggerRepository.setLevel("a", Level.WARN);
+
+		assertFalse(logger.isInfoEnabled());
+		assertEquals(Level.WARN, logger.getEffectiveLevel());
+	}
+
+	@Test
+	public void testConcurrentGetLoggerReturnsOneInstance() throws InterruptedException {
+		final int threadCount = 8;
+		final int nameCount = 200;
+		final Logger[][] loggers = new Logger[threadCount][nameCount];
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[threadCount];
+
+		for (int i = 0; i < threadCount; i++) {
+			final int threadIndex = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					for (int j = 0; j < nameCount; j++) {
+						loggers[threadIndex][j] = defaultLoggerRepository.getLogger("com.example.package" + (j % 7)
+								+ ".Class" + j);
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		for (int j = 0; j < nameCount; j++) {
+			Logger logger = defaultLoggerRepository.getLogger("com.example.package" + (j % 7) + ".Class" + j);
+
+			for (int i = 0; i < threadCount; i++) {
+				assertSame(logger, loggers[i][j]);
+			}
+		}
+		assertEquals(nameCount, defaultLoggerRepository.numberOfLeafNodes());
+	}
+
+	@Test
+	public void testIntermediateNodesHaveFullPath() {
+		Logger logger = defaultLoggerRepository.getLogger("com.example.sub.Child");
+		assertEquals("com.example.sub.Child", logger.getName());
+
+		// The intermediate nodes were created on the way.
+		Logger parentLogger = defaultLoggerRepository.getLogger("com.example.sub");
+		assertEquals("com.example.sub", parentLogger.getName());
+		assertEquals(3, defaultLoggerRepository.numberOfLeafNodes() + 1);
+	}
+
+	@Test
+	public void testManyChildrenOfOneNode() {
+		Logger[] loggers = new Logger[500];
+
+		for (int i = 0; i < loggers.length; i++) {
+			loggers[i] = defaultLoggerRepository.getLogger("com.example.Class" + i, false);
+		}
+
+		for (int i = 0; i < loggers.length; i++) {
+			assertSame(loggers[i], defaultLoggerRepository.getLogger("com.example.Class" + i, false));
+			assertEquals("com.example.Class" + i, loggers[i].getName());
+		}
+	}
+
+	@Test
+	public void testTrailingSeparatorIsIgnored() {
+		Logger logger = defaultLoggerRepository.getLogger("com.example");
+
+		assertSame(logger, defaultLoggerRepository.getLogger("com.example.", false));
+	}
+
+	@Test
+	public void testLevelIsPushedDownToDescendants() {
+		Logger child = defaultLoggerRepository.getLogger("com.example.sub.Child");
+		Logger sibling = defaultLoggerRepository.getLogger("com.example.Sibling");
+		sibling.setLevel(Level.DEBUG);
+		assertTrue(child.isDebugEnabled());
+
+		defaultLoggerRepository.setLevel("com.example", Level.ERROR);
+
+		assertFalse(child.isEnabledFor(Level.WARN));
+		assertTrue(child.isEnabledFor(Level.ERROR));
+		// A logger with its own level keeps it.
+		assertTrue(sibling.isDebugEnabled());
+
+		defaultLoggerRepository.setLevel("com.example.sub", Level.INFO);
+		assertTrue(child.isInfoEnabled());
+		assertFalse(child.isDebugEnabled());
+	}
+
+	@Test
+	public void testSubtreeLevel() {
+		Logger parent = defaultLoggerRepository.getLogger("com.example");
+		Logger child = defaultLoggerRepository.getLogger("com.example.sub.Child");
+		Logger other = defaultLoggerRepository.getLogger("org.example.Other");
+		child.setLevel(Level.DEBUG);
+
+		defaultLoggerRepository.setLevel("com.example.*", Level.WARN);
+
+		assertEquals(Level.WARN, parent.getLevel());
+		assertEquals(null, child.getLevel());
+		assertFalse(child.isInfoEnabled());
+		assertTrue(child.isEnabledFor(Level.WARN));
+		assertTrue(other.isDebugEnabled());
+
+		// The descendants follow later changes of the subtree root.
+		parent.setLevel(Level.TRACE);
+		assertTrue(child.isTraceEnabled());
+	}
+
+	@Test
+	public void testLevelGenerationIsEvenWhenIdle() {
+		int generation = defaultLoggerRepository.getLevelGeneration();
+		defaultLoggerRepository.setLevel("com.example", Level.WARN);
+
+		assertEquals(0, defaultLoggerRepository.getLevelGeneration() % 2);
+		assertEquals(generation + 2, defaultLoggerRepository.getLevelGeneration());
+	}
+
+	@Test
+	public void testResolvedLevelsFollowConcurrentSubtreeChanges() throws InterruptedException {
+		final int loggersPerThread = 2000;
+		final Thread[] resolvers = new Thread[4];
+		final Logger[][] loggers = new Logger[resolvers.length][loggersPerThread];
+
+		for (int i = 0; i < resolvers.length; i++) {
+			final int thread = i;
+			resolvers[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < loggersPerThread; j++) {
+						Logger logger = defaultLoggerRepository.getLogger("com.example.t" + thread + ".Logger" + j);
+						logger.isDebugEnabled();
+						loggers[thread][j] = logger;
+					}
+				}
+			};
+			resolvers[i].start();
+		}
+
+		Level level = Level.DEBUG;
+		for (int i = 0; i < 500; i++) {
+			level = i % 2 == 0 ? Level.WARN : Level.DEBUG;
+			defaultLoggerRepository.setSubtreeLevel("com.example", level);
+		}
+
+		for (int i = 0; i < resolvers.length; i++) {
+			resolvers[i].join();
+		}
+
+		for (int i = 0; i < resolvers.length; i++) {
+			for (int j = 0; j < loggersPerThread; j++) {
+				assertEquals(level == Level.DEBUG, loggers[i][j].isDebugEnabled());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSubtreeLevelNull() {
+		defaultLoggerRepository.setSubtreeLevel("com.example", null);
+	}
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import android.util.Log;
+
+/**
+ * A <code>Clock</code> that returns a cached time, which is updated by a
+ * ticker thread every <code>resolution</code> milliseconds. Reading the time
+ * is then only a volatile read, which pays off at very high event rates. The
+ * timestamps are of course no more accurate than the resolution.
+ *
+ * The ticker thread is a daemon thread that is started with
+ * <code>start()</code>. The time is read from the underlying clock while the
+ * ticker is not running.
+ */
+public final class CachedClock implements Clock {
+	private static final String TAG = "Microlog.CachedClock";
+
+	public static final long DEFAULT_RESOLUTION = 10;
+
+	private final Clock clock;
+
+	private final long resolution;
+
+	private volatile long cachedTime;
+
+	private volatile Thread ticker;
+
+	/**
+	 * Create a clock with a resolution of 10 milliseconds that caches the time
+	 * of a <code>MonotonicClock</code>.
+	 */
+	public CachedClock() {
+		this(new MonotonicClock(), DEFAULT_RESOLUTION);
+	}
+
+	/**
+	 * Create a clock that caches the time of the specified clock.
+	 *
+	 * @param clock
+	 *            the clock to read the time from.
+	 * @param resolution
+	 *            the time in milliseconds between the updates of the cached
+	 *            time.
+	 * @throws IllegalArgumentException
+	 *             if the <code>clock</code> is <code>null</code> or the
+	 *             <code>resolution</code> is not positive.
+	 */
+	public CachedClock(Clock clock, long resolution) throws IllegalArgumentException {
+		if (clock == null) {
+			throw new IllegalArgumentException("The clock must not be null.");
+		}
+
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("The resolution must be positive.");
+		}
+
+		this.clock = clock;
+		this.resolution = resolution;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.Clock#currentTimeMillis()
+	 */
+	public long currentTimeMillis() {
+		if (ticker == null) {
+			return clock.currentTimeMillis();
+		}
+
+		return cachedTime;
+	}
+
+	/**
+	 * Start the ticker thread, unless it is already running.
+	 */
+	public synchronized void start() {
+		if (ticker != null) {
+			return;
+		}
+
+		cachedTime = clock.currentTimeMillis();
+
+		Thread thread = new Thread("Microlog-CachedClock") {
+			public void run() {
+				tick(this);
+			}
+		};
+		thread.setDaemon(true);
+		ticker = thread;
+		thread.start();
+	}
+
+	/**
+	 * Stop the ticker thread. The time is read from the underlying clock from
+	 * now on.
+	 */
+	public synchronized void stop() {
+		Thread thread = ticker;
+
+		if (thread != null) {
+			ticker = null;
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the ticker thread is running.
+	 */
+	public boolean isStarted() {
+		return ticker != null;
+	}
+
+	/**
+	 * @return the time in milliseconds between the updates.
+	 */
+	public long getResolution() {
+		return resolution;
+	}
+
+	private void tick(Thread thread) {
+		try {
+			while (ticker == thread) {
+				cachedTime = clock.currentTimeMillis();
+				Thread.sleep(resolution);
+			}
+		} catch (InterruptedException e) {
+			// Stopped.
+		} catch (RuntimeException e) {
+			Log.e(TAG, "The clock failed, the ticker is stopped. " + e);
+			synchronized (this) {
+				if (ticker == thread) {
+					ticker = null;
+				}
+			}
+		}
+	}
+}
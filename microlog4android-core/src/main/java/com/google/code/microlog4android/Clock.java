@@ -0,0 +1,35 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+/**
+ * The source of the event timestamps. The <code>Logger</code> reads the clock
+ * once for every event, and the time is then carried by the
+ * <code>LogEvent</code> to the appenders and the formatters.
+ *
+ * A <code>Clock</code> is called by all the logging threads and must be
+ * thread safe. It should not take any locks.
+ *
+ * @see Logger#setClock(Clock)
+ */
+public interface Clock {
+
+	/**
+	 * Get the current time.
+	 *
+	 * @return the time in milliseconds since midnight, January 1, 1970 UTC.
+	 */
+	long currentTimeMillis();
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+/**
+ * The data of one logging event, passed from the <code>Logger</code> to the
+ * appenders and the formatters.
+ *
+ * A <code>LogEvent</code> is mutable and is reused for many events. The
+ * <code>Logger</code> takes the events from a per thread pool and recycles
+ * them as soon as the appenders have returned. An appender that needs the
+ * event after <code>append</code> has returned, e.g. to log it on another
+ * thread, must therefore copy it with <code>copyFrom</code>.
+ */
+public final class LogEvent {
+
+	private static final ThreadLocal<LogEvent> pooledEvent = new ThreadLocal<LogEvent>() {
+		protected LogEvent initialValue() {
+			return new LogEvent();
+		}
+	};
+
+	private String clientID;
+
+	private String loggerName;
+
+	private long timestamp;
+
+	private long time;
+
+	private Level level;
+
+	private Object message;
+
+	private Throwable throwable;
+
+	private String threadName;
+
+	private boolean inUse;
+
+	/**
+	 * Create an empty <code>LogEvent</code>. Use <code>obtain()</code> to get
+	 * a pooled event.
+	 */
+	public LogEvent() {
+	}
+
+	/**
+	 * Get an unused event for the calling thread. The event is pooled if the
+	 * thread is not already logging, i.e. unless an appender or the
+	 * <code>toString()</code> of a message logs in turn.
+	 *
+	 * @return an empty event that shall be given back with
+	 *         <code>recycle()</code>.
+	 */
+	public static LogEvent obtain() {
+		LogEvent event = pooledEvent.get();
+
+		if (event.inUse) {
+			event = new LogEvent();
+		}
+
+		event.inUse = true;
+		return event;
+	}
+
+	/**
+	 * Give the event back to the pool. The event must not be used after this.
+	 */
+	public void recycle() {
+		clear();
+		inUse = false;
+	}
+
+	/**
+	 * Set all the data of the event. The timestamp is read from the clock of
+	 * the <code>Logger</code>.
+	 *
+	 * @param clientID
+	 *            the id of the client.
+	 * @param loggerName
+	 *            the name of the logger.
+	 * @param time
+	 *            the time since the first logging has done (in milliseconds).
+	 * @param level
+	 *            the logging level.
+	 * @param message
+	 *            the message to log.
+	 * @param throwable
+	 *            the exception to log.
+	 * @param threadName
+	 *            the name of the thread that logged the event.
+	 */
+	public void set(String clientID, String loggerName, long time, Level level, Object message,
+			Throwable throwable, String threadName) {
+		set(clientID, loggerName, Logger.getClock().currentTimeMillis(), time, level, message, throwable,
+				threadName);
+	}
+
+	/**
+	 * Set all the data of the event.
+	 *
+	 * @param clientID
+	 *            the id of the client.
+	 * @param loggerName
+	 *            the name of the logger.
+	 * @param timestamp
+	 *            the time of the event (in milliseconds since January 1, 1970
+	 *            UTC).
+	 * @param time
+	 *            the time since the first logging has done (in milliseconds).
+	 * @param level
+	 *            the logging level.
+	 * @param message
+	 *            the message to log.
+	 * @param throwable
+	 *            the exception to log.
+	 * @param threadName
+	 *            the name of the thread that logged the event.
+	 */
+	public void set(String clientID, String loggerName, long timestamp, long time, Level level,
+			Object message, Throwable throwable, String threadName) {
+		this.clientID = clientID;
+		this.loggerName = loggerName;
+		this.timestamp = timestamp;
+		this.time = time;
+		this.level = level;
+		this.message = message;
+		this.throwable = throwable;
+		this.threadName = threadName;
+	}
+
+	/**
+	 * Copy the data of the specified event into this event.
+	 *
+	 * @param event
+	 *            the event to copy.
+	 */
+	public void copyFrom(LogEvent event) {
+		set(event.clientID, event.loggerName, event.timestamp, event.time, event.level, event.message,
+				event.throwable, event.threadName);
+	}
+
+	/**
+	 * Clear the references held by the event.
+	 */
+	public void clear() {
+		set(null, null, 0, 0, null, null, null, null);
+	}
+
+	/**
+	 * @return the id of the client.
+	 */
+	public String getClientID() {
+		return clientID;
+	}
+
+	/**
+	 * @return the name of the logger.
+	 */
+	public String getLoggerName() {
+		return loggerName;
+	}
+
+	/**
+	 * @return the time of the event (in milliseconds since January 1, 1970
+	 *         UTC).
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the time since the first logging has done (in milliseconds).
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the logging level.
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * @return the logged message.
+	 */
+	public Object getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the logged <code>Throwable</code> or <code>null</code>.
+	 */
+	public Throwable getThrowable() {
+		return throwable;
+	}
+
+	/**
+	 * @return the name of the thread that logged the event.
+	 */
+	public String getThreadName() {
+		return threadName;
+	}
+}
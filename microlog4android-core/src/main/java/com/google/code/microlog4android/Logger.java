@@ -22,6 +22,7 @@ import android.util.Log;
 
 import com.google.code.microlog4android.appender.Appender;
 import com.google.code.microlog4android.factory.DefaultAppenderFactory;
+import com.google.code.microlog4android.format.MessageFormatter;
 import com.google.code.microlog4android.repository.CommonLoggerRepository;
 
 
@@ -53,15 +54,61 @@ public final class Logger {
 
 	private String name;
 
-	private Level level;
+	private volatile Level level;
+
+	/**
+	 * The effective level as an <code>int</code>. The repository pushes the
+	 * effective level down to the descendants whenever a level is changed, so
+	 * this is always ready to use once it has been resolved.
+	 */
+	private volatile int levelThreshold = UNRESOLVED_LEVEL_THRESHOLD;
+
+	private static final int UNRESOLVED_LEVEL_THRESHOLD = Integer.MIN_VALUE;
+
+	/**
+	 * Set once the repository has removed this logger from its tree. No level
+	 * is pushed down to a detached logger, so it resolves its level on every
+	 * check instead of keeping it.
+	 */
+	private volatile boolean detached;
 	
 	private Object wrapper;
 
 	private static final StopWatch stopWatch = new StopWatch();
 
-	private final static List<Appender> appenderList = new ArrayList<Appender>(4);
+	/**
+	 * The clock that is read once for every event.
+	 */
+	private static volatile Clock clock = new MonotonicClock();
+
+	private static final Appender[] NO_APPENDERS = new Appender[0];
+
+	/**
+	 * Guards the modifications of the appender array.
+	 */
+	private final Object appenderLock = new Object();
+
+	/**
+	 * The appenders attached to this logger. The array is never modified,
+	 * instead a new array is published for every change. This makes it
+	 * possible to log without taking any lock.
+	 */
+	private volatile Appender[] appenders = NO_APPENDERS;
 
-	private static boolean firstLogEvent = true;
+	private volatile boolean additive = true;
+
+	/**
+	 * The appenders of this logger followed by the inherited appenders. Built
+	 * when needed and thrown away whenever the configuration changes.
+	 */
+	private volatile DispatchTable dispatchTable;
+
+	/**
+	 * Guards the starting of the logging and the opening of the appenders.
+	 */
+	private static final Object startLock = new Object();
+
+	private static volatile boolean firstLogEvent = true;
 
 	/**
 	 * Create a logger with the specified <code>name</code>. The
@@ -82,6 +129,7 @@ public final class Logger {
 
 	public synchronized void setCommonRepository(final CommonLoggerRepository commonLoggerRepository) {
 		this.commonLoggerRepository = commonLoggerRepository;
+		levelThreshold = UNRESOLVED_LEVEL_THRESHOLD;
 	}
 
 	/**
@@ -106,6 +154,7 @@ public final class Logger {
 			throw new IllegalArgumentException("The level must not be null.");
 		}
 		this.level = level;
+		levelChanged();
 	}
 
 	/**
@@ -128,6 +177,104 @@ public final class Logger {
 		return effectiveLevel;
 	}
 
+	/**
+	 * Get the effective level as an <code>int</code>. The level is resolved
+	 * the first time and is then kept up to date by the repository, which
+	 * means that checking a disabled level does not walk the logger tree.
+	 * 
+	 * @return the effective level threshold.
+	 */
+	private int getLevelThreshold() {
+		int threshold = levelThreshold;
+
+		if (threshold != UNRESOLVED_LEVEL_THRESHOLD) {
+			return threshold;
+		}
+
+		return resolveLevelThreshold();
+	}
+
+	/**
+	 * Resolve the effective level by walking the logger tree. The level
+	 * generation is used as a sequence lock: the walk waits while the
+	 * repository is pushing a level down the tree, which is when the
+	 * generation is odd, and is done again if a level was changed meanwhile,
+	 * since the repository might already have pushed the new level to this
+	 * logger, which must not be overwritten by an older one.
+	 */
+	private int resolveLevelThreshold() {
+		CommonLoggerRepository repository = commonLoggerRepository;
+
+		for (;;) {
+			int generation = repository == null ? 0 : repository.getLevelGeneration();
+
+			if ((generation & 1) != 0) {
+				Thread.yield();
+				continue;
+			}
+
+			int threshold = getEffectiveLevel().toInt();
+
+			if (detached) {
+				levelThreshold = UNRESOLVED_LEVEL_THRESHOLD;
+				return threshold;
+			}
+
+			levelThreshold = threshold;
+
+			if (repository == null || repository.getLevelGeneration() == generation) {
+				return threshold;
+			}
+		}
+	}
+
+	/**
+	 * Set the level that this logger inherits from its ancestors. This is
+	 * called by the repository, which pushes the effective level down the
+	 * logger tree whenever a level is changed. The level of this logger takes
+	 * precedence unless it is cleared.
+	 * 
+	 * @param inheritedLevel
+	 *            the effective level of the parent logger.
+	 * @param clearLevel
+	 *            <code>true</code> to remove the level of this logger, so that
+	 *            the inherited level is used from now on.
+	 */
+	public void inheritLevel(Level inheritedLevel, boolean clearLevel) {
+		if (clearLevel) {
+			this.level = null;
+		}
+
+		Level ownLevel = level;
+		levelThreshold = ownLevel != null ? ownLevel.toInt() : inheritedLevel.toInt();
+	}
+
+	/**
+	 * Tell the logger that it has been removed from the logger tree, e.g. by
+	 * a reset of the repository. This is called by the repository. A caller
+	 * may still hold the logger, which then looks up the effective level of
+	 * its name in the repository every time it checks a level.
+	 */
+	public void detach() {
+		detached = true;
+		levelThreshold = UNRESOLVED_LEVEL_THRESHOLD;
+	}
+
+	/**
+	 * Update the level threshold of this logger and tell the repository, so
+	 * that the new effective level is pushed down to the descendants.
+	 */
+	private void levelChanged() {
+		CommonLoggerRepository repository = commonLoggerRepository;
+
+		if (repository != null) {
+			levelThreshold = UNRESOLVED_LEVEL_THRESHOLD;
+			repository.levelChanged(this);
+		} else {
+			levelThreshold = level != null ? level.toInt() : UNRESOLVED_LEVEL_THRESHOLD;
+		}
+	}
+
 	/**
 	 * Get the client ID.
 	 * 
@@ -193,11 +340,22 @@ public final class Logger {
 			throw new IllegalArgumentException("Appender not allowed to be null");
 		}
 
-		synchronized (appenderList) {
-			if (!appenderList.contains(appender)) {
-				appenderList.add(appender);
+		synchronized (appenderLock) {
+			Appender[] currentAppenders = appenders;
+
+			for (int i = 0; i < currentAppenders.length; i++) {
+				if (currentAppenders[i].equals(appender)) {
+					return;
+				}
 			}
+
+			Appender[] newAppenders = new Appender[currentAppenders.length + 1];
+			System.arraycopy(currentAppenders, 0, newAppenders, 0, currentAppenders.length);
+			newAppenders[currentAppenders.length] = appender;
+			appenders = newAppenders;
 		}
+
+		configurationChanged();
 	}
 
 	/**
@@ -218,9 +376,21 @@ public final class Logger {
 				Log.e(TAG, "Failed to close appender. " + e);
 			}
 		}
-		synchronized (appenderList) {
-		    appenderList.remove(appender);
+		synchronized (appenderLock) {
+			Appender[] currentAppenders = appenders;
+
+			for (int i = 0; i < currentAppenders.length; i++) {
+				if (currentAppenders[i].equals(appender)) {
+					Appender[] newAppenders = new Appender[currentAppenders.length - 1];
+					System.arraycopy(currentAppenders, 0, newAppenders, 0, i);
+					System.arraycopy(currentAppenders, i + 1, newAppenders, i, newAppenders.length - i);
+					appenders = newAppenders;
+					break;
+				}
+			}
 		}
+
+		configurationChanged();
 	}
 
 	/**
@@ -228,8 +398,8 @@ public final class Logger {
 	 * 
 	 */
 	public void removeAllAppenders() {
-	    synchronized (appenderList) {
-			for (Appender appender : appenderList) {
+		synchronized (appenderLock) {
+			for (Appender appender : appenders) {
 				if (appender.isLogOpen()) {
 					try {
 						appender.close();
@@ -238,19 +408,43 @@ public final class Logger {
 					}
 				}
 			}
-			appenderList.clear();
-	    }
+			appenders = NO_APPENDERS;
+		}
+
+		configurationChanged();
 	}
 
 	/**
-	 * Get the number of appenders.
+	 * Get the additivity flag. An additive logger logs to the appenders of its
+	 * ancestors as well as to its own appenders.
+	 * 
+	 * @return <code>true</code> if the logger is additive.
+	 */
+	public boolean getAdditivity() {
+		return additive;
+	}
+
+	/**
+	 * Set the additivity flag. If set to <code>false</code> the logger only logs
+	 * to its own appenders, and its descendants do not log to the appenders of
+	 * its ancestors. The default is <code>true</code>.
+	 * 
+	 * @param additive
+	 *            the additivity flag to set.
+	 */
+	public void setAdditivity(boolean additive) {
+		this.additive = additive;
+		configurationChanged();
+	}
+
+	/**
+	 * Get the number of appenders attached to this logger. Inherited appenders
+	 * are not included.
 	 * 
 	 * @return the number of appenders.
 	 */
 	public int getNumberOfAppenders() {
-	    synchronized (appenderList) {
-	        return appenderList.size();
-	    }
+		return appenders.length;
 	}
 
 	/**
@@ -261,7 +455,7 @@ public final class Logger {
 	 * @return the appender.
 	 */
 	public Appender getAppender(int index) {
-		return appenderList.get(index);
+		return appenders[index];
 	}
 
 	/**
@@ -295,38 +489,185 @@ public final class Logger {
 			throw new IllegalArgumentException("The level must not be null.");
 		}
 
-		if (getEffectiveLevel().toInt() <= level.toInt() && level.toInt() > Level.OFF_INT) {
-			
-			if (firstLogEvent == true) {
+		if (isEnabledFor(level)) {
+			dispatch(level, message, t);
+		}
+	}
+
+	/**
+	 * Log a parameterized message at the specified level. The placeholders are
+	 * only substituted if the level is enabled. A trailing
+	 * <code>Throwable</code> argument that has no placeholder is logged as the
+	 * <code>Throwable</code> of the event.
+	 */
+	private void logFormatted(Level level, String format, Object argument1, Object argument2, Object[] arguments,
+			int argumentCount) {
+		if (isEnabledFor(level)) {
+			String message;
+			Object lastArgument;
+
+			if (arguments != null || argumentCount == 0) {
+				message = MessageFormatter.arrayFormat(format, arguments);
+				lastArgument = argumentCount > 0 ? arguments[argumentCount - 1] : null;
+			} else if (argumentCount == 1) {
+				message = MessageFormatter.format(format, argument1);
+				lastArgument = argument1;
+			} else {
+				message = MessageFormatter.format(format, argument1, argument2);
+				lastArgument = argument2;
+			}
+
+			dispatch(level, message, MessageFormatter.getThrowableCandidate(format, lastArgument, argumentCount));
+		}
+	}
+
+	/**
+	 * Is this <code>Logger</code> enabled for the specified level?
+	 * 
+	 * @param level
+	 *            the <code>Level</code> to check.
+	 * @return true if logging is enabled.
+	 */
+	public boolean isEnabledFor(Level level) {
+		int levelInt = level.toInt();
+		return getLevelThreshold() <= levelInt && levelInt > Level.OFF_INT;
+	}
+
+	private void dispatch(Level level, Object message, Throwable t) {
+		if (firstLogEvent == true) {
+			startLogging();
+		}
+
+		// The dispatch array is never modified, a configuration change
+		// makes us build a new one instead.
+		Appender[] dispatchAppenders = getDispatchAppenders();
+		LogEvent event = LogEvent.obtain();
+		long now = clock.currentTimeMillis();
+
+		try {
+			event.set(clientID, name, now, stopWatch.getCurrentTime(now), level, message, t,
+					Thread.currentThread().getName());
+
+			for (int i = 0; i < dispatchAppenders.length; i++) {
+				dispatchAppenders[i].append(event);
+			}
+		} finally {
+			event.recycle();
+		}
+	}
+
+	/**
+	 * Add the default appender if needed and start the stop watch. Only done
+	 * for the first logging event.
+	 */
+	private void startLogging() {
+		synchronized (startLock) {
+			if (firstLogEvent) {
 				addDefaultAppender();
+				stopWatch.start(clock.currentTimeMillis());
+				firstLogEvent = false;
+			}
+		}
+	}
+	
+	private void addDefaultAppender() {
+		if (getDispatchAppenders().length == 0) {
+			Logger rootLogger = commonLoggerRepository == null ? this : commonLoggerRepository.getRootLogger();
+
+			Log.w(TAG, "Warning! No appender is set, using LogCatAppender with PatternFormatter");
+			Appender appender = DefaultAppenderFactory.createDefaultAppender();
+			rootLogger.addAppender(appender);
+		}
+	}
+
+	/**
+	 * Get the appenders to log to, i.e. the appenders of this logger followed
+	 * by the inherited appenders if the logger is additive. The array is built
+	 * once and then reused until the configuration changes.
+	 * 
+	 * @return the appenders to log to.
+	 */
+	private Appender[] getDispatchAppenders() {
+		DispatchTable table = dispatchTable;
+		CommonLoggerRepository repository = commonLoggerRepository;
+
+		if (table != null && (repository == null || table.generation == repository.getConfigurationGeneration())) {
+			return table.appenders;
+		}
+
+		// Read the generation before the configuration, so that a change made
+		// while building makes the table out of date right away.
+		int generation = repository == null ? 0 : repository.getConfigurationGeneration();
+		Appender[] dispatchAppenders = collectDispatchAppenders(repository);
 
-				try {
-					open();
-				} catch (IOException e) {
-					Log.e(TAG, "Failed to open the log. " + e);
+		openAppenders(dispatchAppenders);
+		dispatchTable = new DispatchTable(generation, dispatchAppenders);
+
+		return dispatchAppenders;
+	}
+
+	/**
+	 * Collect the appenders of this logger followed by the inherited appenders
+	 * if the logger is additive.
+	 */
+	private Appender[] collectDispatchAppenders(CommonLoggerRepository repository) {
+		Appender[] ownAppenders = appenders;
+		Appender[] dispatchAppenders = ownAppenders;
+
+		if (additive && repository != null) {
+			Appender[] inheritedAppenders = repository.getInheritedAppenders(name);
+
+			if (inheritedAppenders.length > 0) {
+				List<Appender> appenderList = new ArrayList<Appender>(ownAppenders.length + inheritedAppenders.length);
+
+				for (int i = 0; i < ownAppenders.length; i++) {
+					appenderList.add(ownAppenders[i]);
 				}
 
-				stopWatch.start();
-				firstLogEvent = false;
+				// The same appender may be attached at several levels, but
+				// each event is only logged once to it.
+				for (int i = 0; i < inheritedAppenders.length; i++) {
+					if (!appenderList.contains(inheritedAppenders[i])) {
+						appenderList.add(inheritedAppenders[i]);
+					}
+				}
+
+				dispatchAppenders = appenderList.toArray(new Appender[appenderList.size()]);
 			}
+		}
+
+		return dispatchAppenders;
+	}
+
+	/**
+	 * Open the appenders that are not open yet.
+	 */
+	private static void openAppenders(Appender[] appendersToOpen) {
+		synchronized (startLock) {
+			for (int i = 0; i < appendersToOpen.length; i++) {
+				Appender appender = appendersToOpen[i];
 
-			//prevent ConcurrencyModificationExceptions from addAppender, removeAppender, etc
-			synchronized (appenderList) {
-				for (Appender appender : appenderList) {
-					appender.doLog(clientID, name, stopWatch.getCurrentTime(), level, message, t);
+				if (!appender.isLogOpen()) {
+					try {
+						appender.open();
+					} catch (IOException e) {
+						Log.e(TAG, "Failed to open the log. " + e);
+					}
 				}
 			}
 		}
 	}
-	
-	private void addDefaultAppender() {
-        synchronized (appenderList) {
-            if (appenderList.size() == 0) {
-                Log.w(TAG, "Warning! No appender is set, using LogCatAppender with PatternFormatter");
-                Appender appender = DefaultAppenderFactory.createDefaultAppender();
-                addAppender(appender);
-            }
-        }
+
+	/**
+	 * Throw away the dispatch array of this logger and tell the repository, so
+	 * that the descendants of this logger throw away theirs.
+	 */
+	private void configurationChanged() {
+		dispatchTable = null;
+
+		if (commonLoggerRepository != null) {
+			commonLoggerRepository.configurationChanged();
+		}
 	}
 
 	/**
@@ -335,8 +676,7 @@ public final class Logger {
 	 * @return true if logging is enabled.
 	 */
 	public boolean isTraceEnabled() {
-		Level effectiveLevel = getEffectiveLevel();
-		return effectiveLevel.toInt() <= Level.TRACE_INT;
+		return getLevelThreshold() <= Level.TRACE_INT;
 	}
 
 	/**
@@ -362,14 +702,70 @@ public final class Logger {
 		log(Level.TRACE, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.TRACE</code> level. This makes a <code>Throwable</code>
+	 * argument take precedence over the parameterized methods.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void trace(String message, Throwable t) {
+		log(Level.TRACE, message, t);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.TRACE</code> level. The
+	 * <code>{}</code> placeholder is only substituted if the level is enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument
+	 *            the argument.
+	 */
+	public void trace(String format, Object argument) {
+		logFormatted(Level.TRACE, format, argument, null, null, 1);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.TRACE</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument1
+	 *            the first argument.
+	 * @param argument2
+	 *            the second argument.
+	 */
+	public void trace(String format, Object argument1, Object argument2) {
+		logFormatted(Level.TRACE, format, argument1, argument2, null, 2);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.TRACE</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param arguments
+	 *            the arguments.
+	 */
+	public void trace(String format, Object... arguments) {
+		logFormatted(Level.TRACE, format, null, null, arguments, arguments == null ? 0 : arguments.length);
+	}
+
 	/**
 	 * Is this <code>Logger</code> enabled for DEBUG level?
 	 * 
 	 * @return true if logging is enabled.
 	 */
 	public boolean isDebugEnabled() {
-		Level effectiveLevel = getEffectiveLevel();
-		return effectiveLevel.toInt() <= Level.DEBUG_INT;
+		return getLevelThreshold() <= Level.DEBUG_INT;
 	}
 
 	/**
@@ -395,14 +791,70 @@ public final class Logger {
 		log(Level.DEBUG, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.DEBUG</code> level. This makes a <code>Throwable</code>
+	 * argument take precedence over the parameterized methods.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void debug(String message, Throwable t) {
+		log(Level.DEBUG, message, t);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.DEBUG</code> level. The
+	 * <code>{}</code> placeholder is only substituted if the level is enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument
+	 *            the argument.
+	 */
+	public void debug(String format, Object argument) {
+		logFormatted(Level.DEBUG, format, argument, null, null, 1);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.DEBUG</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument1
+	 *            the first argument.
+	 * @param argument2
+	 *            the second argument.
+	 */
+	public void debug(String format, Object argument1, Object argument2) {
+		logFormatted(Level.DEBUG, format, argument1, argument2, null, 2);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.DEBUG</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param arguments
+	 *            the arguments.
+	 */
+	public void debug(String format, Object... arguments) {
+		logFormatted(Level.DEBUG, format, null, null, arguments, arguments == null ? 0 : arguments.length);
+	}
+
 	/**
 	 * Is this <code>Logger</code> enabled for INFO level?
 	 * 
 	 * @return true if the <code>Level.INFO</code> level is enabled.
 	 */
 	public boolean isInfoEnabled() {
-		Level effectiveLevel = getEffectiveLevel();
-		return effectiveLevel.toInt() <= Level.INFO_INT;
+		return getLevelThreshold() <= Level.INFO_INT;
 	}
 
 	/**
@@ -428,6 +880,63 @@ public final class Logger {
 		log(Level.INFO, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.INFO</code> level. This makes a <code>Throwable</code>
+	 * argument take precedence over the parameterized methods.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void info(String message, Throwable t) {
+		log(Level.INFO, message, t);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.INFO</code> level. The
+	 * <code>{}</code> placeholder is only substituted if the level is enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument
+	 *            the argument.
+	 */
+	public void info(String format, Object argument) {
+		logFormatted(Level.INFO, format, argument, null, null, 1);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.INFO</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument1
+	 *            the first argument.
+	 * @param argument2
+	 *            the second argument.
+	 */
+	public void info(String format, Object argument1, Object argument2) {
+		logFormatted(Level.INFO, format, argument1, argument2, null, 2);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.INFO</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param arguments
+	 *            the arguments.
+	 */
+	public void info(String format, Object... arguments) {
+		logFormatted(Level.INFO, format, null, null, arguments, arguments == null ? 0 : arguments.length);
+	}
+
 	/**
 	 * Log the specified message at <code>Level.WARN</code> level.
 	 * 
@@ -451,6 +960,63 @@ public final class Logger {
 		log(Level.WARN, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.WARN</code> level. This makes a <code>Throwable</code>
+	 * argument take precedence over the parameterized methods.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void warn(String message, Throwable t) {
+		log(Level.WARN, message, t);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.WARN</code> level. The
+	 * <code>{}</code> placeholder is only substituted if the level is enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument
+	 *            the argument.
+	 */
+	public void warn(String format, Object argument) {
+		logFormatted(Level.WARN, format, argument, null, null, 1);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.WARN</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument1
+	 *            the first argument.
+	 * @param argument2
+	 *            the second argument.
+	 */
+	public void warn(String format, Object argument1, Object argument2) {
+		logFormatted(Level.WARN, format, argument1, argument2, null, 2);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.WARN</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param arguments
+	 *            the arguments.
+	 */
+	public void warn(String format, Object... arguments) {
+		logFormatted(Level.WARN, format, null, null, arguments, arguments == null ? 0 : arguments.length);
+	}
+
 	/**
 	 * Log the specified message at ERROR level.
 	 * 
@@ -473,6 +1039,63 @@ public final class Logger {
 		log(Level.ERROR, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.ERROR</code> level. This makes a <code>Throwable</code>
+	 * argument take precedence over the parameterized methods.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void error(String message, Throwable t) {
+		log(Level.ERROR, message, t);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.ERROR</code> level. The
+	 * <code>{}</code> placeholder is only substituted if the level is enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument
+	 *            the argument.
+	 */
+	public void error(String format, Object argument) {
+		logFormatted(Level.ERROR, format, argument, null, null, 1);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.ERROR</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument1
+	 *            the first argument.
+	 * @param argument2
+	 *            the second argument.
+	 */
+	public void error(String format, Object argument1, Object argument2) {
+		logFormatted(Level.ERROR, format, argument1, argument2, null, 2);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.ERROR</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param arguments
+	 *            the arguments.
+	 */
+	public void error(String format, Object... arguments) {
+		logFormatted(Level.ERROR, format, null, null, arguments, arguments == null ? 0 : arguments.length);
+	}
+
 	/**
 	 * Log the specified message at FATAL level.
 	 * 
@@ -495,6 +1118,63 @@ public final class Logger {
 		log(Level.FATAL, message, t);
 	}
 
+	/**
+	 * Log the message and the <code>Throwable</code> object at
+	 * <code>Level.FATAL</code> level. This makes a <code>Throwable</code>
+	 * argument take precedence over the parameterized methods.
+	 * 
+	 * @param message
+	 *            the message to log.
+	 * @param t
+	 *            the <code>Throwable</code> object to log.
+	 */
+	public void fatal(String message, Throwable t) {
+		log(Level.FATAL, message, t);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.FATAL</code> level. The
+	 * <code>{}</code> placeholder is only substituted if the level is enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument
+	 *            the argument.
+	 */
+	public void fatal(String format, Object argument) {
+		logFormatted(Level.FATAL, format, argument, null, null, 1);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.FATAL</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param argument1
+	 *            the first argument.
+	 * @param argument2
+	 *            the second argument.
+	 */
+	public void fatal(String format, Object argument1, Object argument2) {
+		logFormatted(Level.FATAL, format, argument1, argument2, null, 2);
+	}
+
+	/**
+	 * Log a parameterized message at <code>Level.FATAL</code> level. The
+	 * <code>{}</code> placeholders are only substituted if the level is
+	 * enabled.
+	 * 
+	 * @param format
+	 *            the message pattern.
+	 * @param arguments
+	 *            the arguments.
+	 */
+	public void fatal(String format, Object... arguments) {
+		logFormatted(Level.FATAL, format, null, null, arguments, arguments == null ? 0 : arguments.length);
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -503,7 +1183,7 @@ public final class Logger {
 		stringBuffer.append(super.toString());
 		stringBuffer.append('[');
 
-		for (Appender appender : appenderList) {
+		for (Appender appender : appenders) {
 			stringBuffer.append(appender);
 			stringBuffer.append(';');
 		}
@@ -513,30 +1193,68 @@ public final class Logger {
 	}
 
 	/**
-	 * Reset any non-static Logger configuration
-	 * Note:  As of 4/29/11, Microlog only supports a flat list of appenders tied to specific loggers in the tree,
-	 * so for now the resetLogger call will only clear the level.  After this reset, all future calls will delegate to 
+	 * Reset any non-static Logger configuration, i.e. set the level, detach the
+	 * appenders without closing them and make the logger additive again. After
+	 * a reset with a <code>null</code> level, all future calls will delegate to
 	 * the parent to determine the effective log level.
 	 * 
 	 * @param Level The new logger level.  May be null.
 	 */
 	public void resetLogger(Level level) {
 		this.level = level;
+		levelChanged();
+
+		synchronized (appenderLock) {
+			appenders = NO_APPENDERS;
+			additive = true;
+		}
+
+		configurationChanged();
 	}
 	
 	/**
-	 * Resets the flat appender list.  
+	 * Resets the static logging state, so that the next logging event checks
+	 * for a missing appender and restarts the stop watch again. The appenders of
+	 * each logger are reset with <code>resetLogger</code>.
+	 */
+	public static void resetAppenders() {
+		synchronized (startLock) {
+			firstLogEvent = true;
+		}
+	}
+
+	/**
+	 * Set the clock that the event timestamps are read from. The default is a
+	 * <code>MonotonicClock</code>. A <code>CachedClock</code> must be started
+	 * by the caller.
+	 *
+	 * @param clock
+	 *            the clock to use.
+	 * @throws IllegalArgumentException
+	 *             if the <code>clock</code> is <code>null</code>.
 	 */
-	public static synchronized void resetAppenders() {
-		appenderList.clear();
-		firstLogEvent = true;
+	public static void setClock(Clock clock) throws IllegalArgumentException {
+		if (clock == null) {
+			throw new IllegalArgumentException("The clock must not be null.");
+		}
+
+		Logger.clock = clock;
 	}
 
 	/**
-	 * Open the log. The logging is now turned on.
+	 * Get the clock that the event timestamps are read from.
+	 *
+	 * @return the clock.
+	 */
+	public static Clock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Open the appenders of this logger. The logging is now turned on.
 	 */
 	void open() throws IOException {
-		for (Appender appender : appenderList) {
+		for (Appender appender : appenders) {
 			appender.open();
 		}
 	}
@@ -544,17 +1262,40 @@ public final class Logger {
 	/**
 	 * Close the log. From this point on, no logging is done.
 	 * 
+	 * All the appenders that this logger logs to are closed, i.e. its own
+	 * appenders and, if the logger is additive, the appenders it inherits from
+	 * its ancestors such as the root logger, which flushes the appenders that
+	 * are configured on the root logger. Appenders of other loggers that this
+	 * logger does not log to are left open.
+	 * 
 	 * @throws IOException
 	 *             if the <code>Logger</code> failed to close.
 	 */
 	public void close() throws IOException {
-	    synchronized (appenderList) {
-			for (Appender appender : appenderList) {
-				appender.close();
-			}
-	    }
+		Appender[] appendersToClose = collectDispatchAppenders(commonLoggerRepository);
+
+		for (int i = 0; i < appendersToClose.length; i++) {
+			appendersToClose[i].close();
+		}
 
 		stopWatch.stop();
 		Logger.firstLogEvent = true;
+
+		// Make sure the closed appenders are opened again by the next event.
+		configurationChanged();
+	}
+
+	/**
+	 * A dispatch array together with the configuration generation it was
+	 * built for.
+	 */
+	private static final class DispatchTable {
+		final int generation;
+		final Appender[] appenders;
+
+		DispatchTable(int generation, Appender[] appenders) {
+			this.generation = generation;
+			this.appenders = appenders;
+		}
 	}
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A <code>Clock</code> that measures the time with
+ * <code>System.nanoTime()</code>, anchored to the wall clock. The time never
+ * goes backwards, even if the system time is changed.
+ *
+ * The monotonic clock of Android does not advance while the device is in deep
+ * sleep. The clock is therefore anchored to the wall clock again every
+ * <code>resyncInterval</code> milliseconds, at which point it jumps forward to
+ * the wall clock if it has fallen behind.
+ */
+public final class MonotonicClock implements Clock {
+
+	public static final long DEFAULT_RESYNC_INTERVAL = 60000;
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private final long resyncIntervalNanos;
+
+	private final AtomicReference<Anchor> anchor = new AtomicReference<Anchor>();
+
+	/**
+	 * Create a clock that is anchored to the wall clock once a minute.
+	 */
+	public MonotonicClock() {
+		this(DEFAULT_RESYNC_INTERVAL);
+	}
+
+	/**
+	 * Create a clock that is anchored to the wall clock every
+	 * <code>resyncInterval</code> milliseconds.
+	 *
+	 * @param resyncInterval
+	 *            the interval in milliseconds.
+	 * @throws IllegalArgumentException
+	 *             if the <code>resyncInterval</code> is not positive.
+	 */
+	public MonotonicClock(long resyncInterval) throws IllegalArgumentException {
+		if (resyncInterval <= 0) {
+			throw new IllegalArgumentException("The resync interval must be positive.");
+		}
+
+		resyncIntervalNanos = resyncInterval * NANOS_PER_MILLI;
+		anchor.set(new Anchor(System.currentTimeMillis(), System.nanoTime()));
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.Clock#currentTimeMillis()
+	 */
+	public long currentTimeMillis() {
+		for (;;) {
+			Anchor current = anchor.get();
+			long nanoTime = System.nanoTime();
+			long elapsedNanos = nanoTime - current.nanoTime;
+			long time = current.millis + elapsedNanos / NANOS_PER_MILLI;
+
+			if (elapsedNanos < resyncIntervalNanos) {
+				return time;
+			}
+
+			long wallTime = System.currentTimeMillis();
+			if (wallTime > time) {
+				time = wallTime;
+			}
+
+			// Only replace the anchor that the time was derived from. If
+			// another thread has resynced meanwhile, its anchor is newer and
+			// the time is read from it instead, so that the clock never goes
+			// back to an older anchor.
+			if (anchor.compareAndSet(current, new Anchor(time, nanoTime))) {
+				return time;
+			}
+		}
+	}
+
+	/**
+	 * A wall clock time together with the <code>System.nanoTime()</code> it
+	 * was taken at.
+	 */
+	private static final class Anchor {
+		final long millis;
+
+		final long nanoTime;
+
+		Anchor(long millis, long nanoTime) {
+			this.millis = millis;
+			this.nanoTime = nanoTime;
+		}
+	}
+}
@@ -16,22 +16,58 @@
 package com.google.code.microlog4android;
 
 /**
- * A class that works as a stop watch.
+ * A class that works as a stop watch. The time is read from a
+ * <code>Clock</code>, and no locks are taken, since the current time is read
+ * for every logging event by all the logging threads.
+ * 
+ * The <code>Logger</code> reads the clock once per event and passes the time
+ * to <code>getCurrentTime(long)</code>, which means that the event timestamp
+ * and the relative time are always consistent.
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  */
 class StopWatch {
 
-	private boolean started;
-	private long startTime;
-	private long currentTime;
-	private long stopTime;
+	private final Clock clock;
+
+	private volatile boolean started;
+	private volatile long startTime;
+	private volatile long stoppedTime;
+
+	/**
+	 * Create a <code>StopWatch</code> that reads the time from a
+	 * <code>MonotonicClock</code>.
+	 */
+	public StopWatch() {
+		this(new MonotonicClock());
+	}
+
+	/**
+	 * Create a <code>StopWatch</code> that reads the time from the specified
+	 * clock, when no time is passed in.
+	 * 
+	 * @param clock
+	 *            the clock to use.
+	 */
+	public StopWatch(Clock clock) {
+		this.clock = clock;
+	}
 
 	/**
 	 * Start the <code>StopWatch</code>.
 	 */
-	public synchronized void start() {
-		this.startTime = System.currentTimeMillis();
+	public void start() {
+		start(clock.currentTimeMillis());
+	}
+
+	/**
+	 * Start the <code>StopWatch</code> at the specified time.
+	 * 
+	 * @param now
+	 *            the current time in milliseconds.
+	 */
+	public void start(long now) {
+		this.startTime = now;
 		started = true;
 	}
 
@@ -41,13 +77,25 @@ class StopWatch {
 	 * @return the current time as milliseconds since the <code>StopWatch</code>
 	 *         was started.
 	 */
-	public synchronized long getCurrentTime() {
+	public long getCurrentTime() {
+		return getCurrentTime(clock.currentTimeMillis());
+	}
 
+	/**
+	 * Get the time elapsed up to the specified time.
+	 * 
+	 * @param now
+	 *            the current time in milliseconds.
+	 * @return the current time as milliseconds since the <code>StopWatch</code>
+	 *         was started, or the time it was stopped at if it is not running.
+	 */
+	public long getCurrentTime(long now) {
 		if (started) {
-			currentTime = System.currentTimeMillis() - startTime;
+			long currentTime = now - startTime;
+			return currentTime < 0 ? 0 : currentTime;
 		}
 
-		return currentTime;
+		return stoppedTime;
 	}
 
 	/**
@@ -55,10 +103,10 @@ class StopWatch {
 	 * 
 	 * @return the current time when
 	 */
-	public synchronized long stop() {
+	public long stop() {
+		long currentTime = clock.currentTimeMillis() - startTime;
 
-		stopTime = System.currentTimeMillis();
-		currentTime = stopTime - startTime;
+		stoppedTime = currentTime;
 		started = false;
 
 		return currentTime;
@@ -67,16 +115,15 @@ class StopWatch {
 	/**
 	 * Reset the <code>StopWatch</code>.
 	 */
-	public synchronized void reset() {
+	public void reset() {
 
 		if (started) {
-			startTime = System.currentTimeMillis();
+			startTime = clock.currentTimeMillis();
 		} else {
 			startTime = 0;
 		}
 
-		stopTime = 0;
-		currentTime = 0;
+		stoppedTime = 0;
 	}
 
 	/**
@@ -17,7 +17,9 @@ package com.google.code.microlog4android.appender;
 import java.io.IOException;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 import com.google.code.microlog4android.format.Formatter;
+import com.google.code.microlog4android.format.ReusableBuilder;
 import com.google.code.microlog4android.format.SimpleFormatter;
 
 
@@ -41,6 +43,16 @@ public abstract class AbstractAppender implements Appender {
 	 */
 	protected boolean logOpen;
 
+	/**
+	 * Builders larger than this are not kept for reuse.
+	 */
+	private static final int MAX_REUSED_BUILDER_SIZE = 8192;
+
+	private static final int INITIAL_BUILDER_SIZE = 256;
+
+	private static final ReusableBuilder reusableBuilder = new ReusableBuilder(INITIAL_BUILDER_SIZE,
+			MAX_REUSED_BUILDER_SIZE);
+
 	/**
 	 * Set the <code>Formatter</code> object that is used for formatting the
 	 * output.
@@ -93,6 +105,40 @@ public abstract class AbstractAppender implements Appender {
 	public abstract void doLog(String clientID, String name, long time,
 			Level level, Object message, Throwable t);
 
+	/**
+	 * Do the logging. The default implementation passes the data of the event
+	 * to <code>doLog</code>. A subclass may override this to use the event
+	 * directly.
+	 * 
+	 * @see com.google.code.microlog4android.appender.Appender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	public void append(LogEvent event) {
+		doLog(event.getClientID(), event.getLoggerName(), event.getTime(), event.getLevel(),
+				event.getMessage(), event.getThrowable());
+	}
+
+	/**
+	 * Get an empty <code>StringBuilder</code> to format an event into. The
+	 * builder is reused by the calling thread, unless it is already in use
+	 * since an event was logged while formatting another one.
+	 * 
+	 * @return an empty builder that shall be given back with
+	 *         <code>releaseBuilder</code>.
+	 */
+	protected static StringBuilder obtainBuilder() {
+		return reusableBuilder.obtain();
+	}
+
+	/**
+	 * Give back a builder obtained with <code>obtainBuilder</code>.
+	 * 
+	 * @param builder
+	 *            the builder to give back.
+	 */
+	protected static void releaseBuilder(StringBuilder builder) {
+		reusableBuilder.release(builder);
+	}
+
 	/**
 	 * Clear the log.
 	 * 
@@ -113,5 +159,4 @@ public abstract class AbstractAppender implements Appender {
 	 * @see com.google.code.microlog4android.appender.Appender#open()
 	 */
 	public abstract void open() throws IOException;
-
 }
@@ -17,6 +17,7 @@ package com.google.code.microlog4android.appender;
 import java.io.IOException;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 import com.google.code.microlog4android.format.Formatter;
 
 
@@ -54,6 +55,16 @@ public interface Appender {
 	void doLog(String clientID, String name, long time, Level level,
 			Object message, Throwable t);
 
+	/**
+	 * Do the logging. This is what the <code>Logger</code> calls. The event is
+	 * recycled when this method returns, so it must be copied if it is needed
+	 * afterwards.
+	 * 
+	 * @param event
+	 *            the event to log.
+	 */
+	void append(LogEvent event);
+
 	/**
 	 * Clear the log.
 	 */
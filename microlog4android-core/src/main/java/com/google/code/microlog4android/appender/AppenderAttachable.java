@@ -0,0 +1,58 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+/**
+ * Implemented by appenders that forward the logging to other appenders, for
+ * example the <code>AsyncAppender</code>. The <code>PropertyConfigurator</code>
+ * uses this interface to attach the appenders listed in the
+ * <code>appenders</code> property.
+ */
+public interface AppenderAttachable {
+
+	/**
+	 * Attach the specified appender.
+	 *
+	 * @param appender
+	 *            the <code>Appender</code> to attach.
+	 * @throws IllegalArgumentException
+	 *             if the <code>appender</code> is <code>null</code>.
+	 */
+	void addAppender(Appender appender) throws IllegalArgumentException;
+
+	/**
+	 * Detach the specified appender.
+	 *
+	 * @param appender
+	 *            the <code>Appender</code> to detach.
+	 */
+	void removeAppender(Appender appender);
+
+	/**
+	 * Get the number of attached appenders.
+	 *
+	 * @return the number of attached appenders.
+	 */
+	int getNumberOfAppenders();
+
+	/**
+	 * Get the specified attached appender, starting at index = 0.
+	 *
+	 * @param index
+	 *            the index of the appender.
+	 * @return the appender.
+	 */
+	Appender getAppender(int index);
+}
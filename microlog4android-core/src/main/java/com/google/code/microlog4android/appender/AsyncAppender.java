@@ -0,0 +1,562 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import android.util.Log;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * An appender that hands the events over to a background thread, which then
+ * logs them to the attached appenders. The logging thread only copies the event
+ * into a bounded <code>LogEventRingBuffer</code>, so a slow appender such as
+ * the <code>FileAppender</code> or the <code>DatagramAppender</code> does not
+ * stall the application.
+ *
+ * <pre>
+ *  Example:
+ *  microlog.rootLogger=DEBUG, A1
+ *  microlog.appender.A1=AsyncAppender
+ *  microlog.appender.A1.capacity=512
+ *  microlog.appender.A1.overflowPolicy=DiscardBelowLevel
+ *  microlog.appender.A1.discardLevel=INFO
+ *  microlog.appender.A1.appenders=A2
+ *  microlog.appender.A2=FileAppender
+ * </pre>
+ *
+ * What happens when the buffer is full is decided by the
+ * <code>OverflowPolicy</code>. The available policies are
+ * <code>Block</code> (the default, see also the <code>blockTimeout</code>
+ * property), <code>DropNewest</code>, <code>DropOldest</code> and
+ * <code>DiscardBelowLevel</code>. The number of dropped events is available
+ * from <code>getDroppedCount()</code>.
+ */
+public class AsyncAppender extends AbstractAppender implements AppenderAttachable {
+	private static final String TAG = "Microlog.AsyncAppender";
+
+	public static final String CAPACITY_PROPERTY = "capacity";
+
+	public static final String OVERFLOW_POLICY_PROPERTY = "overflowPolicy";
+
+	public static final String BLOCK_TIMEOUT_PROPERTY = "blockTimeout";
+
+	public static final String DISCARD_LEVEL_PROPERTY = "discardLevel";
+
+	public static final String BLOCK_POLICY = "Block";
+
+	public static final String DROP_NEWEST_POLICY = "DropNewest";
+
+	public static final String DROP_OLDEST_POLICY = "DropOldest";
+
+	public static final String DISCARD_BELOW_LEVEL_POLICY = "DiscardBelowLevel";
+
+	private static final String[] PROPERTY_NAMES = new String[] { CAPACITY_PROPERTY, OVERFLOW_POLICY_PROPERTY,
+			BLOCK_TIMEOUT_PROPERTY, DISCARD_LEVEL_PROPERTY };
+
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static final Appender[] NO_APPENDERS = new Appender[0];
+
+	/**
+	 * The longest time the dispatcher thread sleeps before it checks the
+	 * buffer again, even if no logging thread has woken it up.
+	 */
+	private static final long MAX_IDLE_NANOS = 100 * 1000 * 1000L;
+
+	private static int dispatcherCount;
+
+	private int capacity = DEFAULT_CAPACITY;
+
+	private final Object appenderLock = new Object();
+
+	private volatile Appender[] appenders = NO_APPENDERS;
+
+	private volatile LogEventRingBuffer ringBuffer;
+
+	private volatile Thread dispatcherThread;
+
+	private volatile boolean running;
+
+	private volatile boolean dispatcherWaiting;
+
+	private volatile OverflowPolicy overflowPolicy = new BlockingOverflowPolicy();
+
+	private String overflowPolicyName = BLOCK_POLICY;
+
+	private long blockTimeout = BlockingOverflowPolicy.NO_TIMEOUT;
+
+	private Level discardLevel = Level.INFO;
+
+	private volatile long previousDroppedCount;
+
+	/**
+	 * Create an <code>AsyncAppender</code> with the default capacity.
+	 */
+	public AsyncAppender() {
+	}
+
+	/**
+	 * Create an <code>AsyncAppender</code> with the specified capacity.
+	 *
+	 * @param capacity
+	 *            the number of events that can be waiting for the dispatcher.
+	 */
+	public AsyncAppender(int capacity) {
+		setCapacity(capacity);
+	}
+
+	/**
+	 * Open the attached appenders and start the dispatcher thread.
+	 *
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#open()
+	 */
+	@Override
+	public synchronized void open() throws IOException {
+		if (logOpen) {
+			return;
+		}
+
+		Appender[] currentAppenders = appenders;
+		for (int i = 0; i < currentAppenders.length; i++) {
+			if (!currentAppenders[i].isLogOpen()) {
+				currentAppenders[i].open();
+			}
+		}
+
+		if (ringBuffer != null) {
+			previousDroppedCount += ringBuffer.getDroppedCount();
+		}
+
+		ringBuffer = new LogEventRingBuffer(capacity);
+		running = true;
+
+		Thread thread = new Thread(new Dispatcher(), nextDispatcherName());
+		thread.setDaemon(true);
+		dispatcherThread = thread;
+		logOpen = true;
+		thread.start();
+	}
+
+	/**
+	 * Put the event in the buffer.
+	 *
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#doLog(java.lang.String,
+	 *      java.lang.String, long, com.google.code.microlog4android.Level,
+	 *      java.lang.Object, java.lang.Throwable)
+	 */
+	@Override
+	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable t) {
+		LogEvent event = LogEvent.obtain();
+
+		try {
+			event.set(clientID, name, time, level, message, t, Thread.currentThread().getName());
+			append(event);
+		} finally {
+			event.recycle();
+		}
+	}
+
+	/**
+	 * Put a copy of the event in the buffer. The event is logged by the
+	 * attached appenders on the dispatcher thread.
+	 *
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		LogEventRingBuffer buffer = ringBuffer;
+
+		if (buffer == null) {
+			// Never opened
+			return;
+		}
+
+		if (!running) {
+			buffer.recordDropped();
+			return;
+		}
+
+		if (Thread.currentThread() == dispatcherThread) {
+			// An attached appender is logging through us, waiting for room in
+			// the buffer would dead lock the dispatcher.
+			logToAppenders(event);
+			return;
+		}
+
+		OverflowPolicy policy = overflowPolicy;
+
+		Level level = event.getLevel();
+
+		if (policy.discardBeforeOffer(buffer, level)) {
+			buffer.recordDropped();
+			return;
+		}
+
+		if (!buffer.offer(event)) {
+			long firstAttemptNanos = System.nanoTime();
+
+			do {
+				wakeDispatcher();
+
+				if (!running || !policy.onBufferFull(buffer, level, firstAttemptNanos)) {
+					buffer.recordDropped();
+					return;
+				}
+			} while (!buffer.offer(event));
+		}
+
+		if (!running) {
+			// The appender was closed while the event was offered, so the last
+			// drain in close() may have missed it.
+			discardStranded(buffer);
+			return;
+		}
+
+		if (dispatcherWaiting) {
+			wakeDispatcher();
+		}
+	}
+
+	/**
+	 * Clear the attached appenders.
+	 *
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#clear()
+	 */
+	@Override
+	public void clear() {
+		Appender[] currentAppenders = appenders;
+		for (int i = 0; i < currentAppenders.length; i++) {
+			currentAppenders[i].clear();
+		}
+	}
+
+	/**
+	 * Stop the dispatcher thread, log the events that are still in the buffer
+	 * and close the attached appenders.
+	 *
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!logOpen) {
+			return;
+		}
+
+		logOpen = false;
+		running = false;
+
+		Thread thread = dispatcherThread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Log.w(TAG, "Interrupted while waiting for the dispatcher thread.");
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		dispatcherThread = null;
+
+		// Log whatever a logging thread managed to put in the buffer after the
+		// dispatcher thread finished.
+		LogEventRingBuffer buffer = ringBuffer;
+		while (buffer.dispatchNext(appenders)) {
+			// Keep on draining
+		}
+
+		Appender[] currentAppenders = appenders;
+		for (int i = 0; i < currentAppenders.length; i++) {
+			if (currentAppenders[i].isLogOpen()) {
+				currentAppenders[i].close();
+			}
+		}
+	}
+
+	/**
+	 * Discard the events that were put in the buffer after it was drained for
+	 * the last time, and count them as dropped. Waits for a close that is in
+	 * progress, which may still log the events.
+	 */
+	private synchronized void discardStranded(LogEventRingBuffer buffer) {
+		long droppedBefore = buffer.getDroppedCount();
+
+		while (buffer.discardOldest()) {
+			// Keep on discarding
+		}
+
+		if (buffer != ringBuffer) {
+			// Opened again meanwhile, the drops of the old buffer have already
+			// been added up.
+			previousDroppedCount += buffer.getDroppedCount() - droppedBefore;
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.Appender#getLogSize()
+	 */
+	public long getLogSize() {
+		return SIZE_UNDEFINED;
+	}
+
+	public String[] getPropertyNames() {
+		return PROPERTY_NAMES;
+	}
+
+	public void setProperty(String name, String value) {
+		if (name.equals(CAPACITY_PROPERTY)) {
+			setCapacity(value);
+		} else if (name.equals(OVERFLOW_POLICY_PROPERTY)) {
+			overflowPolicyName = value.trim();
+			configureOverflowPolicy();
+		} else if (name.equals(BLOCK_TIMEOUT_PROPERTY)) {
+			try {
+				blockTimeout = Long.parseLong(value.trim());
+				configureOverflowPolicy();
+			} catch (NumberFormatException e) {
+				Log.e(TAG, value + " is not a valid timeout");
+			}
+		} else if (name.equals(DISCARD_LEVEL_PROPERTY)) {
+			try {
+				discardLevel = Level.valueOf(value.trim());
+				configureOverflowPolicy();
+			} catch (IllegalArgumentException e) {
+				Log.e(TAG, value + " is not a valid level");
+			}
+		}
+	}
+
+	/**
+	 * Get the policy that decides what happens when the buffer is full.
+	 *
+	 * @return the overflow policy.
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Set the policy that decides what happens when the buffer is full.
+	 *
+	 * @param overflowPolicy
+	 *            the overflow policy to use.
+	 * @throws IllegalArgumentException
+	 *             if the <code>overflowPolicy</code> is <code>null</code>.
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) throws IllegalArgumentException {
+		if (overflowPolicy == null) {
+			throw new IllegalArgumentException("The overflow policy must not be null.");
+		}
+
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Get the number of events that have been dropped by the overflow policy,
+	 * or because they were logged while the appender was closing.
+	 *
+	 * @return the number of dropped events.
+	 */
+	public long getDroppedCount() {
+		LogEventRingBuffer buffer = ringBuffer;
+		long droppedCount = previousDroppedCount;
+
+		if (buffer != null) {
+			droppedCount += buffer.getDroppedCount();
+		}
+
+		return droppedCount;
+	}
+
+	/**
+	 * Get the capacity of the buffer.
+	 *
+	 * @return the capacity.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Set the number of events that can be waiting for the dispatcher thread.
+	 * The capacity is rounded up to the nearest power of two and takes effect
+	 * the next time the appender is opened.
+	 *
+	 * @param capacity
+	 *            the capacity to set.
+	 * @throws IllegalArgumentException
+	 *             if the <code>capacity</code> is less than 1.
+	 */
+	public void setCapacity(int capacity) throws IllegalArgumentException {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be at least 1.");
+		}
+
+		this.capacity = capacity;
+	}
+
+	public void setCapacity(String capacity) {
+		try {
+			setCapacity(Integer.parseInt(capacity));
+		} catch (NumberFormatException e) {
+			Log.e(TAG, capacity + " is not a valid integer");
+		} catch (IllegalArgumentException e) {
+			Log.e(TAG, capacity + " is not a valid capacity");
+		}
+	}
+
+	/**
+	 * Get the number of events that are waiting to be logged.
+	 *
+	 * @return the number of events in the buffer.
+	 */
+	public int getQueueSize() {
+		LogEventRingBuffer buffer = ringBuffer;
+		return buffer == null ? 0 : buffer.size();
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AppenderAttachable#addAppender(com.google.code.microlog4android.appender.Appender)
+	 */
+	public void addAppender(Appender appender) throws IllegalArgumentException {
+		if (appender == null) {
+			throw new IllegalArgumentException("Appender not allowed to be null");
+		}
+
+		if (appender == this) {
+			throw new IllegalArgumentException("An AsyncAppender can not be attached to itself");
+		}
+
+		synchronized (appenderLock) {
+			Appender[] currentAppenders = appenders;
+
+			for (int i = 0; i < currentAppenders.length; i++) {
+				if (currentAppenders[i] == appender) {
+					return;
+				}
+			}
+
+			Appender[] newAppenders = new Appender[currentAppenders.length + 1];
+			System.arraycopy(currentAppenders, 0, newAppenders, 0, currentAppenders.length);
+			newAppenders[currentAppenders.length] = appender;
+			appenders = newAppenders;
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AppenderAttachable#removeAppender(com.google.code.microlog4android.appender.Appender)
+	 */
+	public void removeAppender(Appender appender) {
+		synchronized (appenderLock) {
+			Appender[] currentAppenders = appenders;
+
+			for (int i = 0; i < currentAppenders.length; i++) {
+				if (currentAppenders[i] == appender) {
+					Appender[] newAppenders = new Appender[currentAppenders.length - 1];
+					System.arraycopy(currentAppenders, 0, newAppenders, 0, i);
+					System.arraycopy(currentAppenders, i + 1, newAppenders, i, newAppenders.length - i);
+					appenders = newAppenders;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AppenderAttachable#getNumberOfAppenders()
+	 */
+	public int getNumberOfAppenders() {
+		return appenders.length;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AppenderAttachable#getAppender(int)
+	 */
+	public Appender getAppender(int index) {
+		return appenders[index];
+	}
+
+	/**
+	 * Create the overflow policy from the configured properties. The
+	 * properties may come in any order, so this is done every time one of them
+	 * is set.
+	 */
+	private void configureOverflowPolicy() {
+		if (overflowPolicyName.equals(BLOCK_POLICY)) {
+			setOverflowPolicy(new BlockingOverflowPolicy(Math.max(blockTimeout, 0)));
+		} else if (overflowPolicyName.equals(DROP_NEWEST_POLICY)) {
+			setOverflowPolicy(new DropNewestOverflowPolicy());
+		} else if (overflowPolicyName.equals(DROP_OLDEST_POLICY)) {
+			setOverflowPolicy(new DropOldestOverflowPolicy());
+		} else if (overflowPolicyName.equals(DISCARD_BELOW_LEVEL_POLICY)) {
+			setOverflowPolicy(new LevelDiscardingOverflowPolicy(discardLevel));
+		} else {
+			Log.e(TAG, "Unrecognized overflow policy " + overflowPolicyName);
+		}
+	}
+
+	private void logToAppenders(LogEvent event) {
+		Appender[] currentAppenders = appenders;
+		for (int i = 0; i < currentAppenders.length; i++) {
+			currentAppenders[i].append(event);
+		}
+	}
+
+	private void wakeDispatcher() {
+		Thread thread = dispatcherThread;
+
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	private static synchronized String nextDispatcherName() {
+		return "Microlog-AsyncAppender-" + (dispatcherCount++);
+	}
+
+	/**
+	 * Takes the events out of the buffer and logs them to the attached
+	 * appenders.
+	 */
+	private final class Dispatcher implements Runnable {
+
+		public void run() {
+			LogEventRingBuffer buffer = ringBuffer;
+
+			while (running) {
+				if (!buffer.dispatchNext(appenders)) {
+					dispatcherWaiting = true;
+
+					// Check again after announcing that we are about to wait,
+					// so that an event offered in between is not missed.
+					if (buffer.isEmpty() && running) {
+						LockSupport.parkNanos(MAX_IDLE_NANOS);
+					}
+
+					dispatcherWaiting = false;
+				}
+			}
+
+			while (buffer.dispatchNext(appenders)) {
+				// Drain the remaining events before the thread ends
+			}
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * An <code>OverflowPolicy</code> that makes the logging thread wait for room in
+ * the buffer. If a timeout is set, the event is discarded when the timeout has
+ * passed.
+ */
+public class BlockingOverflowPolicy implements OverflowPolicy {
+
+	/**
+	 * Wait until there is room, no matter how long it takes.
+	 */
+	public static final long NO_TIMEOUT = 0;
+
+	private static final long WAIT_NANOS = 1000 * 1000L;
+
+	private final long timeoutNanos;
+
+	/**
+	 * Create a policy that waits until there is room in the buffer.
+	 */
+	public BlockingOverflowPolicy() {
+		this(NO_TIMEOUT);
+	}
+
+	/**
+	 * Create a policy that waits at most <code>timeoutMillis</code>.
+	 * 
+	 * @param timeoutMillis
+	 *            the longest time to wait in milliseconds, or
+	 *            <code>NO_TIMEOUT</code>.
+	 * @throws IllegalArgumentException
+	 *             if the <code>timeoutMillis</code> is negative.
+	 */
+	public BlockingOverflowPolicy(long timeoutMillis) throws IllegalArgumentException {
+		if (timeoutMillis < 0) {
+			throw new IllegalArgumentException("The timeout must not be negative.");
+		}
+
+		this.timeoutNanos = timeoutMillis * 1000 * 1000;
+	}
+
+	/**
+	 * Never discard an event up front.
+	 * 
+	 * @see com.google.code.microlog4android.appender.OverflowPolicy#discardBeforeOffer(com.google.code.microlog4android.appender.LogEventRingBuffer,
+	 *      com.google.code.microlog4android.Level)
+	 */
+	public boolean discardBeforeOffer(LogEventRingBuffer buffer, Level level) {
+		return false;
+	}
+
+	/**
+	 * Wait a little while and try again, unless the timeout has passed.
+	 * 
+	 * @see com.google.code.microlog4android.appender.OverflowPolicy#onBufferFull(com.google.code.microlog4android.appender.LogEventRingBuffer,
+	 *      com.google.code.microlog4android.Level, long)
+	 */
+	public boolean onBufferFull(LogEventRingBuffer buffer, Level level, long firstAttemptNanos) {
+		if (timeoutNanos != NO_TIMEOUT && System.nanoTime() - firstAttemptNanos >= timeoutNanos) {
+			return false;
+		}
+
+		LockSupport.parkNanos(WAIT_NANOS);
+		return true;
+	}
+
+	/**
+	 * Get the timeout.
+	 * 
+	 * @return the timeout in milliseconds, or <code>NO_TIMEOUT</code>.
+	 */
+	public long getTimeout() {
+		return timeoutNanos / (1000 * 1000);
+	}
+}
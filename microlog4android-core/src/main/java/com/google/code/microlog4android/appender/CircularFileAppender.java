@@ -0,0 +1,433 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import android.os.Environment;
+import android.util.Log;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * An appender that logs to a file of a fixed size, where the newest events
+ * overwrite the oldest ones. The file is created with its full size when the
+ * log is opened for the first time, and is then neither grown, rolled over nor
+ * deleted, so the disk usage is constant.
+ * 
+ * The file starts with a header that holds the position of the oldest record
+ * and the number of bytes used by the records. Each event is formatted into a
+ * record of a length followed by the UTF-8 encoded text, whatever the default
+ * charset of the platform, so that the file can be read anywhere. The records
+ * wrap around at the end of the file. The whole file is memory mapped, and the
+ * header is updated after the record is written. The records that were logged can
+ * therefore be read back in order with a <code>CircularFileReader</code> even
+ * if the process crashes, and they are kept when the log is opened again.
+ * 
+ * <pre>
+ * microlog.appender.A1=CircularFileAppender
+ * microlog.appender.A1.file=microlog.log
+ * microlog.appender.A1.fileSize=65536
+ * </pre>
+ * 
+ * @see CircularFileReader
+ */
+public class CircularFileAppender extends AbstractAppender {
+	private static final String TAG = "Microlog.CircularFileAppender";
+
+	public static final String FILE_PROPERTY = "file";
+
+	public static final String FILE_SIZE_PROPERTY = "fileSize";
+
+	private static final String[] PROPERTY_NAMES = new String[] { FILE_PROPERTY, FILE_SIZE_PROPERTY };
+
+	public static final String DEFAULT_FILENAME = "microlog.log";
+
+	public static final int DEFAULT_FILE_SIZE = 256 * 1024;
+
+	/**
+	 * Identifies the file format, "ML" followed by the version 1.
+	 */
+	static final int MAGIC = 0x4d4c0001;
+
+	static final int MAGIC_OFFSET = 0;
+
+	static final int CAPACITY_OFFSET = 4;
+
+	static final int HEAD_OFFSET = 8;
+
+	static final int USED_OFFSET = 12;
+
+	static final int HEADER_SIZE = 16;
+
+	/**
+	 * The charset of the records.
+	 */
+	static final Charset CHARSET = Charset.forName("UTF-8");
+
+	/**
+	 * The size of the length that precedes the text of a record.
+	 */
+	static final int LENGTH_SIZE = 4;
+
+	private static final int MIN_FILE_SIZE = HEADER_SIZE + LENGTH_SIZE + 1;
+
+	private static final int PREALLOCATION_CHUNK_SIZE = 8192;
+
+	private String fileName = DEFAULT_FILENAME;
+
+	private File logFile;
+
+	private int fileSize = DEFAULT_FILE_SIZE;
+
+	private RandomAccessFile randomAccessFile;
+
+	private MappedByteBuffer buffer;
+
+	private int capacity;
+
+	private int head;
+
+	private int used;
+
+	private TextEncoder encoder;
+
+	/**
+	 * Create an appender that logs to a file on the external storage. Note:
+	 * your application must hold android.permission.WRITE_EXTERNAL_STORAGE to
+	 * be able to access the SDCard.
+	 */
+	public CircularFileAppender() {
+	}
+
+	/**
+	 * Create an appender that logs to the specified file.
+	 * 
+	 * @param logFile
+	 *            the file to log to.
+	 * @throws IllegalArgumentException
+	 *             if the <code>logFile</code> is <code>null</code>.
+	 */
+	public CircularFileAppender(File logFile) throws IllegalArgumentException {
+		if (logFile == null) {
+			throw new IllegalArgumentException("The log file must not be null.");
+		}
+
+		this.logFile = logFile;
+	}
+
+	/**
+	 * Open the file and map it. The records in the file are kept, unless the
+	 * file has another size or is not a circular log file.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#open()
+	 */
+	@Override
+	public synchronized void open() throws IOException {
+		File file = getLogFile();
+		logOpen = false;
+
+		if (file != null) {
+			randomAccessFile = new RandomAccessFile(file, "rw");
+			boolean preallocated = randomAccessFile.length() == fileSize;
+
+			if (!preallocated) {
+				preallocate();
+			}
+
+			buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+			capacity = fileSize - HEADER_SIZE;
+
+			if (!preallocated || !readHeader()) {
+				writeEmptyHeader();
+			}
+
+			encoder = new TextEncoder(CHARSET);
+			logOpen = true;
+		}
+	}
+
+	/**
+	 * Discard all the records.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#clear()
+	 */
+	@Override
+	public synchronized void clear() {
+		if (buffer != null && logOpen) {
+			writeEmptyHeader();
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		Log.i(TAG, "Closing the CircularFileAppender");
+
+		try {
+			if (buffer != null && logOpen) {
+				buffer.force();
+			}
+		} finally {
+			logOpen = false;
+			buffer = null;
+
+			if (randomAccessFile != null) {
+				randomAccessFile.close();
+				randomAccessFile = null;
+			}
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#doLog(java.lang.String,
+	 *      java.lang.String, long, com.google.code.microlog4android.Level,
+	 *      java.lang.Object, java.lang.Throwable)
+	 */
+	@Override
+	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
+		if (logOpen && formatter != null) {
+			write(formatter.format(clientID, name, time, level, message, throwable));
+		} else if (formatter == null) {
+			Log.e(TAG, "Please set a formatter.");
+		}
+	}
+
+	/**
+	 * Log the event by formatting it into a reused builder and encoding it into
+	 * the next record.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		if (logOpen && formatter != null) {
+			StringBuilder builder = obtainBuilder();
+
+			try {
+				formatter.format(event, builder);
+				write(builder);
+			} finally {
+				releaseBuilder(builder);
+			}
+		} else if (formatter == null) {
+			Log.e(TAG, "Please set a formatter.");
+		}
+	}
+
+	/**
+	 * Get the number of bytes used by the records. The size of the file is
+	 * always <code>fileSize</code>.
+	 * 
+	 * @see com.google.code.microlog4android.appender.Appender#getLogSize()
+	 */
+	public synchronized long getLogSize() {
+		if (buffer == null || !logOpen) {
+			return Appender.SIZE_UNDEFINED;
+		}
+
+		return used;
+	}
+
+	public String[] getPropertyNames() {
+		return PROPERTY_NAMES;
+	}
+
+	public void setProperty(String name, String value) {
+		if (name.equals(FILE_PROPERTY)) {
+			setFileName(value);
+		} else if (name.equals(FILE_SIZE_PROPERTY)) {
+			try {
+				setFileSize(Integer.parseInt(value.trim()));
+			} catch (IllegalArgumentException e) {
+				Log.e(TAG, value + " is not a valid file size");
+			}
+		}
+	}
+
+	/**
+	 * Set the name of the file on the external storage.
+	 * 
+	 * @param fileName
+	 *            the filename to log to
+	 */
+	public void setFileName(String fileName) {
+		if (fileName != null) {
+			this.fileName = fileName;
+		}
+	}
+
+	/**
+	 * Set the size of the file, including the header. The size is applied when
+	 * the log is opened. A file of another size is started over.
+	 * 
+	 * @param fileSize
+	 *            the file size in bytes (default = 256 kB)
+	 * @throws IllegalArgumentException
+	 *             if the <code>fileSize</code> is too small to hold a record.
+	 */
+	public synchronized void setFileSize(int fileSize) throws IllegalArgumentException {
+		if (fileSize < MIN_FILE_SIZE) {
+			throw new IllegalArgumentException("The file size must be at least " + MIN_FILE_SIZE + ".");
+		}
+
+		this.fileSize = fileSize;
+	}
+
+	/**
+	 * @return the size of the file in bytes.
+	 */
+	public synchronized int getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * @return the file to log to, or <code>null</code> if the external
+	 *         storage is not available.
+	 */
+	public File getLogFile() {
+		if (logFile == null) {
+			if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED)) {
+				logFile = new File(Environment.getExternalStorageDirectory(), fileName);
+			} else {
+				Log.e(TAG, "Unable to open log file from external storage");
+			}
+		}
+
+		return logFile;
+	}
+
+	/**
+	 * Write the text as the newest record, overwriting the oldest records that
+	 * are in the way. A text that does not fit in the file is cut off.
+	 */
+	private synchronized void write(CharSequence text) {
+		if (buffer == null || !logOpen) {
+			return;
+		}
+
+		encoder.encode(text);
+		int length = Math.min(encoder.getLength(), capacity - LENGTH_SIZE);
+		int recordSize = LENGTH_SIZE + length;
+
+		while (capacity - used < recordSize) {
+			int oldestSize = LENGTH_SIZE + readInt(head);
+
+			if (oldestSize < LENGTH_SIZE || oldestSize > used) {
+				Log.e(TAG, "The log file is corrupt and is started over.");
+				writeEmptyHeader();
+				break;
+			}
+
+			head = (head + oldestSize) % capacity;
+			used -= oldestSize;
+
+			// The head is moved first. If the process dies before the used
+			// size is written, the header still starts at a whole record
+			// and no longer points at the bytes that the new record reuses.
+			// At worst the used size is too large by the evicted record, so
+			// a reader finds the end of the records late, but it never
+			// starts in the middle of a record.
+			buffer.putInt(HEAD_OFFSET, head);
+			buffer.putInt(USED_OFFSET, used);
+		}
+
+		int tail = (head + used) % capacity;
+		writeInt(tail, length);
+		writeBytes((tail + LENGTH_SIZE) % capacity, encoder.getBytes(), length);
+
+		used += recordSize;
+		buffer.putInt(USED_OFFSET, used);
+	}
+
+	/**
+	 * Read the header of an existing file.
+	 * 
+	 * @return <code>true</code> if the header is valid for this file.
+	 */
+	private boolean readHeader() {
+		if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(CAPACITY_OFFSET) != capacity) {
+			return false;
+		}
+
+		head = buffer.getInt(HEAD_OFFSET);
+		used = buffer.getInt(USED_OFFSET);
+		return head >= 0 && head < capacity && used >= 0 && used <= capacity;
+	}
+
+	private void writeEmptyHeader() {
+		head = 0;
+		used = 0;
+		buffer.putInt(MAGIC_OFFSET, MAGIC);
+		buffer.putInt(CAPACITY_OFFSET, capacity);
+		buffer.putInt(HEAD_OFFSET, head);
+		buffer.putInt(USED_OFFSET, used);
+	}
+
+	/**
+	 * Give the file its full size by writing zeros, so that the disk space is
+	 * allocated up front rather than when the pages are written.
+	 */
+	private void preallocate() throws IOException {
+		randomAccessFile.setLength(0);
+		randomAccessFile.seek(0);
+
+		byte[] zeros = new byte[Math.min(fileSize, PREALLOCATION_CHUNK_SIZE)];
+		int remaining = fileSize;
+
+		while (remaining > 0) {
+			int count = Math.min(remaining, zeros.length);
+			randomAccessFile.write(zeros, 0, count);
+			remaining -= count;
+		}
+	}
+
+	private int readInt(int position) {
+		int value = 0;
+
+		for (int index = 0; index < LENGTH_SIZE; index++) {
+			value = (value << 8) | (buffer.get(HEADER_SIZE + (position + index) % capacity) & 0xff);
+		}
+
+		return value;
+	}
+
+	private void writeInt(int position, int value) {
+		for (int index = 0; index < LENGTH_SIZE; index++) {
+			int shift = 8 * (LENGTH_SIZE - 1 - index);
+			buffer.put(HEADER_SIZE + (position + index) % capacity, (byte) (value >>> shift));
+		}
+	}
+
+	private void writeBytes(int position, byte[] bytes, int length) {
+		int firstLength = Math.min(length, capacity - position);
+
+		buffer.position(HEADER_SIZE + position);
+		buffer.put(bytes, 0, firstLength);
+
+		if (firstLength < length) {
+			buffer.position(HEADER_SIZE);
+			buffer.put(bytes, firstLength, length - firstLength);
+		}
+	}
+}
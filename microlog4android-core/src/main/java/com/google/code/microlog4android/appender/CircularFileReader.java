@@ -0,0 +1,163 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the records of a file written by a <code>CircularFileAppender</code>,
+ * oldest first, e.g.
+ * 
+ * <pre>
+ * for (String record : new CircularFileReader(file)) {
+ * 	System.out.println(record);
+ * }
+ * </pre>
+ * 
+ * The whole file is read when the reader is created, so the reader is not
+ * affected by an appender that keeps on logging to the file. The iteration
+ * stops at a record whose length does not fit in the file, which is what a
+ * record that was being written when the process crashed may look like.
+ */
+public final class CircularFileReader implements Iterable<String> {
+	private final ByteBuffer data;
+
+	private final int head;
+
+	private final int used;
+
+	/**
+	 * Read a file written by a <code>CircularFileAppender</code>. The records
+	 * are decoded as UTF-8, which is what the appender always writes.
+	 * 
+	 * @param file
+	 *            the file to read.
+	 * @throws IOException
+	 *             if the file could not be read or is not a circular log
+	 *             file.
+	 */
+	public CircularFileReader(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		byte[] bytes;
+
+		try {
+			long length = randomAccessFile.length();
+
+			if (length < CircularFileAppender.HEADER_SIZE || length > Integer.MAX_VALUE) {
+				throw new IOException(file + " is not a circular log file.");
+			}
+
+			bytes = new byte[(int) length];
+			randomAccessFile.readFully(bytes);
+		} finally {
+			randomAccessFile.close();
+		}
+
+		ByteBuffer contents = ByteBuffer.wrap(bytes);
+		int capacity = bytes.length - CircularFileAppender.HEADER_SIZE;
+
+		if (contents.getInt(CircularFileAppender.MAGIC_OFFSET) != CircularFileAppender.MAGIC
+				|| contents.getInt(CircularFileAppender.CAPACITY_OFFSET) != capacity) {
+			throw new IOException(file + " is not a circular log file.");
+		}
+
+		head = contents.getInt(CircularFileAppender.HEAD_OFFSET);
+		used = contents.getInt(CircularFileAppender.USED_OFFSET);
+
+		if (head < 0 || head >= capacity || used < 0 || used > capacity) {
+			throw new IOException("The header of " + file + " is corrupt.");
+		}
+
+		contents.position(CircularFileAppender.HEADER_SIZE);
+		data = contents.slice();
+	}
+
+	/**
+	 * @return the number of bytes used by the records.
+	 */
+	public int getUsedSize() {
+		return used;
+	}
+
+	/**
+	 * @return an iterator over the records, oldest first.
+	 */
+	public Iterator<String> iterator() {
+		return new RecordIterator();
+	}
+
+	private final class RecordIterator implements Iterator<String> {
+		private int position = head;
+
+		private int remaining = used;
+
+		private byte[] record = new byte[0];
+
+		public boolean hasNext() {
+			if (remaining < CircularFileAppender.LENGTH_SIZE) {
+				return false;
+			}
+
+			int length = readLength();
+			return length >= 0 && length <= remaining - CircularFileAppender.LENGTH_SIZE;
+		}
+
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			int length = readLength();
+			int capacity = data.capacity();
+
+			if (record.length < length) {
+				record = new byte[length];
+			}
+
+			int start = (position + CircularFileAppender.LENGTH_SIZE) % capacity;
+			for (int index = 0; index < length; index++) {
+				record[index] = data.get((start + index) % capacity);
+			}
+
+			position = (start + length) % capacity;
+			remaining -= CircularFileAppender.LENGTH_SIZE + length;
+			return CircularFileAppender.CHARSET.decode(ByteBuffer.wrap(record, 0, length)).toString();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * @return the length of the next record, which is negative if it is
+		 *         corrupt.
+		 */
+		private int readLength() {
+			int capacity = data.capacity();
+			int value = 0;
+
+			for (int index = 0; index < CircularFileAppender.LENGTH_SIZE; index++) {
+				value = (value << 8) | (data.get((position + index) % capacity) & 0xff);
+			}
+
+			return value;
+		}
+	}
+}
@@ -3,28 +3,52 @@ package com.google.code.microlog4android.appender;
 import java.io.IOException;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 public class ConsoleAppender extends AbstractAppender {
 	private static final String[] PROPERTY_NAMES = new String[] {};
 	
 	@Override
 	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable t) {
-		if (formatter != null) {
-			switch (level) {
-			case FATAL:
-			case ERROR:
-			case WARN:
-			case INFO:
-			case DEBUG:
-			case TRACE:
-				System.out.println(formatter.format(clientID, name, time, level, message, t));
-				break;
-			default:
-				break;
+		if (formatter != null && isPrinted(level)) {
+			System.out.println(formatter.format(clientID, name, time, level, message, t));
+		}
+	}
+
+	/**
+	 * Log the event with its own timestamp and thread name, formatted into a
+	 * reused builder.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		if (formatter != null && isPrinted(event.getLevel())) {
+			StringBuilder builder = obtainBuilder();
+			
+			try {
+				formatter.format(event, builder);
+				System.out.println(builder);
+			} finally {
+				releaseBuilder(builder);
 			}
 		}
 	}
 
+	private static boolean isPrinted(Level level) {
+		switch (level) {
+		case FATAL:
+		case ERROR:
+		case WARN:
+		case INFO:
+		case DEBUG:
+		case TRACE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
 	@Override
 	public void clear() {
 		// Nothing to do
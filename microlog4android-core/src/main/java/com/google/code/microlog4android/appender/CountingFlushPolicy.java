@@ -0,0 +1,74 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * A <code>FlushPolicy</code> that flushes after every <code>n</code>
+ * events.
+ */
+public class CountingFlushPolicy implements FlushPolicy {
+	public static final int DEFAULT_COUNT = 32;
+
+	private final int count;
+
+	private int unflushedCount;
+
+	/**
+	 * Create a policy that flushes after every <code>DEFAULT_COUNT</code>
+	 * events.
+	 */
+	public CountingFlushPolicy() {
+		this(DEFAULT_COUNT);
+	}
+
+	/**
+	 * Create a policy that flushes after every <code>count</code> events.
+	 * 
+	 * @param count
+	 *            the number of events to write between the flushes.
+	 * @throws IllegalArgumentException
+	 *             if the <code>count</code> is less than 1.
+	 */
+	public CountingFlushPolicy(int count) throws IllegalArgumentException {
+		if (count < 1) {
+			throw new IllegalArgumentException("The count must be at least 1.");
+		}
+
+		this.count = count;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FlushPolicy#flushAfterWrite(com.google.code.microlog4android.Level)
+	 */
+	public boolean flushAfterWrite(Level level) {
+		unflushedCount++;
+
+		if (unflushedCount >= count) {
+			unflushedCount = 0;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FlushPolicy#flushed()
+	 */
+	public void flushed() {
+		unflushedCount = 0;
+	}
+}
@@ -22,6 +22,7 @@ import java.net.InetAddress;
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 
 
@@ -36,7 +37,7 @@ import com.google.code.microlog4android.Level;
 public class DatagramAppender extends AbstractAppender {
 	private static final String TAG = "Microlog.DatagramAppender";
 	
-	private static final String[] PROPERTY_NAMES = new String[] { "host", "port" };
+	private static final String[] PROPERTY_NAMES = new String[] { "host", "port", "garbageFree" };
 	
 	public static final String DEFAULT_HOST = "127.0.0.1";
 
@@ -50,6 +51,10 @@ public class DatagramAppender extends AbstractAppender {
 
 	private DatagramPacket datagramPacket;
 
+	private boolean garbageFree = false;
+
+	private final TextEncoder encoder = new TextEncoder();
+
 	/**
 	 * @see com.google.code.microlog4android.appender.AbstractAppender#open()
 	 */
@@ -81,6 +86,34 @@ public class DatagramAppender extends AbstractAppender {
 		}
 	}
 
+	/**
+	 * Log the event with its own timestamp and thread name. In the garbage
+	 * free mode the event is formatted into a reused builder and encoded into
+	 * a reused byte array, so that nothing is allocated per event for
+	 * <code>String</code> and boxed primitive messages, provided that the
+	 * formatter does not allocate either.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		if (logOpen && formatter != null) {
+			StringBuilder builder = obtainBuilder();
+
+			try {
+				formatter.format(event, builder);
+				
+				if (garbageFree) {
+					sendMessage(builder);
+				} else {
+					sendMessage(builder.toString());
+				}
+			} finally {
+				releaseBuilder(builder);
+			}
+		}
+	}
+
 	/**
 	 * Send the specified message as a <code>Datagram</code>.
 	 * 
@@ -90,7 +123,26 @@ public class DatagramAppender extends AbstractAppender {
 	public void sendMessage(String message) {
 
 		byte[] datagramData = message.getBytes();
-		datagramPacket.setData(datagramData);
+
+		synchronized (this) {
+			send(datagramData, datagramData.length);
+		}
+	}
+
+	/**
+	 * Send the specified message as a <code>Datagram</code>. The message is
+	 * encoded into a reused byte array.
+	 * 
+	 * @param message
+	 *            the message to send.
+	 */
+	public synchronized void sendMessage(CharSequence message) {
+		encoder.encode(message);
+		send(encoder.getBytes(), encoder.getLength());
+	}
+
+	private void send(byte[] datagramData, int length) {
+		datagramPacket.setData(datagramData, 0, length);
 
 		try {
 			datagramSocket.send(datagramPacket);
@@ -143,10 +195,27 @@ public class DatagramAppender extends AbstractAppender {
 		}
 	}
 	
+	/**
+	 * Set if the garbage free mode shall be used, in which the events are
+	 * formatted and encoded into buffers that are reused.
+	 * 
+	 * @param garbageFree
+	 *            the garbage free mode to set (default = false)
+	 */
+	public void setGarbageFree(boolean garbageFree) {
+		this.garbageFree = garbageFree;
+	}
+	
+	public void setGarbageFree(String garbageFree) {
+		this.garbageFree = Boolean.parseBoolean(garbageFree);
+	}
+	
 	public void setProperty(String name, String value) {
 		if (name.equals("host"))
 			host = value;
 		else if (name.equals("port")) 
 			setPort(value);
+		else if (name.equals("garbageFree"))
+			setGarbageFree(value);
 	}
 }
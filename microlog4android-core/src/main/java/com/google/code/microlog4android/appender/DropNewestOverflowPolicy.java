@@ -0,0 +1,40 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * An <code>OverflowPolicy</code> that discards the new event when the buffer is
+ * full. The logging thread never waits.
+ */
+public class DropNewestOverflowPolicy implements OverflowPolicy {
+
+	/**
+	 * @see com.google.code.microlog4android.appender.OverflowPolicy#discardBeforeOffer(com.google.code.microlog4android.appender.LogEventRingBuffer,
+	 *      com.google.code.microlog4android.Level)
+	 */
+	public boolean discardBeforeOffer(LogEventRingBuffer buffer, Level level) {
+		return false;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.OverflowPolicy#onBufferFull(com.google.code.microlog4android.appender.LogEventRingBuffer,
+	 *      com.google.code.microlog4android.Level, long)
+	 */
+	public boolean onBufferFull(LogEventRingBuffer buffer, Level level, long firstAttemptNanos) {
+		return false;
+	}
+}
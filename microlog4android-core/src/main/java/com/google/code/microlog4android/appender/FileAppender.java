@@ -14,11 +14,17 @@
  */
 package com.google.code.microlog4android.appender;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.lang.reflect.Method;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import android.content.Context;
 import android.os.Build;
@@ -26,25 +32,88 @@ import android.os.Environment;
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * An appender to log to a file in on the SDCard.
  * 
+ * The file is written through a buffer of <code>bufferSize</code> bytes, and a
+ * <code>FlushPolicy</code> decides when the buffer is flushed to the file. By
+ * default every event is flushed. Flushing every <code>n</code> events, every
+ * <code>t</code> milliseconds or only on close lets a burst of events reach
+ * the file in one write, and the <code>flushLevel</code> property still has
+ * the important events flushed right away, e.g.
+ * 
+ * <pre>
+ * microlog.appender.FileAppender.flushPolicy=Count
+ * microlog.appender.FileAppender.flushCount=64
+ * microlog.appender.FileAppender.flushLevel=ERROR
+ * </pre>
+ * 
+ * With the <code>Interval</code> policy the buffer is also flushed by a
+ * background timer, so that the last events of a burst do not wait for the
+ * next event to reach the file.
+ * 
  * @author Johan Karlsson
  * @author Dan Walkes
  * 
  */
 public class FileAppender extends AbstractAppender {
 	private static final String TAG = "Microlog.FileAppender";
-	private static final String[] PROPERTY_NAMES = new String[] { "file", "append" };
+
+	public static final String BUFFER_SIZE_PROPERTY = "bufferSize";
+
+	public static final String FLUSH_POLICY_PROPERTY = "flushPolicy";
+
+	public static final String FLUSH_COUNT_PROPERTY = "flushCount";
+
+	public static final String FLUSH_INTERVAL_PROPERTY = "flushInterval";
+
+	public static final String FLUSH_LEVEL_PROPERTY = "flushLevel";
+
+	public static final String IMMEDIATE_FLUSH_POLICY = "Immediate";
+
+	public static final String COUNT_FLUSH_POLICY = "Count";
+
+	public static final String INTERVAL_FLUSH_POLICY = "Interval";
+
+	public static final String ON_CLOSE_FLUSH_POLICY = "OnClose";
+
+	private static final String[] PROPERTY_NAMES = new String[] { "file", "append", "garbageFree",
+			BUFFER_SIZE_PROPERTY, FLUSH_POLICY_PROPERTY, FLUSH_COUNT_PROPERTY, FLUSH_INTERVAL_PROPERTY,
+			FLUSH_LEVEL_PROPERTY };
+	
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 	
 	public static final String DEFAULT_FILENAME = "microlog.txt";
+
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
 	
 	private String fileName = DEFAULT_FILENAME;
 
 	private PrintWriter writer;
 
+	private OutputStream outputStream;
+
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+	private FlushPolicy flushPolicy = new ImmediateFlushPolicy();
+
+	private String flushPolicyName = IMMEDIATE_FLUSH_POLICY;
+
+	private int flushCount = CountingFlushPolicy.DEFAULT_COUNT;
+
+	private long flushInterval = IntervalFlushPolicy.DEFAULT_INTERVAL;
+
+	private Level flushLevel;
+
 	private boolean append = false;
+
+	private boolean garbageFree = false;
+
+	private TextEncoder encoder;
+
+	private Timer flushTimer;
 	
 	private File mSdCardLogFile = null;
 	
@@ -88,8 +157,15 @@ public class FileAppender extends AbstractAppender {
 			}
 			
 			FileOutputStream fileOutputStream = new FileOutputStream(logFile, append);
-			writer = new PrintWriter(fileOutputStream);
+			
+			if (garbageFree) {
+				outputStream = new BufferedOutputStream(fileOutputStream, bufferSize);
+				encoder = new TextEncoder();
+			} else {
+				writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(fileOutputStream), bufferSize));
+			}
 			logOpen = true;
+			startFlushTimer();
 		}
 	}
 
@@ -105,11 +181,21 @@ public class FileAppender extends AbstractAppender {
 	 * @see com.google.code.microlog4android.appender.AbstractAppender#close()
 	 */
 	@Override
-	public void close() throws IOException {
+	public synchronized void close() throws IOException {
 		Log.i(TAG, "Closing the FileAppender");
+		stopFlushTimer();
+		
 		if (writer != null) {
 			writer.close();
+			writer = null;
+		}
+		
+		if (outputStream != null) {
+			outputStream.close();
+			outputStream = null;
 		}
+		
+		logOpen = false;
 	}
 
 	/**
@@ -120,18 +206,156 @@ public class FileAppender extends AbstractAppender {
 	@Override
 	public void doLog(String clientID, String name, long time, Level level,
 			Object message, Throwable throwable) {
-		if (logOpen && formatter != null && writer != null) {
-			writer.println(formatter.format(clientID, name, time, level,
-					message, throwable));
-			writer.flush();
+		PrintWriter currentWriter = writer;
+		
+		if (logOpen && formatter != null && currentWriter != null) {
+			String formattedMessage = formatter.format(clientID, name, time, level, message, throwable);
+			
+			synchronized (this) {
+				currentWriter.println(formattedMessage);
+				
+				if (flushPolicy.flushAfterWrite(level)) {
+					currentWriter.flush();
+					flushPolicy.flushed();
+				}
+			}
+		} else if (formatter == null) {
+			Log.e(TAG, "Please set a formatter.");
+		}
 
-			if (throwable != null) {
-				throwable.printStackTrace();
+	}
+
+	/**
+	 * Log the event with its own timestamp and thread name. In the garbage
+	 * free mode the event is formatted into a reused builder and encoded into
+	 * a reused byte array, so that nothing is allocated per event for
+	 * <code>String</code> and boxed primitive messages, provided that the
+	 * formatter does not allocate either.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		OutputStream currentOutputStream = outputStream;
+		
+		if (currentOutputStream == null) {
+			// Not opened in the garbage free mode
+			appendToWriter(event);
+			return;
+		}
+		
+		if (logOpen && formatter != null) {
+			StringBuilder builder = obtainBuilder();
+			
+			try {
+				formatter.format(event, builder);
+				builder.append(LINE_SEPARATOR);
+				
+				synchronized (this) {
+					encoder.encode(builder);
+					currentOutputStream.write(encoder.getBytes(), 0, encoder.getLength());
+					
+					if (flushPolicy.flushAfterWrite(event.getLevel())) {
+						currentOutputStream.flush();
+						flushPolicy.flushed();
+					}
+				}
+			} catch (IOException e) {
+				Log.e(TAG, "Failed to write to the log file. " + e);
+			} finally {
+				releaseBuilder(builder);
 			}
 		} else if (formatter == null) {
 			Log.e(TAG, "Please set a formatter.");
 		}
+	}
 
+	private void appendToWriter(LogEvent event) {
+		PrintWriter currentWriter = writer;
+		
+		if (logOpen && formatter != null && currentWriter != null) {
+			StringBuilder builder = obtainBuilder();
+			
+			try {
+				formatter.format(event, builder);
+				
+				synchronized (this) {
+					currentWriter.println(builder);
+					
+					if (flushPolicy.flushAfterWrite(event.getLevel())) {
+						currentWriter.flush();
+						flushPolicy.flushed();
+					}
+				}
+			} finally {
+				releaseBuilder(builder);
+			}
+		} else if (formatter == null) {
+			Log.e(TAG, "Please set a formatter.");
+		}
+	}
+
+	/**
+	 * Flush the buffered events to the file, whatever the
+	 * <code>FlushPolicy</code> says.
+	 * 
+	 * @throws IOException
+	 *             if the events could not be written.
+	 */
+	public synchronized void flush() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		
+		if (outputStream != null) {
+			outputStream.flush();
+		}
+		
+		flushPolicy.flushed();
+	}
+
+	/**
+	 * Start flushing in the background every <code>interval</code>
+	 * milliseconds, if the flush policy is an <code>IntervalFlushPolicy</code>.
+	 * A subclass that overrides <code>open()</code> shall call this once the
+	 * log is open.
+	 */
+	protected synchronized void startFlushTimer() {
+		long interval = getFlushTimerInterval(flushPolicy);
+		
+		if (interval > 0 && flushTimer == null) {
+			flushTimer = new Timer("Microlog-FileAppender-flush", true);
+			flushTimer.schedule(new TimerTask() {
+				public void run() {
+					try {
+						flush();
+					} catch (IOException e) {
+						Log.e(TAG, "Failed to flush the log file. " + e);
+					}
+				}
+			}, interval, interval);
+		}
+	}
+
+	/**
+	 * Stop the background flushing started by <code>startFlushTimer()</code>.
+	 * A subclass that overrides <code>close()</code> shall call this.
+	 */
+	protected synchronized void stopFlushTimer() {
+		if (flushTimer != null) {
+			flushTimer.cancel();
+			flushTimer = null;
+		}
+	}
+
+	private static long getFlushTimerInterval(FlushPolicy policy) {
+		if (policy instanceof LevelFlushPolicy) {
+			return getFlushTimerInterval(((LevelFlushPolicy) policy).getPolicy());
+		} else if (policy instanceof IntervalFlushPolicy) {
+			return ((IntervalFlushPolicy) policy).getInterval();
+		}
+		
+		return 0;
 	}
 
 	/**
@@ -169,15 +393,155 @@ public class FileAppender extends AbstractAppender {
 		this.append = append;
 	}
 	
+	/**
+	 * @return <code>true</code> if the file is appended to when it is
+	 *         opened.
+	 */
+	public boolean isAppend() {
+		return append;
+	}
+	
 	public void setAppend(String append) {
 		this.append = Boolean.parseBoolean(append);
 	}
+	
+	/**
+	 * Set if the garbage free mode shall be used. The file is then written
+	 * without a <code>PrintWriter</code>, and the events are formatted and
+	 * encoded into buffers that are reused. The mode is applied when the log
+	 * is opened.
+	 * 
+	 * @param garbageFree
+	 *            the garbage free mode to set (default = false)
+	 */
+	public void setGarbageFree(boolean garbageFree) {
+		this.garbageFree = garbageFree;
+	}
+	
+	public void setGarbageFree(String garbageFree) {
+		this.garbageFree = Boolean.parseBoolean(garbageFree);
+	}
+
+	/**
+	 * Set the size of the write buffer. The size is applied when the log is
+	 * opened.
+	 * 
+	 * @param bufferSize
+	 *            the buffer size in bytes (default = 8192)
+	 * @throws IllegalArgumentException
+	 *             if the <code>bufferSize</code> is less than 1.
+	 */
+	public void setBufferSize(int bufferSize) throws IllegalArgumentException {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("The buffer size must be at least 1.");
+		}
+		
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * @return the size of the write buffer in bytes.
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Get the policy that decides when the buffer is flushed.
+	 * 
+	 * @return the flush policy.
+	 */
+	public synchronized FlushPolicy getFlushPolicy() {
+		return flushPolicy;
+	}
+
+	/**
+	 * Set the policy that decides when the buffer is flushed. The background
+	 * flushing of an <code>IntervalFlushPolicy</code> is started when the log
+	 * is opened.
+	 * 
+	 * @param flushPolicy
+	 *            the flush policy to use.
+	 * @throws IllegalArgumentException
+	 *             if the <code>flushPolicy</code> is <code>null</code>.
+	 */
+	public synchronized void setFlushPolicy(FlushPolicy flushPolicy) throws IllegalArgumentException {
+		if (flushPolicy == null) {
+			throw new IllegalArgumentException("The flush policy must not be null.");
+		}
+		
+		this.flushPolicy = flushPolicy;
+	}
 
 	public void setProperty(String name, String value) {
 		if (name.equals("append"))
 			setAppend(value);
 		else if (name.equals("file"))
 			setFileName(value);
+		else if (name.equals("garbageFree"))
+			setGarbageFree(value);
+		else if (name.equals(BUFFER_SIZE_PROPERTY)) {
+			try {
+				setBufferSize(Integer.parseInt(value.trim()));
+			} catch (IllegalArgumentException e) {
+				Log.e(TAG, value + " is not a valid buffer size");
+			}
+		} else if (name.equals(FLUSH_POLICY_PROPERTY)) {
+			flushPolicyName = value.trim();
+			configureFlushPolicy();
+		} else if (name.equals(FLUSH_COUNT_PROPERTY)) {
+			try {
+				flushCount = Integer.parseInt(value.trim());
+				configureFlushPolicy();
+			} catch (NumberFormatException e) {
+				Log.e(TAG, value + " is not a valid count");
+			}
+		} else if (name.equals(FLUSH_INTERVAL_PROPERTY)) {
+			try {
+				flushInterval = Long.parseLong(value.trim());
+				configureFlushPolicy();
+			} catch (NumberFormatException e) {
+				Log.e(TAG, value + " is not a valid interval");
+			}
+		} else if (name.equals(FLUSH_LEVEL_PROPERTY)) {
+			try {
+				flushLevel = Level.valueOf(value.trim());
+				configureFlushPolicy();
+			} catch (IllegalArgumentException e) {
+				Log.e(TAG, value + " is not a valid level");
+			}
+		}
+	}
+
+	/**
+	 * Create the flush policy from the flush properties.
+	 */
+	private void configureFlushPolicy() {
+		FlushPolicy policy;
+		
+		try {
+			if (flushPolicyName.equals(IMMEDIATE_FLUSH_POLICY)) {
+				policy = new ImmediateFlushPolicy();
+			} else if (flushPolicyName.equals(COUNT_FLUSH_POLICY)) {
+				policy = new CountingFlushPolicy(flushCount);
+			} else if (flushPolicyName.equals(INTERVAL_FLUSH_POLICY)) {
+				policy = new IntervalFlushPolicy(flushInterval);
+			} else if (flushPolicyName.equals(ON_CLOSE_FLUSH_POLICY)) {
+				policy = new OnCloseFlushPolicy();
+			} else {
+				Log.e(TAG, "Unrecognized flush policy " + flushPolicyName);
+				return;
+			}
+		} catch (IllegalArgumentException e) {
+			Log.e(TAG, "Invalid flush policy settings. " + e);
+			return;
+		}
+		
+		if (flushLevel != null) {
+			policy = new LevelFlushPolicy(flushLevel, policy);
+		}
+		
+		setFlushPolicy(policy);
 	}
 	
 	/**
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import android.util.Log;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * A file appender that writes through a <code>FileChannel</code> instead of a
+ * <code>PrintWriter</code>. The events are formatted into a reused builder and
+ * encoded straight into a reused direct <code>ByteBuffer</code>, which is
+ * written to the channel when the <code>FlushPolicy</code> says so or when it
+ * is full. Text that is plain ASCII is copied into the buffer without the
+ * <code>CharsetEncoder</code>, provided that the charset is ASCII compatible.
+ * Text that does not fit in the buffer is encoded into a second buffer and
+ * both buffers are written with one gathering write.
+ * 
+ * The file, the buffer size and the flush policy are configured like for the
+ * <code>FileAppender</code>. The <code>garbageFree</code> property has no
+ * effect, since nothing is allocated per event anyway.
+ */
+public class FileChannelAppender extends FileAppender {
+	private static final String TAG = "Microlog.FileChannelAppender";
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private static final int MAX_ASCII = 0x7f;
+
+	private static final String[] ASCII_COMPATIBLE_CHARSETS = { "US-ASCII", "UTF-8", "ISO-8859-1" };
+
+	private final Charset charset;
+
+	private final boolean asciiCompatible;
+
+	private FileOutputStream fileOutputStream;
+
+	private FileChannel channel;
+
+	private ByteBuffer byteBuffer;
+
+	private ByteBuffer spillBuffer;
+
+	private final ByteBuffer[] gatheringBuffers = new ByteBuffer[2];
+
+	private CharsetEncoder encoder;
+
+	private long logSize;
+
+	private char[] chars = new char[256];
+
+	private CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+	/**
+	 * Create an appender that writes in the default charset of the platform.
+	 */
+	public FileChannelAppender() {
+		this(Charset.defaultCharset());
+	}
+
+	/**
+	 * Create an appender that writes in the specified charset.
+	 * 
+	 * @param charset
+	 *            the charset to encode the events with.
+	 * @throws IllegalArgumentException
+	 *             if the <code>charset</code> is <code>null</code>.
+	 */
+	public FileChannelAppender(Charset charset) throws IllegalArgumentException {
+		if (charset == null) {
+			throw new IllegalArgumentException("The charset must not be null.");
+		}
+
+		this.charset = charset;
+		this.asciiCompatible = isAsciiCompatible(charset);
+	}
+
+	private static boolean isAsciiCompatible(Charset charset) {
+		for (int index = 0; index < ASCII_COMPATIBLE_CHARSETS.length; index++) {
+			if (charset.name().equals(ASCII_COMPATIBLE_CHARSETS[index])) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FileAppender#open()
+	 */
+	@Override
+	public synchronized void open() throws IOException {
+		File logFile = getLogFile();
+		logOpen = false;
+
+		if (logFile != null) {
+			fileOutputStream = new FileOutputStream(logFile, isAppend());
+			channel = fileOutputStream.getChannel();
+			logSize = channel.size();
+
+			// The direct buffers are kept when the file is reopened, e.g. by
+			// the RollingFileAppender, unless the buffer size was changed.
+			if (byteBuffer == null || byteBuffer.capacity() != getBufferSize()) {
+				byteBuffer = ByteBuffer.allocateDirect(getBufferSize());
+				spillBuffer = ByteBuffer.allocateDirect(getBufferSize());
+			} else {
+				byteBuffer.clear();
+			}
+
+			if (encoder == null) {
+				encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(
+						CodingErrorAction.REPLACE);
+			}
+			logOpen = true;
+			startFlushTimer();
+		}
+	}
+
+	/**
+	 * Discard what has been logged to the file.
+	 * 
+	 * @see com.google.code.microlog4android.appender.FileAppender#clear()
+	 */
+	@Override
+	public synchronized void clear() {
+		if (channel != null && logOpen) {
+			try {
+				byteBuffer.clear();
+				channel.truncate(0);
+				logSize = 0;
+			} catch (IOException e) {
+				Log.e(TAG, "Failed to clear the log file. " + e);
+			}
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FileAppender#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		Log.i(TAG, "Closing the FileChannelAppender");
+		stopFlushTimer();
+
+		try {
+			if (channel != null && logOpen) {
+				writeBuffer();
+			}
+		} finally {
+			logOpen = false;
+
+			if (fileOutputStream != null) {
+				fileOutputStream.close();
+				fileOutputStream = null;
+				channel = null;
+			}
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FileAppender#flush()
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		if (channel != null && logOpen) {
+			writeBuffer();
+			getFlushPolicy().flushed();
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FileAppender#doLog(java.lang.String,
+	 *      java.lang.String, long, com.google.code.microlog4android.Level,
+	 *      java.lang.Object, java.lang.Throwable)
+	 */
+	@Override
+	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
+		if (logOpen && formatter != null) {
+			write(formatter.format(clientID, name, time, level, message, throwable) + LINE_SEPARATOR, level);
+		} else if (formatter == null) {
+			Log.e(TAG, "Please set a formatter.");
+		}
+	}
+
+	/**
+	 * Log the event by formatting it into a reused builder and encoding it into
+	 * the buffer of the channel.
+	 * 
+	 * @see com.google.code.microlog4android.appender.FileAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		if (logOpen && formatter != null) {
+			StringBuilder builder = obtainBuilder();
+
+			try {
+				formatter.format(event, builder);
+				builder.append(LINE_SEPARATOR);
+				write(builder, event.getLevel());
+			} finally {
+				releaseBuilder(builder);
+			}
+		} else if (formatter == null) {
+			Log.e(TAG, "Please set a formatter.");
+		}
+	}
+
+	/**
+	 * @return the size of the file, including what is buffered but not yet
+	 *         written.
+	 * @see com.google.code.microlog4android.appender.FileAppender#getLogSize()
+	 */
+	@Override
+	public synchronized long getLogSize() {
+		if (channel == null || !logOpen) {
+			return Appender.SIZE_UNDEFINED;
+		}
+
+		return logSize;
+	}
+
+	private synchronized void write(CharSequence text, Level level) {
+		if (channel == null || !logOpen) {
+			return;
+		}
+
+		try {
+			if (!putAscii(text)) {
+				putEncoded(text);
+			}
+
+			FlushPolicy flushPolicy = getFlushPolicy();
+
+			if (flushPolicy.flushAfterWrite(level)) {
+				writeBuffer();
+				flushPolicy.flushed();
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to write to the log file. " + e);
+		}
+	}
+
+	/**
+	 * Copy the text into the buffer if it is plain ASCII. The buffer is
+	 * written to the channel first if the text does not fit in what is left
+	 * of it.
+	 * 
+	 * @return <code>true</code> if the text was copied.
+	 */
+	private boolean putAscii(CharSequence text) throws IOException {
+		int length = text.length();
+
+		if (!asciiCompatible || length > byteBuffer.capacity()) {
+			return false;
+		}
+
+		if (length > byteBuffer.remaining()) {
+			writeBuffer();
+		}
+
+		int startPosition = byteBuffer.position();
+
+		for (int index = 0; index < length; index++) {
+			char c = text.charAt(index);
+
+			if (c > MAX_ASCII) {
+				byteBuffer.position(startPosition);
+				return false;
+			}
+
+			byteBuffer.put((byte) c);
+		}
+
+		logSize += length;
+		return true;
+	}
+
+	/**
+	 * Encode the text into the spill buffer, and then either move it into the
+	 * buffer or write both buffers with one gathering write. A text that does
+	 * not fit in the spill buffer is encoded into a larger heap buffer, which
+	 * is dropped after the write, so that one large event does not keep a
+	 * large direct buffer for the life of the appender.
+	 */
+	private void putEncoded(CharSequence text) throws IOException {
+		int length = text.length();
+
+		if (length > chars.length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+			charBuffer = CharBuffer.wrap(chars);
+		}
+
+		if (text instanceof StringBuilder) {
+			((StringBuilder) text).getChars(0, length, chars, 0);
+		} else if (text instanceof String) {
+			((String) text).getChars(0, length, chars, 0);
+		} else {
+			for (int index = 0; index < length; index++) {
+				chars[index] = text.charAt(index);
+			}
+		}
+
+		charBuffer.clear();
+		charBuffer.limit(length);
+		ByteBuffer encoded = spillBuffer;
+		encoded.clear();
+		encoder.reset();
+
+		CoderResult result = encoder.encode(charBuffer, encoded, true);
+		while (result.isOverflow()) {
+			encoded = grow(encoded);
+			result = encoder.encode(charBuffer, encoded, true);
+		}
+
+		while (encoder.flush(encoded).isOverflow()) {
+			encoded = grow(encoded);
+		}
+
+		encoded.flip();
+		logSize += encoded.remaining();
+
+		if (encoded.remaining() <= byteBuffer.remaining()) {
+			byteBuffer.put(encoded);
+			return;
+		}
+
+		byteBuffer.flip();
+		gatheringBuffers[0] = byteBuffer;
+		gatheringBuffers[1] = encoded;
+
+		try {
+			while (encoded.hasRemaining()) {
+				channel.write(gatheringBuffers);
+			}
+		} finally {
+			gatheringBuffers[1] = null;
+		}
+
+		byteBuffer.clear();
+	}
+
+	private static ByteBuffer grow(ByteBuffer buffer) {
+		ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+		buffer.flip();
+		grown.put(buffer);
+		return grown;
+	}
+
+	/**
+	 * Write the buffer to the channel.
+	 */
+	private void writeBuffer() throws IOException {
+		byteBuffer.flip();
+
+		while (byteBuffer.hasRemaining()) {
+			channel.write(byteBuffer);
+		}
+
+		byteBuffer.clear();
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * Decides when a buffering appender, e.g. the <code>FileAppender</code>,
+ * flushes what it has written. Flushing less often lets a burst of events
+ * reach the file in one write, at the price of losing the events that are
+ * not yet flushed if the process dies.
+ * 
+ * A policy is only called while the appender holds its lock, so it does not
+ * need to be thread safe. Everything that is buffered is always flushed when
+ * the appender is closed.
+ */
+public interface FlushPolicy {
+
+	/**
+	 * Called each time an event has been written.
+	 * 
+	 * @param level
+	 *            the level of the event.
+	 * @return <code>true</code> if the appender shall flush now.
+	 */
+	boolean flushAfterWrite(Level level);
+
+	/**
+	 * Called each time the appender has flushed, whatever the reason was; an
+	 * event that this policy did not ask for, a flush timer or an explicit
+	 * call to <code>flush()</code>.
+	 */
+	void flushed();
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * A <code>FlushPolicy</code> that flushes after every event. Nothing is lost
+ * if the process dies, but every event costs a write to the file.
+ */
+public class ImmediateFlushPolicy implements FlushPolicy {
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FlushPolicy#flushAfterWrite(com.google.code.microlog4android.Level)
+	 */
+	public boolean flushAfterWrite(Level level) {
+		return true;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FlushPolicy#flushed()
+	 */
+	public void flushed() {
+		// Nothing to keep track of
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * A <code>FlushPolicy</code> that flushes when an event is written at least
+ * <code>interval</code> milliseconds after the previous flush. The policy
+ * itself is only asked when an event is written, so the
+ * <code>FileAppender</code> also flushes every <code>interval</code>
+ * milliseconds in the background, which gets the last events of a burst to
+ * the file without waiting for the next event.
+ */
+public class IntervalFlushPolicy implements FlushPolicy {
+	public static final long DEFAULT_INTERVAL = 1000;
+
+	private final long interval;
+
+	private final long intervalNanos;
+
+	private long lastFlushNanos = System.nanoTime();
+
+	/**
+	 * Create a policy that flushes at most every
+	 * <code>DEFAULT_INTERVAL</code> milliseconds.
+	 */
+	public IntervalFlushPolicy() {
+		this(DEFAULT_INTERVAL);
+	}
+
+	/**
+	 * Create a policy that flushes at most every <code>interval</code>
+	 * milliseconds.
+	 * 
+	 * @param interval
+	 *            the time between the flushes (in milliseconds).
+	 * @throws IllegalArgumentException
+	 *             if the <code>interval</code> is negative.
+	 */
+	public IntervalFlushPolicy(long interval) throws IllegalArgumentException {
+		if (interval < 0) {
+			throw new IllegalArgumentException("The interval must not be negative.");
+		}
+
+		this.interval = interval;
+		this.intervalNanos = interval * 1000000L;
+	}
+
+	/**
+	 * @return the time between the flushes (in milliseconds).
+	 */
+	public long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FlushPolicy#flushAfterWrite(com.google.code.microlog4android.Level)
+	 */
+	public boolean flushAfterWrite(Level level) {
+		long now = System.nanoTime();
+
+		if (now - lastFlushNanos >= intervalNanos) {
+			lastFlushNanos = now;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FlushPolicy#flushed()
+	 */
+	public void flushed() {
+		lastFlushNanos = System.nanoTime();
+	}
+}
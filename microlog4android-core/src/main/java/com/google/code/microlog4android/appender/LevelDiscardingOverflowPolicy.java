@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * An <code>OverflowPolicy</code> that sacrifices the less important events
+ * first. When the buffer is running full, events below the configured level
+ * are discarded up front to keep room for the others. Events at or above the
+ * configured level wait for room when the buffer is full.
+ * 
+ * <code>ERROR</code> and <code>FATAL</code> events are never discarded,
+ * whatever level is configured.
+ */
+public class LevelDiscardingOverflowPolicy implements OverflowPolicy {
+
+	/**
+	 * The default part of the buffer, in percent, that is kept for events at
+	 * or above the configured level.
+	 */
+	public static final int DEFAULT_RESERVED_PERCENT = 20;
+
+	private final int levelInt;
+
+	private final int reservedPercent;
+
+	private final BlockingOverflowPolicy blockingPolicy = new BlockingOverflowPolicy();
+
+	/**
+	 * Create a policy that discards events below the specified level.
+	 * 
+	 * @param level
+	 *            events below this level are discarded first.
+	 * @throws IllegalArgumentException
+	 *             if the <code>level</code> is <code>null</code>.
+	 */
+	public LevelDiscardingOverflowPolicy(Level level) throws IllegalArgumentException {
+		this(level, DEFAULT_RESERVED_PERCENT);
+	}
+
+	/**
+	 * Create a policy that discards events below the specified level.
+	 * 
+	 * @param level
+	 *            events below this level are discarded first.
+	 * @param reservedPercent
+	 *            the part of the buffer, in percent, that is kept for events
+	 *            at or above the level.
+	 * @throws IllegalArgumentException
+	 *             if the <code>level</code> is <code>null</code> or the
+	 *             <code>reservedPercent</code> is not between 0 and 100.
+	 */
+	public LevelDiscardingOverflowPolicy(Level level, int reservedPercent) throws IllegalArgumentException {
+		if (level == null) {
+			throw new IllegalArgumentException("The level must not be null.");
+		}
+
+		if (reservedPercent < 0 || reservedPercent > 100) {
+			throw new IllegalArgumentException("The reserved percent must be between 0 and 100.");
+		}
+
+		this.levelInt = Math.min(level.toInt(), Level.ERROR_INT);
+		this.reservedPercent = reservedPercent;
+	}
+
+	/**
+	 * Discard the event if it is below the level and the reserved part of the
+	 * buffer has been reached.
+	 * 
+	 * @see com.google.code.microlog4android.appender.OverflowPolicy#discardBeforeOffer(com.google.code.microlog4android.appender.LogEventRingBuffer,
+	 *      com.google.code.microlog4android.Level)
+	 */
+	public boolean discardBeforeOffer(LogEventRingBuffer buffer, Level level) {
+		if (level.toInt() >= levelInt) {
+			return false;
+		}
+
+		int capacity = buffer.getCapacity();
+		int remaining = capacity - buffer.size();
+
+		return remaining * 100 <= capacity * reservedPercent;
+	}
+
+	/**
+	 * Discard the event if it is below the level, otherwise wait for room.
+	 * 
+	 * @see com.google.code.microlog4android.appender.OverflowPolicy#onBufferFull(com.google.code.microlog4android.appender.LogEventRingBuffer,
+	 *      com.google.code.microlog4android.Level, long)
+	 */
+	public boolean onBufferFull(LogEventRingBuffer buffer, Level level, long firstAttemptNanos) {
+		if (level.toInt() < levelInt) {
+			return false;
+		}
+
+		return blockingPolicy.onBufferFull(buffer, level, firstAttemptNanos);
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * A <code>FlushPolicy</code> that flushes right away after events at or above
+ * a level, e.g. so that an error is in the file before the application may
+ * crash, and otherwise leaves the decision to another policy.
+ */
+public class LevelFlushPolicy implements FlushPolicy {
+	private final int levelInt;
+
+	private final FlushPolicy policy;
+
+	/**
+	 * Create a policy that flushes after events at or above the level.
+	 * 
+	 * @param level
+	 *            the lowest level that is flushed right away.
+	 * @param policy
+	 *            the policy that decides for the other events.
+	 * @throws IllegalArgumentException
+	 *             if the <code>level</code> or the <code>policy</code> is
+	 *             <code>null</code>.
+	 */
+	public LevelFlushPolicy(Level level, FlushPolicy policy) throws IllegalArgumentException {
+		if (level == null) {
+			throw new IllegalArgumentException("The level must not be null.");
+		}
+
+		if (policy == null) {
+			throw new IllegalArgumentException("The policy must not be null.");
+		}
+
+		this.levelInt = level.toInt();
+		this.policy = policy;
+	}
+
+	/**
+	 * @return the policy that decides for the events below the level.
+	 */
+	public FlushPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FlushPolicy#flushAfterWrite(com.google.code.microlog4android.Level)
+	 */
+	public boolean flushAfterWrite(Level level) {
+		// Always ask the other policy, so that it keeps track of the events.
+		boolean flush = policy.flushAfterWrite(level);
+
+		return flush || (level != null && level.toInt() >= levelInt);
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FlushPolicy#flushed()
+	 */
+	public void flushed() {
+		policy.flushed();
+	}
+}
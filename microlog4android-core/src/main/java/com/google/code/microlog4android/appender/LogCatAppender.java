@@ -5,6 +5,7 @@ import java.io.IOException;
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 public class LogCatAppender extends AbstractAppender {
 	private static final String[] PROPERTY_NAMES = new String[] { "tag" };
@@ -18,32 +19,56 @@ public class LogCatAppender extends AbstractAppender {
 	@Override
 	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable t) {
 		if (logOpen && formatter != null) {
-			String localTag = tag == null ? clientID : tag;
-			
-			switch (level) {
-			case FATAL:
-			case ERROR:
-				Log.e(localTag, formatter.format(clientID, name, time, level, message, t));
-				break;
-			
-			case WARN:
-				Log.w(localTag, formatter.format(clientID, name, time, level, message, t));
-				break;
+			log(clientID, level, formatter.format(clientID, name, time, level, message, t));
+		}
+	}
+
+	/**
+	 * Log the event with its own timestamp and thread name, formatted into a
+	 * reused builder.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		if (logOpen && formatter != null) {
+			StringBuilder builder = obtainBuilder();
 			
-			case INFO:
-				Log.i(localTag, formatter.format(clientID, name, time, level, message, t));
-				break;
-				
-			case DEBUG:
-			case TRACE:
-				Log.d(localTag, formatter.format(clientID, name, time, level, message, t));
-				break;
-			default:
-				break;
+			try {
+				formatter.format(event, builder);
+				log(event.getClientID(), event.getLevel(), builder.toString());
+			} finally {
+				releaseBuilder(builder);
 			}
 		}
 	}
 
+	private void log(String clientID, Level level, String formattedMessage) {
+		String localTag = tag == null ? clientID : tag;
+		
+		switch (level) {
+		case FATAL:
+		case ERROR:
+			Log.e(localTag, formattedMessage);
+			break;
+		
+		case WARN:
+			Log.w(localTag, formattedMessage);
+			break;
+		
+		case INFO:
+			Log.i(localTag, formattedMessage);
+			break;
+			
+		case DEBUG:
+		case TRACE:
+			Log.d(localTag, formattedMessage);
+			break;
+		default:
+			break;
+		}
+	}
+
 	@Override
 	public void open() throws IOException {
 		logOpen = true;
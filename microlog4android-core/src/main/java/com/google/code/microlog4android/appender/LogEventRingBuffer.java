@@ -0,0 +1,284 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import android.util.Log;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * A bounded, lock-free ring buffer of log events. Any number of threads may
+ * offer events, while the events are normally taken out by a single dispatcher
+ * thread. Logging threads may also take out events, which is how an
+ * <code>OverflowPolicy</code> drops the oldest event.
+ *
+ * Each slot carries a sequence number that tells producers and consumers
+ * whether the slot is free, being written or ready to be read. A producer
+ * claims a position with a CAS on the tail counter, fills in the preallocated
+ * slot and then publishes it by advancing the slot sequence. No locks are
+ * taken and no objects are created when an event is offered.
+ */
+public final class LogEventRingBuffer {
+	private static final String TAG = "Microlog.LogEventRingBuffer";
+
+	private final LogEvent[] slots;
+
+	private final AtomicLongArray sequences;
+
+	private final int mask;
+
+	private final AtomicLong tail = new AtomicLong();
+
+	private final AtomicLong head = new AtomicLong();
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/**
+	 * Create a ring buffer that holds at least <code>capacity</code> events.
+	 * The capacity is rounded up to the nearest power of two, and is never
+	 * less than two since the slot sequences could not tell a free slot from
+	 * a published one otherwise.
+	 *
+	 * @param capacity
+	 *            the minimum number of events the buffer can hold.
+	 * @throws IllegalArgumentException
+	 *             if the <code>capacity</code> is less than 1.
+	 */
+	public LogEventRingBuffer(int capacity) throws IllegalArgumentException {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be at least 1.");
+		}
+
+		int size = 2;
+		while (size < capacity) {
+			size <<= 1;
+		}
+
+		mask = size - 1;
+		slots = new LogEvent[size];
+		sequences = new AtomicLongArray(size);
+
+		for (int index = 0; index < size; index++) {
+			slots[index] = new LogEvent();
+			sequences.set(index, index);
+		}
+	}
+
+	/**
+	 * Offer an event to the buffer. The event is copied into a preallocated
+	 * slot, so the caller may reuse it as soon as this method returns.
+	 *
+	 * @return <code>true</code> if the event was stored, <code>false</code> if
+	 *         the buffer is full.
+	 */
+	public boolean offer(LogEvent event) {
+		long position = claimTail();
+
+		if (position < 0) {
+			return false;
+		}
+
+		int index = (int) position & mask;
+		slots[index].copyFrom(event);
+		sequences.set(index, position + 1);
+		return true;
+	}
+
+	/**
+	 * Offer an event to the buffer.
+	 *
+	 * @return <code>true</code> if the event was stored, <code>false</code> if
+	 *         the buffer is full.
+	 */
+	public boolean offer(String clientID, String name, long time, Level level, Object message, Throwable t) {
+		long position = claimTail();
+
+		if (position < 0) {
+			return false;
+		}
+
+		int index = (int) position & mask;
+		slots[index].set(clientID, name, time, level, message, t, Thread.currentThread().getName());
+		sequences.set(index, position + 1);
+		return true;
+	}
+
+	/**
+	 * Claim the next free slot for writing.
+	 *
+	 * @return the claimed position, or -1 if the buffer is full.
+	 */
+	private long claimTail() {
+		long position = tail.get();
+
+		for (;;) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					return position;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				return -1;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Take the oldest event out of the buffer and pass it to the specified
+	 * appenders.
+	 *
+	 * @param appenders
+	 *            the appenders to log the event to.
+	 * @return <code>true</code> if an event was dispatched, <code>false</code>
+	 *         if there was no published event to take.
+	 */
+	public boolean dispatchNext(Appender[] appenders) {
+		long position = claimHead();
+
+		if (position < 0) {
+			return false;
+		}
+
+		int index = (int) position & mask;
+		LogEvent slot = slots[index];
+
+		try {
+			for (int i = 0; i < appenders.length; i++) {
+				try {
+					appenders[i].append(slot);
+				} catch (Throwable t) {
+					// An Error such as a StackOverflowError from a recursive
+					// toString() must not kill the dispatcher either.
+					Log.e(TAG, "Appender " + appenders[i] + " failed to log the event. " + t);
+				}
+			}
+		} finally {
+			// The slot is always released, otherwise the producers would
+			// wait for it forever once the buffer has wrapped around.
+			slot.clear();
+			sequences.set(index, position + mask + 1);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Take the oldest event out of the buffer without logging it. The event is
+	 * counted as dropped.
+	 *
+	 * @return <code>true</code> if an event was discarded, <code>false</code>
+	 *         if there was no published event to take.
+	 */
+	public boolean discardOldest() {
+		long position = claimHead();
+
+		if (position < 0) {
+			return false;
+		}
+
+		int index = (int) position & mask;
+		slots[index].clear();
+		sequences.set(index, position + mask + 1);
+		droppedCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Count an event that was discarded instead of being offered to the
+	 * buffer.
+	 */
+	public void recordDropped() {
+		droppedCount.incrementAndGet();
+	}
+
+	/**
+	 * Get the number of events that have been dropped since the buffer was
+	 * created.
+	 *
+	 * @return the number of dropped events.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Check if there are no events in the buffer.
+	 *
+	 * @return <code>true</code> if the buffer is empty.
+	 */
+	public boolean isEmpty() {
+		return head.get() >= tail.get();
+	}
+
+	/**
+	 * Get the approximate number of events in the buffer.
+	 *
+	 * @return the number of events in the buffer.
+	 */
+	public int size() {
+		long size = tail.get() - head.get();
+
+		if (size < 0) {
+			size = 0;
+		} else if (size > slots.length) {
+			size = slots.length;
+		}
+
+		return (int) size;
+	}
+
+	/**
+	 * Get the number of events the buffer can hold.
+	 *
+	 * @return the capacity of the buffer.
+	 */
+	public int getCapacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Claim the oldest published slot for reading.
+	 *
+	 * @return the claimed position, or -1 if there was no published event.
+	 */
+	private long claimHead() {
+		long position = head.get();
+
+		for (;;) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - (position + 1);
+
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					return position;
+				}
+				position = head.get();
+			} else if (difference < 0) {
+				return -1;
+			} else {
+				position = head.get();
+			}
+		}
+	}
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import android.os.Environment;
+import android.util.Log;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+
+/**
+ * An appender that logs to a memory mapped file. The file is mapped one region
+ * of <code>regionSize</code> bytes at a time, and the events are encoded
+ * straight into the mapped region. When a region is full the next region of
+ * the file is mapped. A write is a copy into memory, and the operating system
+ * writes the pages to the file. The events that were logged are therefore not
+ * lost if the process crashes, although they may be if the device does.
+ * 
+ * While the log is open the file is up to a region larger than what has been
+ * logged. The unused space is truncated when the log is closed. If the
+ * process crashed, the file ends with zero bytes, which are skipped when the
+ * file is opened in the append mode.
+ * 
+ * The file is placed on the external storage, unless it is given to the
+ * constructor.
+ */
+public class MemoryMappedFileAppender extends AbstractAppender {
+	private static final String TAG = "Microlog.MemoryMappedFileAppender";
+
+	public static final String FILE_PROPERTY = "file";
+
+	public static final String APPEND_PROPERTY = "append";
+
+	public static final String REGION_SIZE_PROPERTY = "regionSize";
+
+	private static final String[] PROPERTY_NAMES = new String[] { FILE_PROPERTY, APPEND_PROPERTY,
+			REGION_SIZE_PROPERTY };
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	public static final String DEFAULT_FILENAME = "microlog.txt";
+
+	public static final int DEFAULT_REGION_SIZE = 256 * 1024;
+
+	private String fileName = DEFAULT_FILENAME;
+
+	private File logFile;
+
+	private boolean append = false;
+
+	private int regionSize = DEFAULT_REGION_SIZE;
+
+	private RandomAccessFile randomAccessFile;
+
+	private FileChannel channel;
+
+	private MappedByteBuffer region;
+
+	private long regionPosition;
+
+	private TextEncoder encoder;
+
+	/**
+	 * Create an appender that logs to a file on the external storage. Note:
+	 * your application must hold android.permission.WRITE_EXTERNAL_STORAGE to
+	 * be able to access the SDCard.
+	 */
+	public MemoryMappedFileAppender() {
+	}
+
+	/**
+	 * Create an appender that logs to the specified file.
+	 * 
+	 * @param logFile
+	 *            the file to log to.
+	 * @throws IllegalArgumentException
+	 *             if the <code>logFile</code> is <code>null</code>.
+	 */
+	public MemoryMappedFileAppender(File logFile) throws IllegalArgumentException {
+		if (logFile == null) {
+			throw new IllegalArgumentException("The log file must not be null.");
+		}
+
+		this.logFile = logFile;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#open()
+	 */
+	@Override
+	public synchronized void open() throws IOException {
+		File file = getLogFile();
+		logOpen = false;
+
+		if (file != null) {
+			randomAccessFile = new RandomAccessFile(file, "rw");
+			channel = randomAccessFile.getChannel();
+
+			long position = 0;
+			if (append) {
+				position = findEndOfLog();
+			} else {
+				// Drop the old content, which would otherwise be left after
+				// the new events if the process dies before the log is closed.
+				channel.truncate(0);
+			}
+
+			encoder = new TextEncoder();
+			mapRegion(position);
+			logOpen = true;
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#clear()
+	 */
+	@Override
+	public synchronized void clear() {
+		if (channel != null && logOpen) {
+			try {
+				region = null;
+				regionPosition = 0;
+				channel.truncate(0);
+				mapRegion(0);
+			} catch (IOException e) {
+				Log.e(TAG, "Failed to clear the log file. " + e);
+			}
+		}
+	}
+
+	/**
+	 * Close the log and truncate the unused space at the end of the file.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		Log.i(TAG, "Closing the MemoryMappedFileAppender");
+
+		try {
+			if (channel != null && logOpen) {
+				long logSize = getLogSize();
+
+				// The region is null if it could not be mapped, in which
+				// case the log ends where the new region would have started.
+				if (region != null) {
+					region.force();
+					region = null;
+				}
+
+				channel.truncate(logSize);
+			}
+		} finally {
+			logOpen = false;
+
+			if (randomAccessFile != null) {
+				randomAccessFile.close();
+				randomAccessFile = null;
+				channel = null;
+			}
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#doLog(java.lang.String,
+	 *      java.lang.String, long, com.google.code.microlog4android.Level,
+	 *      java.lang.Object, java.lang.Throwable)
+	 */
+	@Override
+	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
+		if (logOpen && formatter != null) {
+			write(formatter.format(clientID, name, time, level, message, throwable) + LINE_SEPARATOR);
+		} else if (formatter == null) {
+			Log.e(TAG, "Please set a formatter.");
+		}
+	}
+
+	/**
+	 * Log the event by formatting it into a reused builder and encoding it into
+	 * the mapped region.
+	 * 
+	 * @see com.google.code.microlog4android.appender.AbstractAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		if (logOpen && formatter != null) {
+			StringBuilder builder = obtainBuilder();
+
+			try {
+				formatter.format(event, builder);
+				builder.append(LINE_SEPARATOR);
+				write(builder);
+			} finally {
+				releaseBuilder(builder);
+			}
+		} else if (formatter == null) {
+			Log.e(TAG, "Please set a formatter.");
+		}
+	}
+
+	/**
+	 * Get the number of bytes that have been logged to the file, which is
+	 * what the size of the file is when it has been closed.
+	 * 
+	 * @see com.google.code.microlog4android.appender.Appender#getLogSize()
+	 */
+	public synchronized long getLogSize() {
+		if (!logOpen) {
+			return Appender.SIZE_UNDEFINED;
+		}
+
+		if (region == null) {
+			return regionPosition;
+		}
+
+		return regionPosition + region.position();
+	}
+
+	public String[] getPropertyNames() {
+		return PROPERTY_NAMES;
+	}
+
+	public void setProperty(String name, String value) {
+		if (name.equals(FILE_PROPERTY)) {
+			setFileName(value);
+		} else if (name.equals(APPEND_PROPERTY)) {
+			setAppend(Boolean.parseBoolean(value));
+		} else if (name.equals(REGION_SIZE_PROPERTY)) {
+			try {
+				setRegionSize(Integer.parseInt(value.trim()));
+			} catch (IllegalArgumentException e) {
+				Log.e(TAG, value + " is not a valid region size");
+			}
+		}
+	}
+
+	/**
+	 * Set the name of the file on the external storage.
+	 * 
+	 * @param fileName
+	 *            the filename to log to
+	 */
+	public void setFileName(String fileName) {
+		if (fileName != null) {
+			this.fileName = fileName;
+		}
+	}
+
+	/**
+	 * Set if the file shall be appended to or if it shall be started over
+	 * when the log is opened.
+	 * 
+	 * @param append
+	 *            the append to set (default = false)
+	 */
+	public void setAppend(boolean append) {
+		this.append = append;
+	}
+
+	/**
+	 * Set the number of bytes that are mapped at a time. The size is applied
+	 * when the next region is mapped.
+	 * 
+	 * @param regionSize
+	 *            the region size in bytes (default = 256 kB)
+	 * @throws IllegalArgumentException
+	 *             if the <code>regionSize</code> is less than 1.
+	 */
+	public synchronized void setRegionSize(int regionSize) throws IllegalArgumentException {
+		if (regionSize < 1) {
+			throw new IllegalArgumentException("The region size must be at least 1.");
+		}
+
+		this.regionSize = regionSize;
+	}
+
+	/**
+	 * @return the number of bytes that are mapped at a time.
+	 */
+	public synchronized int getRegionSize() {
+		return regionSize;
+	}
+
+	/**
+	 * @return the file to log to, or <code>null</code> if the external
+	 *         storage is not available.
+	 */
+	public File getLogFile() {
+		if (logFile == null) {
+			if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED)) {
+				logFile = new File(Environment.getExternalStorageDirectory(), fileName);
+			} else {
+				Log.e(TAG, "Unable to open log file from external storage");
+			}
+		}
+
+		return logFile;
+	}
+
+	private synchronized void write(CharSequence text) {
+		if (region == null || !logOpen) {
+			return;
+		}
+
+		encoder.encode(text);
+		byte[] bytes = encoder.getBytes();
+		int offset = 0;
+		int length = encoder.getLength();
+
+		try {
+			while (length > region.remaining()) {
+				int count = region.remaining();
+				region.put(bytes, offset, count);
+				offset += count;
+				length -= count;
+				mapRegion(regionPosition + region.position());
+			}
+
+			region.put(bytes, offset, length);
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to map the log file. " + e);
+		}
+	}
+
+	/**
+	 * Map the region of the file that starts at the specified position. The
+	 * file grows to the end of the region. If the mapping fails, the region is
+	 * left <code>null</code> and the log ends at the position.
+	 */
+	private void mapRegion(long position) throws IOException {
+		region = null;
+		regionPosition = position;
+		region = channel.map(FileChannel.MapMode.READ_WRITE, position, regionSize);
+	}
+
+	/**
+	 * Find the end of what has been logged to the file, i.e. the length of the
+	 * file without the trailing zero bytes left by a process that did not
+	 * close the log.
+	 */
+	private long findEndOfLog() throws IOException {
+		long end = channel.size();
+		ByteBuffer tail = ByteBuffer.allocate((int) Math.min(end, regionSize));
+
+		while (end > 0) {
+			long start = Math.max(0, end - tail.capacity());
+			tail.clear();
+			tail.limit((int) (end - start));
+
+			while (tail.hasRemaining() && channel.read(tail, start + tail.position()) >= 0) {
+				// Read until the buffer is full
+			}
+
+			for (int index = tail.position() - 1; index >= 0; index--) {
+				if (tail.get(index) != 0) {
+					return start + index + 1;
+				}
+			}
+
+			end = start;
+		}
+
+		return 0;
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import com.google.code.microlog4android.Level;
+
+/**
+ * Decides what happens to an event when the buffer of an
+ * <code>AsyncAppender</code> is full, or about to become full. Every event
+ * that is discarded is counted by the <code>LogEventRingBuffer</code>.
+ */
+public interface OverflowPolicy {
+
+	/**
+	 * Check if the event shall be discarded before it is offered to the
+	 * buffer. This makes it possible to keep room for more important events.
+	 * 
+	 * @param buffer
+	 *            the buffer the event is about to be offered to.
+	 * @param level
+	 *            the level of the event.
+	 * @return <code>true</code> if the event shall be discarded.
+	 */
+	boolean discardBeforeOffer(LogEventRingBuffer buffer, Level level);
+
+	/**
+	 * Called when the event could not be offered because the buffer is full.
+	 * The policy may wait, or make room by discarding other events.
+	 * 
+	 * @param buffer
+	 *            the full buffer.
+	 * @param level
+	 *            the level of the event.
+	 * @param firstAttemptNanos
+	 *            the <code>System.nanoTime()</code> of the first failed
+	 *            attempt to offer the event.
+	 * @return <code>true</code> if the event shall be offered again,
+	 *         <code>false</code> if it shall be discarded.
+	 */
+	boolean onBufferFull(LogEventRingBuffer buffer, Level level, long firstAttemptNanos);
+}
@@ -0,0 +1,617 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import android.util.Log;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.Logger;
+
+/**
+ * A file appender that rolls the log file over when it has grown to
+ * <code>maxFileSize</code> bytes or when a time window of
+ * <code>rollInterval</code> milliseconds has passed, e.g.
+ * 
+ * <pre>
+ * microlog.appender.A1=RollingFileAppender
+ * microlog.appender.A1.maxFileSize=1048576
+ * microlog.appender.A1.rollInterval=86400000
+ * microlog.appender.A1.maxArchives=5
+ * microlog.appender.A1.maxTotalSize=5242880
+ * </pre>
+ * 
+ * The time windows are aligned to midnight in the default time zone, so a
+ * <code>rollInterval</code> of one day rolls the file over at midnight.
+ * 
+ * When the file rolls over it is renamed to <code>microlog.txt.n</code>, where
+ * <code>n</code> is one more than for the previous archive, and a new file is
+ * started. Only the rename is done on the logging thread. A background thread
+ * then gzips the archive into <code>microlog.txt.n.gz</code> and deletes the
+ * oldest archives, until there are no more than <code>maxArchives</code> of
+ * them and they take up no more than <code>maxTotalSize</code> bytes.
+ * 
+ * If the file cannot be renamed, the events keep going to it and the
+ * rollover is tried again <code>RENAME_RETRY_DELAY</code> milliseconds later.
+ * 
+ * Unlike the other file appenders, the events are appended to the file by
+ * default, so that what was logged before a restart is kept and rolled over
+ * with the rest.
+ */
+public class RollingFileAppender extends FileChannelAppender {
+	private static final String TAG = "Microlog.RollingFileAppender";
+
+	public static final String MAX_FILE_SIZE_PROPERTY = "maxFileSize";
+
+	public static final String ROLL_INTERVAL_PROPERTY = "rollInterval";
+
+	public static final String MAX_ARCHIVES_PROPERTY = "maxArchives";
+
+	public static final String MAX_TOTAL_SIZE_PROPERTY = "maxTotalSize";
+
+	public static final String COMPRESS_PROPERTY = "compress";
+
+	private static final String[] ROLLING_PROPERTY_NAMES = new String[] { MAX_FILE_SIZE_PROPERTY,
+			ROLL_INTERVAL_PROPERTY, MAX_ARCHIVES_PROPERTY, MAX_TOTAL_SIZE_PROPERTY, COMPRESS_PROPERTY };
+
+	public static final long DEFAULT_MAX_FILE_SIZE = 1024 * 1024;
+
+	public static final int DEFAULT_MAX_ARCHIVES = 5;
+
+	public static final long DEFAULT_MAX_TOTAL_SIZE = 5 * 1024 * 1024;
+
+	/**
+	 * The roll interval that turns off the time based rollover.
+	 */
+	public static final long NO_ROLL_INTERVAL = 0;
+
+	public static final String COMPRESSED_SUFFIX = ".gz";
+
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	/**
+	 * The longest time <code>close()</code> waits for the background thread
+	 * to finish the archives.
+	 */
+	private static final long CLOSE_TIMEOUT = 10000;
+
+	/**
+	 * The time to wait before the file is rolled over again, after it could
+	 * not be renamed.
+	 */
+	static final long RENAME_RETRY_DELAY = 10000;
+
+	private static int archiverCount;
+
+	private long maxFileSize = DEFAULT_MAX_FILE_SIZE;
+
+	private long rollInterval = NO_ROLL_INTERVAL;
+
+	private int maxArchives = DEFAULT_MAX_ARCHIVES;
+
+	private long maxTotalSize = DEFAULT_MAX_TOTAL_SIZE;
+
+	private boolean compress = true;
+
+	private long nextRollTime = Long.MAX_VALUE;
+
+	private long nextRenameTime = Long.MIN_VALUE;
+
+	private long nextArchiveIndex;
+
+	private ExecutorService archiver;
+
+	/**
+	 * Create an appender that writes in the default charset of the platform.
+	 */
+	public RollingFileAppender() {
+		setAppend(true);
+	}
+
+	/**
+	 * Create an appender that writes in the specified charset.
+	 * 
+	 * @param charset
+	 *            the charset to encode the events with.
+	 * @throws IllegalArgumentException
+	 *             if the <code>charset</code> is <code>null</code>.
+	 */
+	public RollingFileAppender(Charset charset) throws IllegalArgumentException {
+		super(charset);
+		setAppend(true);
+	}
+
+	/**
+	 * Open the log file and start the background thread. The archives that
+	 * are left uncompressed or over the limits since the last time are taken
+	 * care of by the background thread.
+	 * 
+	 * @see com.google.code.microlog4android.appender.FileChannelAppender#open()
+	 */
+	@Override
+	public synchronized void open() throws IOException {
+		super.open();
+
+		if (logOpen) {
+			nextArchiveIndex = findLastArchiveIndex() + 1;
+			nextRollTime = computeNextRollTime(Logger.getClock().currentTimeMillis());
+
+			archiver = Executors.newSingleThreadExecutor(new ArchiverThreadFactory());
+			submitArchiving();
+		}
+	}
+
+	/**
+	 * Close the log file and wait for the background thread to finish the
+	 * archives.
+	 * 
+	 * @see com.google.code.microlog4android.appender.FileChannelAppender#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		super.close();
+
+		ExecutorService currentArchiver = archiver;
+		archiver = null;
+
+		if (currentArchiver != null) {
+			currentArchiver.shutdown();
+
+			try {
+				if (!currentArchiver.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					Log.w(TAG, "Closed before the archives were finished.");
+				}
+			} catch (InterruptedException e) {
+				Log.w(TAG, "Interrupted while waiting for the archives to be finished.");
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FileChannelAppender#doLog(java.lang.String,
+	 *      java.lang.String, long, com.google.code.microlog4android.Level,
+	 *      java.lang.Object, java.lang.Throwable)
+	 */
+	@Override
+	public void doLog(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
+		rollOverIfNeeded(Logger.getClock().currentTimeMillis());
+		super.doLog(clientID, name, time, level, message, throwable);
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.appender.FileChannelAppender#append(com.google.code.microlog4android.LogEvent)
+	 */
+	@Override
+	public void append(LogEvent event) {
+		rollOverIfNeeded(event.getTimestamp());
+		super.append(event);
+	}
+
+	/**
+	 * Roll the file over, whatever the size of the file and the time.
+	 */
+	public synchronized void rollOver() {
+		if (!logOpen) {
+			return;
+		}
+
+		File logFile = getLogFile();
+		File archive = new File(logFile.getParentFile(), logFile.getName() + "." + nextArchiveIndex);
+
+		long now = Logger.getClock().currentTimeMillis();
+		nextRollTime = computeNextRollTime(now);
+
+		try {
+			// The file is renamed while it is open, so that the events keep
+			// going to it if it cannot be renamed.
+			flush();
+
+			if (!logFile.renameTo(archive)) {
+				// Keep on logging to the file for a while instead of trying
+				// again, and logging the failure, for every event.
+				nextRenameTime = now + RENAME_RETRY_DELAY;
+				Log.e(TAG, "Failed to rename " + logFile + " to " + archive + ", retrying in "
+						+ RENAME_RETRY_DELAY + " ms");
+				return;
+			}
+
+			nextRenameTime = Long.MIN_VALUE;
+
+			nextArchiveIndex++;
+			super.close();
+			super.open();
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to roll over the log file. " + e);
+		}
+
+		submitArchiving();
+	}
+
+	private synchronized void rollOverIfNeeded(long time) {
+		if (logOpen && time >= nextRenameTime && (getLogSize() >= maxFileSize || time >= nextRollTime)) {
+			rollOver();
+		}
+	}
+
+	/**
+	 * Get the start of the next time window. The windows are aligned to the
+	 * midnight of the default time zone.
+	 */
+	private long computeNextRollTime(long time) {
+		if (rollInterval <= NO_ROLL_INTERVAL) {
+			return Long.MAX_VALUE;
+		}
+
+		long offset = TimeZone.getDefault().getOffset(time);
+		long localTime = time + offset;
+		long windowStart = localTime - (localTime % rollInterval + rollInterval) % rollInterval;
+		return windowStart + rollInterval - offset;
+	}
+
+	private void submitArchiving() {
+		File logFile = getLogFile();
+
+		if (archiver == null || logFile == null) {
+			return;
+		}
+
+		try {
+			archiver.execute(new ArchiveTask(logFile, compress, maxArchives, maxTotalSize));
+		} catch (RejectedExecutionException e) {
+			Log.e(TAG, "Failed to hand the archives over to the background thread. " + e);
+		}
+	}
+
+	private long findLastArchiveIndex() {
+		File[] archives = listArchives(getLogFile());
+		long lastIndex = 0;
+
+		for (int index = 0; index < archives.length; index++) {
+			lastIndex = Math.max(lastIndex, getArchiveIndex(getLogFile(), archives[index]));
+		}
+
+		return lastIndex;
+	}
+
+	/**
+	 * List the archives of the log file, compressed or not.
+	 * 
+	 * @param logFile
+	 *            the log file.
+	 * @return the archives, oldest first.
+	 */
+	static File[] listArchives(final File logFile) {
+		File directory = logFile.getAbsoluteFile().getParentFile();
+		File[] archives = directory == null ? null : directory.listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return getArchiveIndex(logFile, file) > 0;
+			}
+		});
+
+		if (archives == null) {
+			return new File[0];
+		}
+
+		Arrays.sort(archives, new Comparator<File>() {
+			public int compare(File file1, File file2) {
+				long index1 = getArchiveIndex(logFile, file1);
+				long index2 = getArchiveIndex(logFile, file2);
+				return index1 < index2 ? -1 : (index1 == index2 ? 0 : 1);
+			}
+		});
+
+		return archives;
+	}
+
+	/**
+	 * Get the index of an archive, i.e. <code>n</code> for
+	 * <code>microlog.txt.n</code> and <code>microlog.txt.n.gz</code>.
+	 * 
+	 * @return the index or -1 if the file is not an archive of the log file.
+	 */
+	static long getArchiveIndex(File logFile, File file) {
+		String prefix = logFile.getName() + ".";
+		String name = file.getName();
+
+		if (!name.startsWith(prefix)) {
+			return -1;
+		}
+
+		int end = name.endsWith(COMPRESSED_SUFFIX) ? name.length() - COMPRESSED_SUFFIX.length() : name.length();
+		if (end <= prefix.length()) {
+			return -1;
+		}
+
+		long index = 0;
+		for (int charIndex = prefix.length(); charIndex < end; charIndex++) {
+			char c = name.charAt(charIndex);
+
+			if (c < '0' || c > '9' || index > Long.MAX_VALUE / 10 - 1) {
+				return -1;
+			}
+
+			index = index * 10 + (c - '0');
+		}
+
+		return index;
+	}
+
+	public String[] getPropertyNames() {
+		String[] fileProperties = super.getPropertyNames();
+		String[] propertyNames = new String[fileProperties.length + ROLLING_PROPERTY_NAMES.length];
+		System.arraycopy(fileProperties, 0, propertyNames, 0, fileProperties.length);
+		System.arraycopy(ROLLING_PROPERTY_NAMES, 0, propertyNames, fileProperties.length,
+				ROLLING_PROPERTY_NAMES.length);
+		return propertyNames;
+	}
+
+	public void setProperty(String name, String value) {
+		try {
+			if (name.equals(MAX_FILE_SIZE_PROPERTY)) {
+				setMaxFileSize(Long.parseLong(value.trim()));
+			} else if (name.equals(ROLL_INTERVAL_PROPERTY)) {
+				setRollInterval(Long.parseLong(value.trim()));
+			} else if (name.equals(MAX_ARCHIVES_PROPERTY)) {
+				setMaxArchives(Integer.parseInt(value.trim()));
+			} else if (name.equals(MAX_TOTAL_SIZE_PROPERTY)) {
+				setMaxTotalSize(Long.parseLong(value.trim()));
+			} else if (name.equals(COMPRESS_PROPERTY)) {
+				setCompress(Boolean.parseBoolean(value.trim()));
+			} else {
+				super.setProperty(name, value);
+			}
+		} catch (IllegalArgumentException e) {
+			Log.e(TAG, value + " is not a valid " + name);
+		}
+	}
+
+	/**
+	 * Set the size at which the file rolls over.
+	 * 
+	 * @param maxFileSize
+	 *            the size in bytes (default = 1 MB)
+	 * @throws IllegalArgumentException
+	 *             if the <code>maxFileSize</code> is less than 1.
+	 */
+	public synchronized void setMaxFileSize(long maxFileSize) throws IllegalArgumentException {
+		if (maxFileSize < 1) {
+			throw new IllegalArgumentException("The max file size must be at least 1.");
+		}
+
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * Set the length of the time windows after which the file rolls over.
+	 * 
+	 * @param rollInterval
+	 *            the interval in milliseconds, or <code>NO_ROLL_INTERVAL</code>
+	 *            to roll over by size only (default).
+	 * @throws IllegalArgumentException
+	 *             if the <code>rollInterval</code> is negative.
+	 */
+	public synchronized void setRollInterval(long rollInterval) throws IllegalArgumentException {
+		if (rollInterval < 0) {
+			throw new IllegalArgumentException("The roll interval must not be negative.");
+		}
+
+		this.rollInterval = rollInterval;
+		nextRollTime = computeNextRollTime(Logger.getClock().currentTimeMillis());
+	}
+
+	/**
+	 * Set the number of archives to keep.
+	 * 
+	 * @param maxArchives
+	 *            the number of archives (default = 5)
+	 * @throws IllegalArgumentException
+	 *             if the <code>maxArchives</code> is negative.
+	 */
+	public synchronized void setMaxArchives(int maxArchives) throws IllegalArgumentException {
+		if (maxArchives < 0) {
+			throw new IllegalArgumentException("The max number of archives must not be negative.");
+		}
+
+		this.maxArchives = maxArchives;
+	}
+
+	/**
+	 * Set the number of bytes the archives may take up together. The log file
+	 * that is being written is not counted.
+	 * 
+	 * @param maxTotalSize
+	 *            the size in bytes (default = 5 MB)
+	 * @throws IllegalArgumentException
+	 *             if the <code>maxTotalSize</code> is negative.
+	 */
+	public synchronized void setMaxTotalSize(long maxTotalSize) throws IllegalArgumentException {
+		if (maxTotalSize < 0) {
+			throw new IllegalArgumentException("The max total size must not be negative.");
+		}
+
+		this.maxTotalSize = maxTotalSize;
+	}
+
+	/**
+	 * Set if the archives shall be gzipped.
+	 * 
+	 * @param compress
+	 *            the compress to set (default = true)
+	 */
+	public synchronized void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+
+	private static synchronized String nextArchiverName() {
+		return "Microlog-RollingFileAppender-" + (archiverCount++);
+	}
+
+	private static final class ArchiverThreadFactory implements ThreadFactory {
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, nextArchiverName());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	}
+
+	/**
+	 * Compresses the archives of a log file and deletes the oldest archives
+	 * that do not fit within the limits. Runs on the background thread.
+	 */
+	private static final class ArchiveTask implements Runnable {
+		private final File logFile;
+
+		private final boolean compress;
+
+		private final int maxArchives;
+
+		private final long maxTotalSize;
+
+		ArchiveTask(File logFile, boolean compress, int maxArchives, long maxTotalSize) {
+			this.logFile = logFile;
+			this.compress = compress;
+			this.maxArchives = maxArchives;
+			this.maxTotalSize = maxTotalSize;
+		}
+
+		public void run() {
+			deleteTemporaryFiles();
+
+			File[] archives = listArchives(logFile);
+
+			if (compress) {
+				for (int index = 0; index < archives.length; index++) {
+					if (!archives[index].getName().endsWith(COMPRESSED_SUFFIX)) {
+						archives[index] = compress(archives[index]);
+					}
+				}
+			}
+
+			long totalSize = 0;
+			for (int index = 0; index < archives.length; index++) {
+				totalSize += archives[index].length();
+			}
+
+			for (int index = 0; index < archives.length; index++) {
+				if (archives.length - index <= maxArchives && totalSize <= maxTotalSize) {
+					break;
+				}
+
+				totalSize -= archives[index].length();
+				if (!archives[index].delete()) {
+					Log.e(TAG, "Failed to delete the archive " + archives[index]);
+				}
+			}
+		}
+
+		/**
+		 * Delete the partly compressed archives left by a process that died
+		 * while compressing, since they would otherwise never be counted or
+		 * deleted.
+		 */
+		private void deleteTemporaryFiles() {
+			File directory = logFile.getAbsoluteFile().getParentFile();
+			File[] temporaryFiles = directory == null ? null : directory.listFiles(new FileFilter() {
+				public boolean accept(File file) {
+					String name = file.getName();
+
+					if (!name.endsWith(COMPRESSED_SUFFIX + TEMPORARY_SUFFIX)) {
+						return false;
+					}
+
+					File compressed = new File(name.substring(0, name.length() - TEMPORARY_SUFFIX.length()));
+					return getArchiveIndex(logFile, compressed) > 0;
+				}
+			});
+
+			if (temporaryFiles == null) {
+				return;
+			}
+
+			for (int index = 0; index < temporaryFiles.length; index++) {
+				if (!temporaryFiles[index].delete()) {
+					Log.e(TAG, "Failed to delete the temporary file " + temporaryFiles[index]);
+				}
+			}
+		}
+
+		/**
+		 * Gzip the archive. The archive is kept as is if the compression
+		 * fails.
+		 * 
+		 * @return the compressed archive or the archive.
+		 */
+		private File compress(File archive) {
+			File compressed = new File(archive.getPath() + COMPRESSED_SUFFIX);
+			File temporary = new File(compressed.getPath() + TEMPORARY_SUFFIX);
+
+			try {
+				InputStream in = new FileInputStream(archive);
+
+				try {
+					OutputStream out = new GZIPOutputStream(new FileOutputStream(temporary), COPY_BUFFER_SIZE);
+
+					try {
+						byte[] buffer = new byte[COPY_BUFFER_SIZE];
+						int count;
+						while ((count = in.read(buffer)) != -1) {
+							out.write(buffer, 0, count);
+						}
+					} finally {
+						out.close();
+					}
+				} finally {
+					in.close();
+				}
+
+				if (!temporary.renameTo(compressed)) {
+					throw new IOException("Failed to rename " + temporary + " to " + compressed);
+				}
+
+				if (!archive.delete()) {
+					Log.e(TAG, "Failed to delete the compressed archive " + archive);
+				}
+
+				return compressed;
+			} catch (IOException e) {
+				Log.e(TAG, "Failed to compress the archive " + archive + ". " + e);
+				temporary.delete();
+				return archive;
+			}
+		}
+	}
+}
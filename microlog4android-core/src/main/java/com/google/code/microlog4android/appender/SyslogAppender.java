@@ -4,6 +4,7 @@
 package com.google.code.microlog4android.appender;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * 
@@ -38,6 +39,25 @@ public class SyslogAppender extends DatagramAppender {
 		}
 	}
 
+	/**
+	 * Log the event with its timestamp in the syslog header. The garbage free
+	 * mode of the <code>DatagramAppender</code> is not supported, since the
+	 * syslog header is added to the formatted message.
+	 */
+	@Override
+	public void append(LogEvent event) {
+		if (logOpen && formatter != null) {
+			StringBuilder builder = obtainBuilder();
+			
+			try {
+				formatter.format(event, builder);
+				sendMessage(syslogMessage.createMessageData(builder.toString(), event.getTimestamp()));
+			} finally {
+				releaseBuilder(builder);
+			}
+		}
+	}
+
 	/**
 	 * Set the facility that is used when sending message.
 	 * 
@@ -18,9 +18,14 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
 
+import com.google.code.microlog4android.Logger;
+
 /**
  * The <code>SyslogMessage</code> represent a syslog message.
  * 
+ * The message data is created in a buffer that is reused, so
+ * <code>createMessageData</code> is synchronized.
+ * 
  * @author Johan Karlsson
  */
 public class SyslogMessage {
@@ -115,6 +120,24 @@ public class SyslogMessage {
 	 *         data.
 	 */
 	public String createMessageData(String message) {
+		return createMessageData(message, Logger.getClock().currentTimeMillis());
+	}
+
+	/**
+	 * Create the syslog message data with the specified timestamp in the
+	 * header.
+	 * 
+	 * @param message
+	 *            the message to include.
+	 * @param timestamp
+	 *            the time of the event in milliseconds since January 1, 1970
+	 *            UTC.
+	 * @return a <code>String</code> object representing the syslog message
+	 *         data.
+	 */
+	public synchronized String createMessageData(String message, long timestamp) {
+		// The buffer and the calendar are shared by all the logging threads,
+		// which no longer hold a common lock when they call the appenders.
 
 		messageStringBuffer.delete(0, messageStringBuffer.length());
 
@@ -128,8 +151,7 @@ public class SyslogMessage {
 		if (header) {
 			// Add the TIMESTAMP field of the HEADER
 			// Time format is "Mmm dd hh:mm:ss". For more info see rfc3164.
-			long currentTime = System.currentTimeMillis();
-			calendar.setTime(new Date(currentTime));
+			calendar.setTime(new Date(timestamp));
 
 			messageStringBuffer.append(SyslogMessage.MONTHS[calendar
 					.get(Calendar.MONTH)]);
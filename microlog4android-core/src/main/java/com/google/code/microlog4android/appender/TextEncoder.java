@@ -0,0 +1,114 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.appender;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes text into a byte array that is reused for every call. Unlike
+ * <code>String.getBytes()</code> nothing is allocated per call, unless the
+ * text is longer than any text encoded before.
+ *
+ * A <code>TextEncoder</code> is not thread safe.
+ */
+final class TextEncoder {
+	private static final int INITIAL_SIZE = 256;
+
+	private final CharsetEncoder encoder;
+
+	private char[] chars = new char[INITIAL_SIZE];
+
+	private CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+	private ByteBuffer byteBuffer;
+
+	/**
+	 * Create an encoder for the default charset of the platform, which is what
+	 * <code>String.getBytes()</code> uses.
+	 */
+	TextEncoder() {
+		this(Charset.defaultCharset());
+	}
+
+	TextEncoder(Charset charset) {
+		encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(
+				CodingErrorAction.REPLACE);
+		byteBuffer = ByteBuffer.allocate((int) (INITIAL_SIZE * encoder.maxBytesPerChar()));
+	}
+
+	/**
+	 * Encode the text. The result is in <code>getBytes()</code> from index 0
+	 * up to <code>getLength()</code>, and is valid until the next call.
+	 *
+	 * @param text
+	 *            the text to encode.
+	 */
+	void encode(CharSequence text) {
+		int length = text.length();
+
+		if (length > chars.length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+			charBuffer = CharBuffer.wrap(chars);
+		}
+
+		if (text instanceof StringBuilder) {
+			((StringBuilder) text).getChars(0, length, chars, 0);
+		} else if (text instanceof String) {
+			((String) text).getChars(0, length, chars, 0);
+		} else {
+			for (int i = 0; i < length; i++) {
+				chars[i] = text.charAt(i);
+			}
+		}
+
+		charBuffer.clear();
+		charBuffer.limit(length);
+		byteBuffer.clear();
+		encoder.reset();
+
+		while (encoder.encode(charBuffer, byteBuffer, true).isOverflow()) {
+			growByteBuffer();
+		}
+
+		while (encoder.flush(byteBuffer).isOverflow()) {
+			growByteBuffer();
+		}
+	}
+
+	/**
+	 * @return the array that holds the encoded text.
+	 */
+	byte[] getBytes() {
+		return byteBuffer.array();
+	}
+
+	/**
+	 * @return the number of bytes of the encoded text.
+	 */
+	int getLength() {
+		return byteBuffer.position();
+	}
+
+	private void growByteBuffer() {
+		ByteBuffer grown = ByteBuffer.allocate(byteBuffer.capacity() * 2);
+		byteBuffer.flip();
+		grown.put(byteBuffer);
+		byteBuffer = grown;
+	}
+}
@@ -6,6 +6,8 @@ package com.google.code.microlog4android.config;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,11 +21,15 @@ import android.content.res.Resources;
 import android.content.res.Resources.NotFoundException;
 import android.util.Log;
 
+import com.google.code.microlog4android.CachedClock;
+import com.google.code.microlog4android.Clock;
 import com.google.code.microlog4android.Level;
 import com.google.code.microlog4android.Logger;
 import com.google.code.microlog4android.appender.Appender;
+import com.google.code.microlog4android.appender.AppenderAttachable;
 import com.google.code.microlog4android.format.Formatter;
 import com.google.code.microlog4android.repository.DefaultLoggerRepository;
+import com.google.code.microlog4android.repository.LoggerNamesUtil;
 import com.google.code.microlog4android.repository.LoggerRepository;
 
 /**
@@ -55,6 +61,11 @@ public class PropertyConfigurator {
 	 */
 	public static final String LOGGER_PREFIX_KEY = "microlog.logger";
 
+	/**
+	 * The key for setting the additivity of a logger.
+	 */
+	public static final String ADDITIVITY_PREFIX_KEY = "microlog.additivity";
+
 	/**
 	 * The key for setting the formatter.
 	 */
@@ -90,6 +101,19 @@ public class PropertyConfigurator {
 	 */
 	public static final String FORMATTER_PROPERTY = "formatter";
 	
+	/**
+	 * The key of the clock that the event timestamps are read from, e.g.
+	 * <code>CachedClock</code> for very high event rates.
+	 */
+	public static final String CLOCK_KEY = "microlog.clock";
+
+	/**
+	 * The property that lists the appenders attached to an appender that
+	 * implements <code>AppenderAttachable</code>, e.g. the
+	 * <code>AsyncAppender</code>.
+	 */
+	public static final String ATTACHED_APPENDERS_PROPERTY = "appenders";
+	
 	/**
 	 * The default Log level (String)
 	 */
@@ -105,20 +129,33 @@ public class PropertyConfigurator {
 	 */
 	public static final String LOG4J_PROPERTY_DELIMITER = ","; 
 
-	public static final String[] APPENDER_ALIASES = { "LogCatAppender", "FileAppender", "DatagramAppender" };
+	public static final String[] APPENDER_ALIASES = { "LogCatAppender", "FileAppender", "DatagramAppender", "AsyncAppender",
+			"FileChannelAppender", "MemoryMappedFileAppender", "RollingFileAppender", "CircularFileAppender" };
 
 	public static final String[] APPENDER_CLASS_NAMES = { "com.google.code.microlog4android.appender.LogCatAppender",
-			"com.google.code.microlog4android.appender.FileAppender", "com.google.code.microlog4android.appender.DatagramAppender" };
+			"com.google.code.microlog4android.appender.FileAppender", "com.google.code.microlog4android.appender.DatagramAppender",
+			"com.google.code.microlog4android.appender.AsyncAppender",
+			"com.google.code.microlog4android.appender.FileChannelAppender",
+			"com.google.code.microlog4android.appender.MemoryMappedFileAppender",
+			"com.google.code.microlog4android.appender.RollingFileAppender",
+			"com.google.code.microlog4android.appender.CircularFileAppender" };
 
 	public static final String[] FORMATTER_ALIASES = { "SimpleFormatter", "PatternFormatter" };
 
 	public static final String[] FORMATTER_CLASS_NAMES = { "com.google.code.microlog4android.format.SimpleFormatter",
 			"com.google.code.microlog4android.format.PatternFormatter" };
 
+	public static final String[] CLOCK_ALIASES = { "MonotonicClock", "CachedClock" };
+
+	public static final String[] CLOCK_CLASS_NAMES = { "com.google.code.microlog4android.MonotonicClock",
+			"com.google.code.microlog4android.CachedClock" };
+
 	private static final HashMap<String, String> appenderAliases = new HashMap<String, String>(2);
 
 	private static final HashMap<String, String> formatterAliases = new HashMap<String, String>(2);
 
+	private static final HashMap<String, String> clockAliases = new HashMap<String, String>(2);
+
 	private Context context;
 
 	private LoggerRepository loggerRepository;
@@ -133,6 +170,10 @@ public class PropertyConfigurator {
 		for (int index = 0; index < FORMATTER_ALIASES.length; index++) {
 			formatterAliases.put(FORMATTER_ALIASES[index], FORMATTER_CLASS_NAMES[index]);
 		}
+
+		for (int index = 0; index < CLOCK_ALIASES.length; index++) {
+			clockAliases.put(CLOCK_ALIASES[index], CLOCK_CLASS_NAMES[index]);
+		}
 	};
 
 	private PropertyConfigurator(Context context) {
@@ -259,6 +300,12 @@ public class PropertyConfigurator {
 					appenders = new HashMap<String, Appender>();
 				
 				appenders.put(appenderName, appender);
+				
+				// Attach after registering, so that the appender can be found
+				// if one of the attached appenders refers back to it.
+				if (appender instanceof AppenderAttachable) {
+					doConfigureAttachedAppenders(appenderName, (AppenderAttachable) appender, properties);
+				}
 			}
 		}
 		
@@ -329,6 +376,29 @@ public class PropertyConfigurator {
 		String rootLoggerProperty = properties.getProperty(PropertyConfigurator.ROOT_LOGGER_KEY);
 		doConfigureLogger(/*path*/null, rootLoggerProperty, properties);
 		
+		// The subtree levels clear the levels below them, so they are set
+		// first, from the top of the tree down, and the other loggers then
+		// keep the levels they are given.
+		List<String> subtreePaths = new ArrayList<String>();
+		
+		for (Entry<Object,Object> entry : properties.entrySet()) {
+			String key = (String)entry.getKey();
+			
+			if (key.startsWith(LOGGER_PREFIX_KEY) && key.endsWith(LoggerNamesUtil.SUBTREE_WILDCARD)) {
+				subtreePaths.add(key.substring(LOGGER_PREFIX_KEY.length() + 1));
+			}
+		}
+		
+		Collections.sort(subtreePaths, new Comparator<String>() {
+			public int compare(String path1, String path2) {
+				return path1.length() - path2.length();
+			}
+		});
+		
+		for (String path : subtreePaths) {
+			doConfigureLogger(path, properties.getProperty(LOGGER_PREFIX_KEY + PREFIX_SEPARATOR + path), properties);
+		}
+		
 		for (Entry<Object,Object> entry : properties.entrySet()) {
 			String key = (String)entry.getKey();
 			
@@ -336,7 +406,14 @@ public class PropertyConfigurator {
 				// Strip off the leading characters.
 				String path = key.substring(LOGGER_PREFIX_KEY.length() + 1);
 				String value = (String)entry.getValue();
-				doConfigureLogger(path, value, properties);
+				
+				if (!path.endsWith(LoggerNamesUtil.SUBTREE_WILDCARD)) {
+					doConfigureLogger(path, value, properties);
+				}
+			} else if (key.startsWith(ADDITIVITY_PREFIX_KEY + PREFIX_SEPARATOR)) {
+				String path = key.substring(ADDITIVITY_PREFIX_KEY.length() + 1);
+				String value = ((String) entry.getValue()).trim();
+				loggerRepository.getLogger(path).setAdditivity(Boolean.parseBoolean(value));
 			}
 		}
 	}
@@ -442,9 +519,57 @@ public class PropertyConfigurator {
 		return appender;
 	}
 	
+	/**
+	 * Attach the appenders listed in the <code>appenders</code> property of the
+	 * specified appender.
+	 * 
+	 * @param appenderName The name of the appender to attach to.
+	 * @param attachable The appender to attach to.
+	 * @param properties The properties to configure from.
+	 */
+	private void doConfigureAttachedAppenders(String appenderName, AppenderAttachable attachable, Properties properties) {
+		StringBuilder propertyKeyBuffer = new StringBuilder(64);
+		propertyKeyBuffer.append(APPENDER_PREFIX_KEY);
+		propertyKeyBuffer.append(PREFIX_SEPARATOR);
+		propertyKeyBuffer.append(appenderName);
+		propertyKeyBuffer.append(PROPERTY_SEPARATOR);
+		propertyKeyBuffer.append(ATTACHED_APPENDERS_PROPERTY);
+		
+		String value = properties.getProperty(propertyKeyBuffer.toString());
+		
+		if (value == null) {
+			Log.w(TAG, "No appenders attached to " + appenderName);
+			return;
+		}
+		
+		StringTokenizer tokenizer = new StringTokenizer(value, LOG4J_PROPERTY_DELIMITER);
+		
+		while (tokenizer.hasMoreTokens()) {
+			String attachedName = tokenizer.nextToken().trim();
+			
+			if (attachedName.equals(appenderName)) {
+				Log.e(TAG, "The appender " + appenderName + " can not be attached to itself");
+				continue;
+			}
+			
+			Appender attached = getAppender(attachedName, properties);
+			
+			if (attached != null) {
+				attachable.addAppender(attached);
+			}
+		}
+	}
+	
 	private Logger doConfigureLogger(String path, String settings, Properties properties) {
 		Logger logger;
 		
+		// A path like com.example.* sets the level of the whole subtree
+		boolean subtree = path != null && path.endsWith(LoggerNamesUtil.SUBTREE_WILDCARD);
+		
+		if (subtree) {
+			path = path.substring(0, path.length() - LoggerNamesUtil.SUBTREE_WILDCARD.length());
+		}
+		
 		if (path == null || path.length() == 0) {
 			logger = loggerRepository.getRootLogger();
 		} else {
@@ -465,6 +590,8 @@ public class PropertyConfigurator {
 		
 		if (level == null) {
 			Log.e(TAG, "Level " + levelString + " is not a valid level.");
+		} else if (subtree) {
+			loggerRepository.setSubtreeLevel(path, level);
 		} else {
 			logger.setLevel(level);
 		}
@@ -652,6 +779,8 @@ public class PropertyConfigurator {
 	 * @param properties
 	 */
 	private void startConfiguration(Properties properties) {
+		setClock(properties);
+
 		if (properties.containsKey(PropertyConfigurator.ROOT_LOGGER_KEY)) {
 			configureLog4jStyle(properties);
 		} else {
@@ -660,6 +789,51 @@ public class PropertyConfigurator {
 		}
 	}
 	
+	/**
+	 * Sets the clock of the <code>Logger</code>, if one is specified. A
+	 * <code>CachedClock</code> is started, while the previous one is stopped.
+	 * 
+	 * @param properties The properties to configure from.
+	 */
+	private void setClock(Properties properties) {
+		String clockString = properties.getProperty(CLOCK_KEY);
+
+		if (clockString == null) {
+			return;
+		}
+
+		clockString = clockString.trim();
+		String className = clockAliases.get(clockString);
+
+		if (className == null) {
+			className = clockString;
+		}
+
+		try {
+			Class<?> clockClass = Class.forName(className);
+			Clock clock = (Clock) clockClass.newInstance();
+
+			if (clock instanceof CachedClock) {
+				((CachedClock) clock).start();
+			}
+
+			Clock previousClock = Logger.getClock();
+			Logger.setClock(clock);
+
+			if (previousClock instanceof CachedClock) {
+				((CachedClock) previousClock).stop();
+			}
+		} catch (ClassNotFoundException e) {
+			Log.e(TAG, "Failed to find Clock class: " + e);
+		} catch (InstantiationException e) {
+			Log.e(TAG, "Failed to instantiate clock: " + e);
+		} catch (IllegalAccessException e) {
+			Log.e(TAG, "No access to clock class: " + e);
+		} catch (ClassCastException e) {
+			Log.e(TAG, "Specified clock class does not implement the Clock interface: " + e);
+		}
+	}
+
 	/**
 	 * Convert a <code>String</code> containing a level to a <code>Level</code>
 	 * object.
@@ -15,6 +15,7 @@
 package com.google.code.microlog4android.format;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 
 
@@ -47,6 +48,17 @@ public interface Formatter {
 	 */
 	String format(String clientID, String name, long time, Level level,
 			Object message, Throwable t);
+
+	/**
+	 * Format the event by appending it to the specified buffer. Nothing is
+	 * returned, which lets an appender reuse the buffer for many events.
+	 * 
+	 * @param event
+	 *            the event to format.
+	 * @param buffer
+	 *            the buffer to append the formatted event to.
+	 */
+	void format(LogEvent event, StringBuilder buffer);
 	
 	/**
 	 * Get the appender specific property names. This is workaround for the lack
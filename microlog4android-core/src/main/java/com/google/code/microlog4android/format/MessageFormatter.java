@@ -0,0 +1,304 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Substitutes the <code>{}</code> placeholders of a parameterized message
+ * with the arguments, e.g. <code>"Read {} bytes from {}"</code>. A placeholder
+ * is kept as is if it is escaped with a backslash or if there are no more
+ * arguments. Arguments left over when all the placeholders are used are
+ * ignored.
+ *
+ * The message is built in a buffer that is reused by the calling thread, which
+ * is a lot cheaper than <code>String.format</code>. The patterns are parsed
+ * once and then cached, since they are almost always string constants.
+ */
+public enum MessageFormatter {
+	;
+
+	public static final String PLACEHOLDER = "{}";
+
+	private static final char ESCAPE_CHAR = '\\';
+
+	/**
+	 * Buffers larger than this are not kept for reuse.
+	 */
+	private static final int MAX_REUSED_BUFFER_SIZE = 1024;
+
+	private static final int INITIAL_BUFFER_SIZE = 128;
+
+	/**
+	 * Patterns are not cached when there are this many cached patterns, which
+	 * keeps patterns built at runtime from filling up the memory.
+	 */
+	private static final int MAX_CACHED_PATTERNS = 512;
+
+	private static final ConcurrentHashMap<String, ParsedPattern> patternCache = new ConcurrentHashMap<String, ParsedPattern>(
+			64);
+
+	private static final ReusableBuilder reusableBuilder = new ReusableBuilder(INITIAL_BUFFER_SIZE,
+			MAX_REUSED_BUFFER_SIZE);
+
+	/**
+	 * Format a message with one argument.
+	 *
+	 * @param pattern
+	 *            the message pattern.
+	 * @param argument
+	 *            the argument.
+	 * @return the formatted message.
+	 */
+	public static String format(String pattern, Object argument) {
+		return format(pattern, argument, null, null, 1);
+	}
+
+	/**
+	 * Format a message with two arguments.
+	 *
+	 * @param pattern
+	 *            the message pattern.
+	 * @param argument1
+	 *            the first argument.
+	 * @param argument2
+	 *            the second argument.
+	 * @return the formatted message.
+	 */
+	public static String format(String pattern, Object argument1, Object argument2) {
+		return format(pattern, argument1, argument2, null, 2);
+	}
+
+	/**
+	 * Format a message with any number of arguments.
+	 *
+	 * @param pattern
+	 *            the message pattern.
+	 * @param arguments
+	 *            the arguments, may be <code>null</code>.
+	 * @return the formatted message.
+	 */
+	public static String arrayFormat(String pattern, Object[] arguments) {
+		return format(pattern, null, null, arguments, arguments == null ? 0 : arguments.length);
+	}
+
+	/**
+	 * Count the number of placeholders in the pattern that would be replaced
+	 * by arguments, i.e. not counting the escaped placeholders.
+	 *
+	 * @param pattern
+	 *            the message pattern.
+	 * @return the number of placeholders.
+	 */
+	public static int countPlaceholders(String pattern) {
+		return pattern == null ? 0 : getParsedPattern(pattern).literals.length - 1;
+	}
+
+	/**
+	 * Get the <code>Throwable</code> that should be logged with a
+	 * parameterized message, i.e. the last argument if it is a
+	 * <code>Throwable</code> that is not used by any placeholder.
+	 *
+	 * @param pattern
+	 *            the message pattern.
+	 * @param lastArgument
+	 *            the last argument.
+	 * @param argumentCount
+	 *            the number of arguments.
+	 * @return the <code>Throwable</code> or <code>null</code> if there is
+	 *         none.
+	 */
+	public static Throwable getThrowableCandidate(String pattern, Object lastArgument, int argumentCount) {
+		if (lastArgument instanceof Throwable && countPlaceholders(pattern) < argumentCount) {
+			return (Throwable) lastArgument;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Append the formatted message to the specified buffer. The arguments are
+	 * taken from the array if there is one, otherwise from
+	 * <code>argument1</code> and <code>argument2</code>. This avoids creating
+	 * an array for the common one and two argument cases.
+	 *
+	 * @param buffer
+	 *            the buffer to append to.
+	 * @param pattern
+	 *            the message pattern.
+	 * @param argument1
+	 *            the first argument, if there is no array.
+	 * @param argument2
+	 *            the second argument, if there is no array.
+	 * @param arguments
+	 *            the arguments or <code>null</code>.
+	 * @param argumentCount
+	 *            the number of arguments.
+	 */
+	public static void appendFormatted(StringBuilder buffer, String pattern, Object argument1, Object argument2,
+			Object[] arguments, int argumentCount) {
+		if (pattern == null) {
+			buffer.append((String) null);
+			return;
+		}
+
+		String[] literals = getParsedPattern(pattern).literals;
+		int placeholderCount = literals.length - 1;
+
+		for (int i = 0; i < placeholderCount; i++) {
+			buffer.append(literals[i]);
+
+			if (i < argumentCount) {
+				Object argument;
+				if (arguments != null) {
+					argument = arguments[i];
+				} else {
+					argument = i == 0 ? argument1 : argument2;
+				}
+
+				appendArgument(buffer, argument);
+			} else {
+				buffer.append(PLACEHOLDER);
+			}
+		}
+
+		buffer.append(literals[placeholderCount]);
+	}
+
+	private static String format(String pattern, Object argument1, Object argument2, Object[] arguments,
+			int argumentCount) {
+		if (pattern == null || argumentCount == 0) {
+			return pattern;
+		}
+
+		// The toString() of an argument may log in turn, in which case a new
+		// builder is obtained for that message.
+		StringBuilder buffer = reusableBuilder.obtain();
+
+		try {
+			appendFormatted(buffer, pattern, argument1, argument2, arguments, argumentCount);
+			return buffer.toString();
+		} finally {
+			reusableBuilder.release(buffer);
+		}
+	}
+
+	private static ParsedPattern getParsedPattern(String pattern) {
+		ParsedPattern parsedPattern = patternCache.get(pattern);
+
+		if (parsedPattern == null) {
+			parsedPattern = new ParsedPattern(pattern);
+
+			if (patternCache.size() < MAX_CACHED_PATTERNS) {
+				patternCache.put(pattern, parsedPattern);
+			}
+		}
+
+		return parsedPattern;
+	}
+
+	private static boolean isEscaped(String pattern, int placeholderIndex) {
+		return placeholderIndex > 0 && pattern.charAt(placeholderIndex - 1) == ESCAPE_CHAR;
+	}
+
+	/**
+	 * Append the value to the buffer. Strings and boxed primitives are
+	 * appended without calling <code>toString()</code>, which means that no
+	 * garbage is created for them.
+	 *
+	 * @param buffer
+	 *            the buffer to append to.
+	 * @param value
+	 *            the value to append, may be <code>null</code>.
+	 */
+	public static void appendValue(StringBuilder buffer, Object value) {
+		if (value instanceof String) {
+			buffer.append((String) value);
+		} else if (value instanceof Integer) {
+			buffer.append(((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			buffer.append(((Long) value).longValue());
+		} else if (value instanceof Boolean) {
+			buffer.append(((Boolean) value).booleanValue());
+		} else if (value instanceof Character) {
+			buffer.append(((Character) value).charValue());
+		} else if (value instanceof Short || value instanceof Byte) {
+			buffer.append(((Number) value).intValue());
+		} else if (value instanceof Double) {
+			buffer.append(((Double) value).doubleValue());
+		} else if (value instanceof Float) {
+			buffer.append(((Float) value).floatValue());
+		} else if (value instanceof CharSequence) {
+			buffer.append((CharSequence) value);
+		} else {
+			buffer.append(value);
+		}
+	}
+
+	private static void appendArgument(StringBuilder buffer, Object argument) {
+		try {
+			if (argument instanceof Object[]) {
+				buffer.append(Arrays.deepToString((Object[]) argument));
+			} else {
+				appendValue(buffer, argument);
+			}
+		} catch (RuntimeException e) {
+			buffer.append("[FAILED toString()]");
+		}
+	}
+
+	/**
+	 * A pattern split at the placeholders. There is always one more literal
+	 * than there are placeholders, and the escape characters of escaped
+	 * placeholders are already removed from the literals.
+	 */
+	private static final class ParsedPattern {
+		final String[] literals;
+
+		ParsedPattern(String pattern) {
+			int index = pattern.indexOf(PLACEHOLDER);
+
+			if (index == -1) {
+				literals = new String[] { pattern };
+				return;
+			}
+
+			List<String> literalList = new ArrayList<String>();
+			StringBuilder literal = new StringBuilder();
+			int beginIndex = 0;
+
+			while (index != -1) {
+				if (isEscaped(pattern, index)) {
+					literal.append(pattern, beginIndex, index - 1);
+					literal.append(PLACEHOLDER);
+				} else {
+					literal.append(pattern, beginIndex, index);
+					literalList.add(literal.toString());
+					literal.setLength(0);
+				}
+
+				beginIndex = index + PLACEHOLDER.length();
+				index = pattern.indexOf(PLACEHOLDER, beginIndex);
+			}
+
+			literal.append(pattern, beginIndex, pattern.length());
+			literalList.add(literal.toString());
+			literals = literalList.toArray(new String[literalList.size()]);
+		}
+	}
+}
@@ -20,6 +20,7 @@ import java.util.Vector;
 import android.util.Log;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 import com.google.code.microlog4android.format.command.CategoryFormatCommand;
 import com.google.code.microlog4android.format.command.ClientIdFormatCommand;
 import com.google.code.microlog4android.format.command.DateFormatCommand;
@@ -49,13 +50,16 @@ import com.google.code.microlog4android.format.command.TimeFormatCommand;
  * 
  *  The available pattern conversions are:
  *  %i : the client id
- *  %c : prints the name of the Logger
- *  %d : prints the date (absolute time)
+ *  %c : prints the name of the Logger. %c{n} prints the last n parts of the name, and %c{~n}
+ *       abbreviates the packages so that the name fits in n characters, e.g. %c{~20}
+ *  %d : prints the date (absolute time). The format is set with %d{ABSOLUTE}, %d{DATE}, %d{ISO8601}
+ *       or a SimpleDateFormat pattern, e.g. %d{yyyy-MM-dd'T'HH:mm:ss.SSSZ}
  *  %m : prints the logged message
  *  %P : prints the priority, i.e. Level of the message.
  *  %r : prints the relative time of the logging. (The first logging is done at time 0.)
  *  %t : prints the thread name.
- *  %T : prints the Throwable object.
+ *  %T : prints the Throwable object. The number of lines and the packages to leave out are set with
+ *       %T{n} or %T{n, package, ...}, where n is a number or "full".
  *  %% : prints the '%' sign.
  * </pre>
  * 
@@ -87,47 +91,86 @@ public class PatternFormatter implements Formatter {
 	public static final char THROWABLE_CONVERSION_CHAR = 'T';
 	public static final char PERCENT_CONVERSION_CHAR = '%';
 
+	/**
+	 * The number of characters that are expected for each conversion when
+	 * estimating the length of a formatted event.
+	 */
+	private static final int CONVERSION_LENGTH_ESTIMATE = 16;
+
+	private static final int MIN_ESTIMATED_LENGTH = 64;
+
 	private static final String[] PROPERTY_NAMES = { PatternFormatter.PATTERN_PROPERTY };
 
-	private String pattern = DEFAULT_CONVERSION_PATTERN;
-	private FormatCommandInterface[] commandArray;
+	private volatile String pattern = DEFAULT_CONVERSION_PATTERN;
 
-	private boolean patternParsed;
+	/**
+	 * The commands of the parsed pattern. The pattern is parsed whenever it is
+	 * set, and the array is published through this volatile field, so that
+	 * threads that format concurrently always see a complete array.
+	 */
+	private volatile FormatCommandInterface[] commandArray;
+
+	/**
+	 * The estimated length of a formatted event, i.e. the length of the
+	 * literal parts of the pattern plus a guess for each conversion.
+	 */
+	private int estimatedLength = MIN_ESTIMATED_LENGTH;
 
 	/**
 	 * Create a <code>PatternFormatter</code> with the default pattern.
 	 */
 	public PatternFormatter() {
-		patternParsed = false;
+		parsePattern(pattern);
 	}
 
 	/**
-	 * Format the input parameters.
+	 * Format the input parameters. The timestamp and the thread name are those
+	 * of the caller when formatting, so an appender that logs an event
+	 * formatted on another thread shall use
+	 * <code>format(LogEvent, StringBuilder)</code> instead.
 	 * 
 	 * @see com.google.code.microlog4android.format.Formatter#format(String, String, long,
 	 *      com.google.code.microlog4android.Level, java.lang.Object, java.lang.Throwable)
 	 */
 	public String format(String clientID, String name, long time, Level level,
 			Object message, Throwable t) {
-
-		if (!patternParsed && pattern != null) {
-			parsePattern(pattern);
+		LogEvent event = LogEvent.obtain();
+
+		try {
+			event.set(clientID, name, time, level, message, t, Thread.currentThread().getName());
+			StringBuilder buffer = new StringBuilder(estimatedLength);
+			appendCommands(event, buffer);
+			return buffer.toString();
+		} finally {
+			event.recycle();
 		}
+	}
+
+	/**
+	 * Format the event by appending it to the specified buffer.
+	 * 
+	 * @see com.google.code.microlog4android.format.Formatter#format(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
+	 */
+	public void format(LogEvent event, StringBuilder buffer) {
+		buffer.ensureCapacity(buffer.length() + estimatedLength);
+		appendCommands(event, buffer);
+	}
+
+	/**
+	 * Let each command of the parsed pattern append its part of the event to
+	 * the buffer.
+	 */
+	private void appendCommands(LogEvent event, StringBuilder buffer) {
+		FormatCommandInterface[] commands = commandArray;
 
-		StringBuffer formattedStringBuffer = new StringBuffer(64);
-		if (commandArray != null) {
-			int length = commandArray.length;
+		if (commands != null) {
+			int length = commands.length;
 
 			for (int index = 0; index < length; index++) {
-				FormatCommandInterface currentConverter = commandArray[index];
-				if (currentConverter != null) {
-					formattedStringBuffer.append(currentConverter.execute(
-							clientID, name, time, level, message, t));
-				}
+				commands[index].append(event, buffer);
 			}
 		}
-
-		return formattedStringBuffer.toString();
 	}
 
 	/**
@@ -217,7 +260,14 @@ public class PatternFormatter implements Formatter {
 					break;
 
 				case THROWABLE_CONVERSION_CHAR:
-					converterVector.addElement(new ThrowableFormatCommand());
+					ThrowableFormatCommand throwableFormatCommand = new ThrowableFormatCommand();
+					specifier = extraxtSpecifier(pattern, currentIndex);
+					specifierLength = specifier.length();
+					if (specifierLength > 0) {
+						throwableFormatCommand.init(specifier);
+						currentIndex = currentIndex + specifierLength + 2;
+					}
+					converterVector.addElement(throwableFormatCommand);
 					break;
 
 				case PERCENT_CONVERSION_CHAR:
@@ -255,19 +305,31 @@ public class PatternFormatter implements Formatter {
 
 		}
 
-		commandArray = new FormatCommandInterface[converterVector.size()];
-		converterVector.copyInto(commandArray);
+		FormatCommandInterface[] commands = new FormatCommandInterface[converterVector.size()];
+		converterVector.copyInto(commands);
+
+		int lengthEstimate = 0;
+		for (int index = 0; index < commands.length; index++) {
+			if (commands[index] instanceof NoFormatCommand) {
+				lengthEstimate += ((NoFormatCommand) commands[index]).getPreFormatString().length();
+			} else {
+				lengthEstimate += CONVERSION_LENGTH_ESTIMATE;
+			}
+		}
 
-		patternParsed = true;
+		estimatedLength = Math.max(lengthEstimate, MIN_ESTIMATED_LENGTH);
+		commandArray = commands;
 	}
 
 	String extraxtSpecifier(String pattern, int index) {
 		String specifier = "";
 
-		int beginIndex = pattern.indexOf('{', index);
+		int beginIndex = index + 1;
 		int endIndex = pattern.indexOf('}', index);
 
-		if (beginIndex > 0 && endIndex > beginIndex) {
+		// The specifier must follow the conversion character directly,
+		// otherwise it belongs to a later conversion.
+		if (beginIndex < pattern.length() && pattern.charAt(beginIndex) == '{' && endIndex > beginIndex) {
 			specifier = pattern.substring(beginIndex + 1, endIndex);
 		}
 
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format;
+
+/**
+ * A <code>StringBuilder</code> per thread, which is reused to format one text
+ * at a time, so that formatting does not allocate a new builder every time.
+ * 
+ * A builder is in use from <code>obtain</code> until <code>release</code>. If
+ * the thread asks for another builder meanwhile, e.g. since the
+ * <code>toString()</code> of a message logs in turn, it gets a new builder,
+ * which leaves the text that is being formatted alone. A builder that has
+ * grown larger than the maximum size is replaced when released, so that one
+ * large text does not keep its memory for the life of the thread.
+ */
+public final class ReusableBuilder {
+	private final int initialSize;
+
+	private final int maxReusedSize;
+
+	private final ThreadLocal<Entry> entry = new ThreadLocal<Entry>() {
+		protected Entry initialValue() {
+			return new Entry(new StringBuilder(initialSize));
+		}
+	};
+
+	/**
+	 * Create a <code>ReusableBuilder</code>.
+	 * 
+	 * @param initialSize
+	 *            the initial capacity of the builders.
+	 * @param maxReusedSize
+	 *            builders with a larger capacity than this are not kept for
+	 *            reuse.
+	 * @throws IllegalArgumentException
+	 *             if the initial size is less than 1 or larger than the
+	 *             maximum size.
+	 */
+	public ReusableBuilder(int initialSize, int maxReusedSize) throws IllegalArgumentException {
+		if (initialSize < 1 || initialSize > maxReusedSize) {
+			throw new IllegalArgumentException("The initial size must be between 1 and " + maxReusedSize);
+		}
+
+		this.initialSize = initialSize;
+		this.maxReusedSize = maxReusedSize;
+	}
+
+	/**
+	 * Get an empty builder. The builder of the calling thread is returned,
+	 * unless it is already in use.
+	 * 
+	 * @return an empty builder that shall be given back with
+	 *         <code>release</code>.
+	 */
+	public StringBuilder obtain() {
+		Entry current = entry.get();
+
+		if (current.inUse) {
+			return new StringBuilder(initialSize);
+		}
+
+		current.inUse = true;
+		current.builder.setLength(0);
+		return current.builder;
+	}
+
+	/**
+	 * Give back a builder obtained with <code>obtain</code>.
+	 * 
+	 * @param builder
+	 *            the builder to give back.
+	 */
+	public void release(StringBuilder builder) {
+		Entry current = entry.get();
+
+		if (builder == current.builder) {
+			if (builder.capacity() > maxReusedSize) {
+				current.builder = new StringBuilder(initialSize);
+			}
+
+			current.inUse = false;
+		}
+	}
+
+	private static final class Entry {
+		StringBuilder builder;
+
+		boolean inUse;
+
+		Entry(StringBuilder builder) {
+			this.builder = builder;
+		}
+	}
+}
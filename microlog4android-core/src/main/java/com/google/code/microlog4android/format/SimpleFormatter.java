@@ -15,11 +15,16 @@
 package com.google.code.microlog4android.format;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * A simple formatter that only outputs the level, the message and the Throwable
  * object if available.
  * 
+ * A <code>SimpleFormatter</code> is thread safe. The <code>String</code> of an
+ * event is built in a builder that is reused by the calling thread, so the
+ * threads neither share nor contend for a buffer.
+ * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * @since 0.1
  */
@@ -29,9 +34,15 @@ public final class SimpleFormatter implements Formatter {
 
 	private static final int INITIAL_BUFFER_SIZE = 256;
 
-	StringBuffer buffer = new StringBuffer(INITIAL_BUFFER_SIZE);
+	/**
+	 * Builders larger than this are not kept for reuse.
+	 */
+	private static final int MAX_REUSED_BUFFER_SIZE = 1024;
+
+	private static final ReusableBuilder reusableBuilder = new ReusableBuilder(INITIAL_BUFFER_SIZE,
+			MAX_REUSED_BUFFER_SIZE);
 
-	private String delimiter = DEFAULT_DELIMITER;
+	private volatile String delimiter = DEFAULT_DELIMITER;
 
 	/**
 	 * Create a SimpleFormatter.
@@ -70,15 +81,38 @@ public final class SimpleFormatter implements Formatter {
 	 * @return a String that is not null.
 	 */
 	public String format(String clientID, String name, long time, Level level, Object message, Throwable t) {
-		if (buffer.length() > 0) {
-			buffer.delete(0, buffer.length());
+		StringBuilder buffer = reusableBuilder.obtain();
+
+		try {
+			append(buffer, clientID, time, level, message, t);
+			return buffer.toString();
+		} finally {
+			reusableBuilder.release(buffer);
 		}
-		
-		if(clientID != null){
+	}
+
+	/**
+	 * Format the event in the same way as
+	 * <code>format(String, String, long, Level, Object, Throwable)</code>,
+	 * but append it to the specified buffer.
+	 * 
+	 * @see com.google.code.microlog4android.format.Formatter#format(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
+	 */
+	public void format(LogEvent event, StringBuilder buffer) {
+		append(buffer, event.getClientID(), event.getTime(), event.getLevel(), event.getMessage(), event
+				.getThrowable());
+	}
+
+	private void append(StringBuilder buffer, String clientID, long time, Level level, Object message,
+			Throwable t) {
+		String currentDelimiter = delimiter;
+
+		if (clientID != null) {
 			buffer.append(clientID);
 			buffer.append(' ');
 		}
-		
+
 		buffer.append(time);
 		buffer.append(':');
 
@@ -89,16 +123,14 @@ public final class SimpleFormatter implements Formatter {
 		}
 
 		if (message != null) {
-			buffer.append(delimiter);
-			buffer.append(message);
+			buffer.append(currentDelimiter);
+			MessageFormatter.appendValue(buffer, message);
 		}
 
 		if (t != null) {
-			buffer.append(delimiter);
+			buffer.append(currentDelimiter);
 			buffer.append(t);
 		}
-
-		return buffer.toString();
 	}
 
 	public String[] getPropertyNames() {
@@ -109,6 +141,4 @@ public final class SimpleFormatter implements Formatter {
 	public void setProperty(String name, String value) {
 		// We have no properties that can be set.
 	}
-	
-	
 }
@@ -15,15 +15,26 @@
 
 package com.google.code.microlog4android.format.command;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 import android.util.Log;
 
-import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 import com.google.code.microlog4android.format.command.util.StringUtil;
 
 /**
  * The <code>CategoryFormatCommand</code> is used for printing the category,
  * i.e. the name of the logging class.
  * 
+ * A number as specifier is the number of parts of the name to print, counted
+ * from the end, e.g. <code>%c{1}</code> prints <code>Logger</code> for
+ * <code>com.google.code.microlog4android.Logger</code>. A number preceded by
+ * <code>TARGET_LENGTH_PREFIX</code> is instead the length that the name is
+ * abbreviated to, e.g. <code>%c{~20}</code> prints <code>c.g.c.m.Logger</code>.
+ * 
+ * The set of logger names is small, so the printed name is computed once per
+ * logger name and then cached.
+ * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  * 
  * @since 1.0
@@ -35,29 +46,62 @@ public class CategoryFormatCommand implements FormatCommandInterface {
 
 	public static final int DEFAULT_PRECISION_SPECIFIER = 1;
 
-	private int precisionSpecifier = DEFAULT_PRECISION_SPECIFIER;
+	/**
+	 * Marks a specifier as the target length of an abbreviated name rather
+	 * than a number of parts.
+	 */
+	public static final String TARGET_LENGTH_PREFIX = "~";
+
+	public static final int NO_TARGET_LENGTH = 0;
 
 	/**
+	 * Names are not cached when there are this many cached names, which keeps
+	 * logger names built at runtime from filling up the memory.
+	 */
+	private static final int MAX_CACHED_NAMES = 512;
+
+	private final ConcurrentHashMap<String, String> nameCache = new ConcurrentHashMap<String, String>(32);
+
+	private volatile int precisionSpecifier = DEFAULT_PRECISION_SPECIFIER;
+
+	private volatile int targetLength = NO_TARGET_LENGTH;
+
+	/**
+	 * Append the name of the logger.
 	 * 
-	 * 
-	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String,
-	 *      String, long, com.google.code.microlog4android.Level, java.lang.Object,
-	 *      java.lang.Throwable)
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#append(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
 	 */
-	public String execute(String clientID, String name, long time, Level level,
-			Object message, Throwable throwable) {
-		String convertedData = "";
+	public void append(LogEvent event, StringBuilder buffer) {
+		String name = event.getLoggerName();
 
 		if (name != null) {
-			if (precisionSpecifier == FULL_CLASS_NAME_SPECIFIER) {
-				convertedData = name;
+			if (targetLength == NO_TARGET_LENGTH && precisionSpecifier == FULL_CLASS_NAME_SPECIFIER) {
+				buffer.append(name);
+			} else {
+				buffer.append(getConvertedName(name));
+			}
+		}
+	}
+
+	private String getConvertedName(String name) {
+		String convertedName = nameCache.get(name);
+
+		if (convertedName == null) {
+			int length = targetLength;
+
+			if (length != NO_TARGET_LENGTH) {
+				convertedName = StringUtil.abbreviateClassName(name, length);
 			} else {
-				convertedData = StringUtil.extractPartialClassName(name,
-						precisionSpecifier);
+				convertedName = StringUtil.extractPartialClassName(name, precisionSpecifier);
+			}
+
+			if (nameCache.size() < MAX_CACHED_NAMES) {
+				nameCache.put(name, convertedName);
 			}
 		}
 
-		return convertedData;
+		return convertedName;
 	}
 
 	/**
@@ -66,9 +110,11 @@ public class CategoryFormatCommand implements FormatCommandInterface {
 	 */
 	public void init(String initString) {
 		try {
-			precisionSpecifier = Integer.parseInt(initString);
-			System.out.println("Precision specifier for %c is "
-					+ precisionSpecifier);
+			if (initString.startsWith(TARGET_LENGTH_PREFIX)) {
+				setTargetLength(Integer.parseInt(initString.substring(TARGET_LENGTH_PREFIX.length())));
+			} else {
+				setPrecisionSpecifier(Integer.parseInt(initString));
+			}
 		} catch (NumberFormatException e) {
 			Log.e(TAG, "Failed to parse the specifier for the %c pattern "
 					+ e);
@@ -92,6 +138,37 @@ public class CategoryFormatCommand implements FormatCommandInterface {
 	 */
 	public void setPrecisionSpecifier(int precisionSpecifier) {
 		this.precisionSpecifier = precisionSpecifier;
+		this.targetLength = NO_TARGET_LENGTH;
+		nameCache.clear();
+	}
+
+	/**
+	 * Get the length that the name is abbreviated to.
+	 * 
+	 * @return the target length, or <code>NO_TARGET_LENGTH</code> if the
+	 *         precision specifier is used.
+	 */
+	public int getTargetLength() {
+		return targetLength;
+	}
+
+	/**
+	 * Set the length that the name is abbreviated to, which is used instead of
+	 * the precision specifier.
+	 * 
+	 * @param targetLength
+	 *            the target length, or <code>NO_TARGET_LENGTH</code> to print
+	 *            the parts given by the precision specifier.
+	 * @throws IllegalArgumentException
+	 *             if the <code>targetLength</code> is negative.
+	 */
+	public void setTargetLength(int targetLength) throws IllegalArgumentException {
+		if (targetLength < 0) {
+			throw new IllegalArgumentException("The target length must not be negative.");
+		}
+
+		this.targetLength = targetLength;
+		nameCache.clear();
 	}
 
 }
@@ -14,7 +14,7 @@
  */
 package com.google.code.microlog4android.format.command;
 
-import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * The <code>ClientIdFormatCommand</code> formats the client id.
@@ -25,12 +25,11 @@ import com.google.code.microlog4android.Level;
 public class ClientIdFormatCommand implements FormatCommandInterface {
 
 	/**
-	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String,
-	 *      String, long, com.google.code.microlog4android.Level, Object, Throwable)
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#append(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
 	 */
-	public String execute(String clientID, String name, long time, Level level,
-			Object message, Throwable throwable) {
-		return clientID;
+	public void append(LogEvent event, StringBuilder buffer) {
+		buffer.append(event.getClientID());
 	}
 	
 	/**
@@ -15,17 +15,23 @@
 package com.google.code.microlog4android.format.command;
 
 import java.util.Calendar;
-import java.util.Date;
-import java.util.TimeZone;
 
 import android.util.Log;
 
-import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.command.util.FastDatePrinter;
 
 
 /**
  * This class is used for formatting dates.
  * 
+ * All the formats end with the milliseconds, so the text up to the second is
+ * formatted once and then reused for all the events within the same second.
+ * Only the milliseconds are formatted per event. The cached text is kept in an
+ * immutable object that is replaced when the second changes, which makes the
+ * command thread safe without locking when formatting. User defined patterns
+ * are printed by a <code>FastDatePrinter</code>.
+ * 
  * Minimum requirements; CLDC 1.0
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
@@ -51,43 +57,99 @@ public class DateFormatCommand implements FormatCommandInterface {
 	final static String[] MONTH_ARRAY = { "JAN", "FEB", "MAR", "APR",
 			"MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC" };
 
+	private static final int MILLIS_PER_SECOND = 1000;
+
+	/**
+	 * Only used when the text of a new second is formatted, and always while
+	 * holding its monitor.
+	 */
 	private final Calendar calendar = Calendar.getInstance();
 
-	int format = ABSOLUTE_FORMAT;
+	volatile int format = ABSOLUTE_FORMAT;
+
+	private volatile CachedSecond cachedSecond;
 
 	/**
-	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String,
-	 *      java.lang.String, long, com.google.code.microlog4android.Level, java.lang.Object, java.lang.Throwable)
+	 * The compiled user pattern, set before the format is set to
+	 * <code>USER_FORMAT</code>.
 	 */
-	public String execute(String clientID, String name, long time, Level level,
-			Object message, Throwable throwable) {
+	private volatile FastDatePrinter userPrinter;
 
-		String dateString = "";
-		long currentTime = System.currentTimeMillis();
+	/**
+	 * Append the timestamp of the event, which means that the clock is not read
+	 * again when formatting.
+	 * 
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#append(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
+	 */
+	public void append(LogEvent event, StringBuilder buffer) {
+		append(event.getTimestamp(), buffer);
+	}
 
-		switch (format) {
-		case ABSOLUTE_FORMAT:
-			dateString = toAbsoluteFormat(currentTime);
-			break;
+	/**
+	 * Format the specified timestamp.
+	 * 
+	 * @param timestamp
+	 *            the time in milliseconds since January 1, 1970 UTC.
+	 * @return the formatted <code>String</code>.
+	 */
+	public String format(long timestamp) {
+		StringBuilder buffer = new StringBuilder(24);
+		append(timestamp, buffer);
+		return buffer.toString();
+	}
+
+	/**
+	 * Append the specified timestamp to the buffer.
+	 * 
+	 * @param timestamp
+	 *            the time in milliseconds since January 1, 1970 UTC.
+	 * @param buffer
+	 *            the buffer to append to.
+	 */
+	public void append(long timestamp, StringBuilder buffer) {
+		int currentFormat = format;
 
-		case DATE_FORMAT:
-			dateString = toDateFormat(currentTime);
-			break;
+		if (currentFormat == USER_FORMAT) {
+			userPrinter.append(timestamp, buffer);
+			return;
+		}
 
-		case ISO_8601_FORMAT:
-			dateString = toISO8601Format(currentTime);
-			break;
+		long second = timestamp / MILLIS_PER_SECOND;
+		int milliseconds = (int) (timestamp % MILLIS_PER_SECOND);
 
-		default:
-			Log.e(TAG, "Unrecognized format, using default format.");
-			dateString = toAbsoluteFormat(System.currentTimeMillis());
-			break;
+		if (milliseconds < 0) {
+			// Timestamps before 1970 are rounded towards zero by the division.
+			milliseconds += MILLIS_PER_SECOND;
+			second--;
 		}
 
-		return dateString;
+		CachedSecond cached = cachedSecond;
+
+		if (cached == null || cached.second != second || cached.format != currentFormat) {
+			cached = new CachedSecond(second, currentFormat, formatSecond(second * MILLIS_PER_SECOND,
+					currentFormat));
+			cachedSecond = cached;
+		}
+
+		buffer.append(cached.text);
+
+		if (milliseconds < 100) {
+			buffer.append('0');
+			if (milliseconds < 10) {
+				buffer.append('0');
+			}
+		}
+		buffer.append(milliseconds);
 	}
 
 	/**
+	 * Set the format, which is either one of the named formats or a
+	 * <code>SimpleDateFormat</code> style pattern, e.g.
+	 * <code>yyyy-MM-dd'T'HH:mm:ss.SSSZ</code>. A pattern is compiled here,
+	 * i.e. when the pattern of the formatter is parsed. The format is not
+	 * changed if the pattern is not valid.
+	 * 
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#init(java.lang.String)
 	 */
 	public void init(String initString) {
@@ -97,107 +159,115 @@ public class DateFormatCommand implements FormatCommandInterface {
 			format = DATE_FORMAT;
 		} else if (initString.equals(ISO_8601_FORMAT_STRING)) {
 			format = ISO_8601_FORMAT;
+		} else {
+			try {
+				userPrinter = new FastDatePrinter(initString, calendar.getTimeZone());
+				format = USER_FORMAT;
+			} catch (IllegalArgumentException e) {
+				Log.e(TAG, "Failed to parse the date pattern " + initString + " " + e);
+			}
 		}
 	}
 
 	/**
-	 * Format as an absolute date time format, that is
+	 * Format the part of the date up to and including the separator before the
+	 * milliseconds.
 	 * 
 	 * @param time
-	 *            the time to format.
+	 *            the start of the second to format.
+	 * @param format
+	 *            the format to use.
 	 * @return the formatted <code>String</code>.
 	 */
-	String toAbsoluteFormat(long time) {
-
-		calendar.setTime(new Date(time));
-		long hours = calendar.get(Calendar.HOUR_OF_DAY);
-		StringBuffer buffer = new StringBuffer();
-
-		if (hours < 10) {
-			buffer.append('0');
+	private String formatSecond(long time, int format) {
+		StringBuilder buffer = new StringBuilder(24);
+
+		synchronized (calendar) {
+			calendar.setTimeInMillis(time);
+
+			switch (format) {
+			case ABSOLUTE_FORMAT:
+				appendAbsoluteFormat(calendar, buffer);
+				break;
+
+			case DATE_FORMAT:
+				appendDateFormat(calendar, buffer);
+				break;
+
+			case ISO_8601_FORMAT:
+				appendISO8601Format(calendar, buffer);
+				break;
+
+			default:
+				Log.e(TAG, "Unrecognized format, using default format.");
+				appendAbsoluteFormat(calendar, buffer);
+				break;
+			}
 		}
-		buffer.append(hours);
-
-		buffer.append(':');
 
-		long minutes = calendar.get(Calendar.MINUTE);
-		if (minutes < 10) {
-			buffer.append('0');
-		}
-		buffer.append(minutes);
+		return buffer.toString();
+	}
 
+	/**
+	 * Format as an absolute date time format, that is
+	 * <code>HH:mm:ss,</code> followed by the milliseconds.
+	 */
+	static void appendAbsoluteFormat(Calendar calendar, StringBuilder buffer) {
+		appendTwoDigits(calendar.get(Calendar.HOUR_OF_DAY), buffer);
 		buffer.append(':');
-
-		long seconds = calendar.get(Calendar.SECOND);
-		if (seconds < 10) {
-			buffer.append('0');
-		}
-		buffer.append(seconds);
-
+		appendTwoDigits(calendar.get(Calendar.MINUTE), buffer);
+		buffer.append(':');
+		appendTwoDigits(calendar.get(Calendar.SECOND), buffer);
 		buffer.append(',');
-
-		long milliseconds = calendar.get(Calendar.MILLISECOND);
-		if (milliseconds < 10) {
-			buffer.append('0');
-		}
-		buffer.append(milliseconds);
-
-		return buffer.toString();
 	}
 
-	String toDateFormat(long time) {
-
-		calendar.setTime(new Date(time));
-		StringBuffer buffer = new StringBuffer();
-
-		int day = calendar.get(Calendar.DAY_OF_MONTH);
-		if (day < 10) {
-			buffer.append('0');
-		}
-		buffer.append(day);
+	/**
+	 * Format as <code>dd MMM yyyy</code> followed by the absolute format.
+	 */
+	static void appendDateFormat(Calendar calendar, StringBuilder buffer) {
+		appendTwoDigits(calendar.get(Calendar.DAY_OF_MONTH), buffer);
 		buffer.append(' ');
-
-		int month = calendar.get(Calendar.MONTH);
-		buffer.append(MONTH_ARRAY[month]);
+		buffer.append(MONTH_ARRAY[calendar.get(Calendar.MONTH)]);
 		buffer.append(' ');
-
-		int year = calendar.get(Calendar.YEAR);
-		buffer.append(year);
+		buffer.append(calendar.get(Calendar.YEAR));
 		buffer.append(' ');
-
-		String absoluteTimeString = toAbsoluteFormat(time);
-		buffer.append(absoluteTimeString);
-
-		return buffer.toString();
+		appendAbsoluteFormat(calendar, buffer);
 	}
 
-	String toISO8601Format(long time) {
-
-		calendar.setTime(new Date(time));
-		StringBuffer buffer = new StringBuffer();
-
-		int year = calendar.get(Calendar.YEAR);
-		buffer.append(year);
+	/**
+	 * Format as <code>yyyy-MM-dd</code> followed by the absolute format.
+	 */
+	static void appendISO8601Format(Calendar calendar, StringBuilder buffer) {
+		buffer.append(calendar.get(Calendar.YEAR));
 		buffer.append('-');
-
-		int month = calendar.get(Calendar.MONTH) + 1;
-		if (month < 10) {
-			buffer.append('0');
-		}
-		buffer.append(month);
+		appendTwoDigits(calendar.get(Calendar.MONTH) + 1, buffer);
 		buffer.append('-');
+		appendTwoDigits(calendar.get(Calendar.DAY_OF_MONTH), buffer);
+		buffer.append(' ');
+		appendAbsoluteFormat(calendar, buffer);
+	}
 
-		int day = calendar.get(Calendar.DAY_OF_MONTH);
-		if (day < 10) {
+	private static void appendTwoDigits(int value, StringBuilder buffer) {
+		if (value < 10) {
 			buffer.append('0');
 		}
-		buffer.append(day);
-		buffer.append(' ');
+		buffer.append(value);
+	}
+
+	/**
+	 * The formatted text of one second.
+	 */
+	private static final class CachedSecond {
+		final long second;
 
-		String absoluteTimeString = toAbsoluteFormat(time);
-		buffer.append(absoluteTimeString);
+		final int format;
 
-		return buffer.toString();
-	}
+		final String text;
 
+		CachedSecond(long second, int format, String text) {
+			this.second = second;
+			this.format = format;
+			this.text = text;
+		}
+	}
 }
@@ -15,7 +15,7 @@
 
 package com.google.code.microlog4android.format.command;
 
-import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * An interface for (pattern) format command objects.
@@ -33,23 +33,15 @@ public interface FormatCommandInterface {
 	public void init(String initString);
 
 	/**
-	 * Set the necessary log data to convert.
+	 * Append the converted data of the event to the specified buffer. The
+	 * commands append directly into the buffer of the formatter, which means
+	 * that no intermediate <code>String</code> is created for the common
+	 * conversions.
 	 * 
-	 * @param clientID
-	 *            the client id.
-	 * @param name
-	 *            the name of the logger.
-	 * @param time
-	 *            the time since the first logging has done (in milliseconds).
-	 * @param level
-	 *            the log level.
-	 * @param message
-	 *            the log message.
-	 * @param throwable
-	 *            the logged <code>Throwable</code> object.
-	 * 
-	 * @return a converted <code>String</code>.
+	 * @param event
+	 *            the event to convert.
+	 * @param buffer
+	 *            the buffer to append to.
 	 */
-	public String execute(String clientID, String name, long time, Level level,
-			Object message, Throwable throwable);
+	public void append(LogEvent event, StringBuilder buffer);
 }
@@ -15,7 +15,8 @@
 
 package com.google.code.microlog4android.format.command;
 
-import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.MessageFormatter;
 
 /**
  * Convert the logged message.
@@ -34,16 +35,14 @@ public class MessageFormatCommand implements FormatCommandInterface {
 	}
 
 	/**
-	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String, String, long, com.google.code.microlog4android.Level, java.lang.Object, java.lang.Throwable)
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#append(com.google.code.microlog4android.LogEvent, java.lang.StringBuilder)
 	 */
-	public String execute(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
-	
-		String convertedData = "";
+	public void append(LogEvent event, StringBuilder buffer) {
+		Object message = event.getMessage();
+		
 		if (message != null) {
-			convertedData = message.toString();
+			MessageFormatter.appendValue(buffer, message);
 		}
-		
-		return convertedData;
 	}
 	
 }
@@ -15,7 +15,7 @@
 
 package com.google.code.microlog4android.format.command;
 
-import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * This command does not do any formatting. It just stores the
@@ -35,13 +35,21 @@ public class NoFormatCommand implements FormatCommandInterface {
 	}
 
 	/**
-	 * Convert, i.e. return the <code>preFormatString</code>.
+	 * Convert, i.e. append the <code>preFormatString</code>.
 	 * 
-	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String,
-	 *      String, long, com.google.code.microlog4android.Level, java.lang.Object, java.lang.Throwable)
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#append(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
 	 */
-	public String execute(String clientID, String name, long time,
-			Level level, Object message, Throwable throwable) {
+	public void append(LogEvent event, StringBuilder buffer) {
+		buffer.append(preFormatString);
+	}
+
+	/**
+	 * Get the <code>String</code> that is appended by this command.
+	 * 
+	 * @return the <code>preFormatString</code>.
+	 */
+	public String getPreFormatString() {
 		return preFormatString;
 	}
 
@@ -16,6 +16,7 @@
 package com.google.code.microlog4android.format.command;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * Convert the <code>Level</code> to message.
@@ -32,18 +33,15 @@ public class PriorityFormatCommand implements FormatCommandInterface {
 	}
 
 	/**
-	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String,
-	 *      String, long, com.google.code.microlog4android.Level, java.lang.Object, java.lang.Throwable)
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#append(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
 	 */
-	public String execute(String clientID, String name, long time,
-			Level level, Object message, Throwable throwable) {
-		String levelString = "";
+	public void append(LogEvent event, StringBuilder buffer) {
+		Level level = event.getLevel();
 
 		if (level != null) {
-			levelString = level.toString();
+			buffer.append(level.toString());
 		}
-
-		return levelString;
 	}
 
 }
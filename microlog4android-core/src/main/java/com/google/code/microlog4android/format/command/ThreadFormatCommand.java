@@ -15,7 +15,7 @@
 
 package com.google.code.microlog4android.format.command;
 
-import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * A converter that is used for printing the current thread name.
@@ -34,11 +34,12 @@ public class ThreadFormatCommand implements FormatCommandInterface {
 	}
 
 	/**
-	 * Execute the <code>ThreadFormatCommand</code>.
+	 * Append the name of the thread that logged the event. This is not
+	 * necessarily the current thread, since the event may be appended by a
+	 * dispatcher thread.
 	 */
-	public String execute(String clientID, String name, long time, Level level,
-			Object message, Throwable throwable) {
-		return Thread.currentThread().getName();
+	public void append(LogEvent event, StringBuilder buffer) {
+		buffer.append(event.getThreadName());
 	}
 
 }
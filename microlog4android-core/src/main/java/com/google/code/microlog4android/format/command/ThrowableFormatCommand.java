@@ -15,45 +15,80 @@
 
 package com.google.code.microlog4android.format.command;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 
-import com.google.code.microlog4android.Level;
+import android.util.Log;
+
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.format.command.util.StackTraceRenderer;
 
 /**
- * Converts the <code>Throwable</code> to a message.
+ * Converts the <code>Throwable</code> to a message, i.e. its stack trace.
+ * 
+ * The specifier is the maximum number of lines, or <code>full</code>,
+ * optionally followed by the packages whose frames shall be left out, e.g.
+ * <code>%T{10, java.lang.reflect, dalvik.system}</code>. The traces are
+ * rendered by a <code>StackTraceRenderer</code>, which caches the rendered
+ * text of identical traces.
  * 
  * @author Johan Karlsson (johan.karlsson@jayway.se)
  */
 public class ThrowableFormatCommand implements FormatCommandInterface {
-	public static final int NO_MAX_LINES = -1; 
-	
-	private int maxLines = NO_MAX_LINES;
-	
+	private static final String TAG = "Microlog.ThrowableFormatCommand";
+
+	public static final int NO_MAX_LINES = StackTraceRenderer.NO_MAX_LINES;
+
+	public static final String FULL_SPECIFIER = "full";
+
+	private volatile StackTraceRenderer renderer = new StackTraceRenderer();
+
 	/**
 	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#init(String)
 	 */
 	public void init(String initString) {
-		// Do nothing.	
+		String[] parts = initString.split(",");
+		int maxLines = NO_MAX_LINES;
+		List<String> filteredPackages = new ArrayList<String>();
+
+		String lines = parts[0].trim();
+		if (!lines.equals(FULL_SPECIFIER) && lines.length() > 0) {
+			try {
+				maxLines = Integer.parseInt(lines);
+			} catch (NumberFormatException e) {
+				Log.e(TAG, "Failed to parse the specifier for the %T pattern " + e);
+			}
+		}
+
+		for (int index = 1; index < parts.length; index++) {
+			String filteredPackage = parts[index].trim();
+			if (filteredPackage.length() > 0) {
+				filteredPackages.add(filteredPackage);
+			}
+		}
+
+		renderer = new StackTraceRenderer(maxLines, filteredPackages.toArray(new String[filteredPackages.size()]));
 	}
 
 	/**
-	 * Set the log data.
+	 * Get the maximum number of lines of the stack trace.
 	 * 
-	 * @see FormatCommandInterface#execute(String, String, long, Level, Object, Throwable)
+	 * @return the maximum number of lines, or <code>NO_MAX_LINES</code>.
 	 */
-	public String execute(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
-	    String result = "";
-		
-	    if (maxLines != 0 && throwable != null) {
-	    	StringWriter sw = new StringWriter();
-	    	PrintWriter pw = new PrintWriter(sw);
-	    	throwable.printStackTrace(pw);
-	    	pw.flush();
-	    	pw.close();
-	    	result = sw.getBuffer().toString();
-	    }
-	    	
-	    return result;
+	public int getMaxLines() {
+		return renderer.getMaxLines();
+	}
+
+	/**
+	 * Append the stack trace of the logged <code>Throwable</code>, if any.
+	 * 
+	 * @see FormatCommandInterface#append(LogEvent, StringBuilder)
+	 */
+	public void append(LogEvent event, StringBuilder buffer) {
+		Throwable throwable = event.getThrowable();
+
+		if (throwable != null) {
+			renderer.append(throwable, buffer);
+		}
 	}
 }
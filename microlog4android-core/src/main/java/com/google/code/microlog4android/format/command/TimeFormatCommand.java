@@ -15,7 +15,7 @@
 
 package com.google.code.microlog4android.format.command;
 
-import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 
 /**
  * 
@@ -34,11 +34,11 @@ public class TimeFormatCommand implements FormatCommandInterface {
 
 	/**
 	 * 
-	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#execute(String,
-	 *      String, long, com.google.code.microlog4android.Level, java.lang.Object, java.lang.Throwable)
+	 * @see com.google.code.microlog4android.format.command.FormatCommandInterface#append(com.google.code.microlog4android.LogEvent,
+	 *      java.lang.StringBuilder)
 	 */
-	public String execute(String clientID, String name, long time, Level level, Object message, Throwable throwable) {
-		return String.valueOf(time);
+	public void append(LogEvent event, StringBuilder buffer) {
+		buffer.append(event.getTime());
 	}
 
 }
@@ -0,0 +1,613 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format.command.util;
+
+import java.text.DateFormatSymbols;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Prints dates using a <code>SimpleDateFormat</code> style pattern, e.g.
+ * <code>yyyy-MM-dd'T'HH:mm:ss.SSSZ</code>. The pattern is compiled once into
+ * a sequence of field printers, so nothing is parsed or allocated when
+ * printing.
+ * 
+ * The fields are computed with plain arithmetic in the (proleptic) Gregorian
+ * calendar instead of a <code>Calendar</code>. The time zone offset is looked
+ * up once per day, or once per transition on days when the offset changes,
+ * and the date of the current day is cached. Both are kept in immutable
+ * objects, which makes a <code>FastDatePrinter</code> thread safe.
+ * 
+ * The supported pattern letters are <code>G y M d D E u a H k K h m s S z Z
+ * X</code>. Text within single quotes is printed as is, and two single quotes
+ * print one single quote. The names of months, days and so on are taken from
+ * the default locale, just like <code>SimpleDateFormat</code> does.
+ */
+public final class FastDatePrinter {
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	private static final int MILLIS_PER_HOUR = 60 * 60 * 1000;
+
+	private static final int MILLIS_PER_MINUTE = 60 * 1000;
+
+	private static final int YEAR = 0;
+	private static final int TWO_DIGIT_YEAR = 1;
+	private static final int MONTH = 2;
+	private static final int DAY_OF_MONTH = 3;
+	private static final int DAY_OF_YEAR = 4;
+	private static final int DAY_OF_WEEK_NUMBER = 5;
+	private static final int HOUR_OF_DAY = 6;
+	private static final int HOUR_OF_DAY_1 = 7;
+	private static final int HOUR = 8;
+	private static final int HOUR_1 = 9;
+	private static final int MINUTE = 10;
+	private static final int SECOND = 11;
+	private static final int MILLISECOND = 12;
+	private static final int MONTH_TEXT = 13;
+	private static final int DAY_OF_WEEK_TEXT = 14;
+	private static final int AM_PM_TEXT = 15;
+	private static final int ERA_TEXT = 16;
+
+	private static final int[] DAYS_BEFORE_MONTH = { 0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334 };
+
+	private final String pattern;
+
+	private final TimeZone timeZone;
+
+	private final FieldPrinter[] printers;
+
+	private volatile OffsetPeriod offsetPeriod;
+
+	private volatile LocalDate cachedDate;
+
+	/**
+	 * Compile the pattern for the default time zone.
+	 * 
+	 * @param pattern
+	 *            the date pattern.
+	 * @throws IllegalArgumentException
+	 *             if the pattern is <code>null</code> or is not valid.
+	 */
+	public FastDatePrinter(String pattern) throws IllegalArgumentException {
+		this(pattern, TimeZone.getDefault());
+	}
+
+	/**
+	 * Compile the pattern.
+	 * 
+	 * @param pattern
+	 *            the date pattern.
+	 * @param timeZone
+	 *            the time zone to print the dates in.
+	 * @throws IllegalArgumentException
+	 *             if the pattern or the time zone is <code>null</code>, or if
+	 *             the pattern is not valid.
+	 */
+	public FastDatePrinter(String pattern, TimeZone timeZone) throws IllegalArgumentException {
+		if (pattern == null) {
+			throw new IllegalArgumentException("The pattern must not be null.");
+		}
+
+		if (timeZone == null) {
+			throw new IllegalArgumentException("The time zone must not be null.");
+		}
+
+		this.pattern = pattern;
+		this.timeZone = timeZone;
+		this.printers = compile(pattern, timeZone);
+	}
+
+	/**
+	 * @return the pattern that this printer was compiled from.
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return the time zone that the dates are printed in.
+	 */
+	public TimeZone getTimeZone() {
+		return timeZone;
+	}
+
+	/**
+	 * Print the timestamp into a new <code>String</code>.
+	 * 
+	 * @param timestamp
+	 *            the time in milliseconds since January 1, 1970 UTC.
+	 * @return the formatted <code>String</code>.
+	 */
+	public String format(long timestamp) {
+		StringBuilder buffer = new StringBuilder(pattern.length() + 16);
+		append(timestamp, buffer);
+		return buffer.toString();
+	}
+
+	/**
+	 * Append the timestamp to the buffer.
+	 * 
+	 * @param timestamp
+	 *            the time in milliseconds since January 1, 1970 UTC.
+	 * @param buffer
+	 *            the buffer to append to.
+	 */
+	public void append(long timestamp, StringBuilder buffer) {
+		OffsetPeriod period = offsetPeriod;
+
+		if (period == null || timestamp < period.start || timestamp >= period.end) {
+			period = findOffsetPeriod(timestamp);
+			offsetPeriod = period;
+		}
+
+		long localTime = timestamp + period.offset;
+		long dayNumber = floorDiv(localTime, MILLIS_PER_DAY);
+		int millisOfDay = (int) (localTime - dayNumber * MILLIS_PER_DAY);
+
+		LocalDate date = cachedDate;
+
+		if (date == null || date.dayNumber != dayNumber) {
+			date = new LocalDate(dayNumber);
+			cachedDate = date;
+		}
+
+		for (int index = 0; index < printers.length; index++) {
+			printers[index].append(date, millisOfDay, period, buffer);
+		}
+	}
+
+	/**
+	 * Find the period around the timestamp in which the offset of the time
+	 * zone is the same. The period is at most the UTC day of the timestamp,
+	 * and is cut at the transitions that happen during that day.
+	 */
+	private OffsetPeriod findOffsetPeriod(long timestamp) {
+		int offset = timeZone.getOffset(timestamp);
+		long start = floorDiv(timestamp, MILLIS_PER_DAY) * MILLIS_PER_DAY;
+		long end = start + MILLIS_PER_DAY;
+
+		if (timeZone.getOffset(start) != offset) {
+			start = findTransition(start, timestamp);
+		}
+
+		if (timeZone.getOffset(end - 1) != offset) {
+			end = findTransition(timestamp, end - 1);
+		}
+
+		return new OffsetPeriod(start, end, offset, timeZone.inDaylightTime(new Date(timestamp)));
+	}
+
+	/**
+	 * Find the first time after <code>low</code> where the offset differs
+	 * from the offset at <code>low</code>. The offsets at <code>low</code> and
+	 * <code>high</code> must differ.
+	 */
+	private long findTransition(long low, long high) {
+		int lowOffset = timeZone.getOffset(low);
+
+		while (high - low > 1) {
+			long middle = low + (high - low) / 2;
+
+			if (timeZone.getOffset(middle) == lowOffset) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+
+		return high;
+	}
+
+	private static long floorDiv(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+
+		if (dividend % divisor < 0) {
+			quotient--;
+		}
+
+		return quotient;
+	}
+
+	private static FieldPrinter[] compile(String pattern, TimeZone timeZone) throws IllegalArgumentException {
+		DateFormatSymbols symbols = new DateFormatSymbols();
+		List<FieldPrinter> printers = new ArrayList<FieldPrinter>();
+		StringBuilder literal = new StringBuilder();
+		int length = pattern.length();
+		int index = 0;
+
+		while (index < length) {
+			char c = pattern.charAt(index);
+
+			if (c == '\'') {
+				index = parseQuoted(pattern, index, literal);
+				continue;
+			}
+
+			if (!isLetter(c)) {
+				literal.append(c);
+				index++;
+				continue;
+			}
+
+			int count = 1;
+			while (index + count < length && pattern.charAt(index + count) == c) {
+				count++;
+			}
+
+			if (literal.length() > 0) {
+				printers.add(new LiteralPrinter(literal.toString()));
+				literal.setLength(0);
+			}
+
+			printers.add(createPrinter(c, count, symbols, timeZone));
+			index += count;
+		}
+
+		if (literal.length() > 0) {
+			printers.add(new LiteralPrinter(literal.toString()));
+		}
+
+		return printers.toArray(new FieldPrinter[printers.size()]);
+	}
+
+	/**
+	 * Parse a quoted section, or two single quotes, starting at the index.
+	 * 
+	 * @return the index after the quoted section.
+	 */
+	private static int parseQuoted(String pattern, int index, StringBuilder literal)
+			throws IllegalArgumentException {
+		int length = pattern.length();
+
+		if (index + 1 < length && pattern.charAt(index + 1) == '\'') {
+			literal.append('\'');
+			return index + 2;
+		}
+
+		index++;
+
+		while (index < length) {
+			char c = pattern.charAt(index);
+
+			if (c == '\'') {
+				if (index + 1 < length && pattern.charAt(index + 1) == '\'') {
+					literal.append('\'');
+					index += 2;
+				} else {
+					return index + 1;
+				}
+			} else {
+				literal.append(c);
+				index++;
+			}
+		}
+
+		throw new IllegalArgumentException("Unterminated quote in the date pattern " + pattern);
+	}
+
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static FieldPrinter createPrinter(char letter, int count, DateFormatSymbols symbols, TimeZone timeZone)
+			throws IllegalArgumentException {
+		switch (letter) {
+		case 'G':
+			return new TextPrinter(ERA_TEXT, symbols.getEras());
+		case 'y':
+			return count == 2 ? new NumberPrinter(TWO_DIGIT_YEAR, 2) : new NumberPrinter(YEAR, count);
+		case 'M':
+			if (count >= 4) {
+				return new TextPrinter(MONTH_TEXT, symbols.getMonths());
+			} else if (count == 3) {
+				return new TextPrinter(MONTH_TEXT, symbols.getShortMonths());
+			}
+			return new NumberPrinter(MONTH, count);
+		case 'd':
+			return new NumberPrinter(DAY_OF_MONTH, count);
+		case 'D':
+			return new NumberPrinter(DAY_OF_YEAR, count);
+		case 'E':
+			return new TextPrinter(DAY_OF_WEEK_TEXT, count >= 4 ? symbols.getWeekdays() : symbols
+					.getShortWeekdays());
+		case 'u':
+			return new NumberPrinter(DAY_OF_WEEK_NUMBER, count);
+		case 'a':
+			return new TextPrinter(AM_PM_TEXT, symbols.getAmPmStrings());
+		case 'H':
+			return new NumberPrinter(HOUR_OF_DAY, count);
+		case 'k':
+			return new NumberPrinter(HOUR_OF_DAY_1, count);
+		case 'K':
+			return new NumberPrinter(HOUR, count);
+		case 'h':
+			return new NumberPrinter(HOUR_1, count);
+		case 'm':
+			return new NumberPrinter(MINUTE, count);
+		case 's':
+			return new NumberPrinter(SECOND, count);
+		case 'S':
+			return new NumberPrinter(MILLISECOND, count);
+		case 'z':
+			int style = count >= 4 ? TimeZone.LONG : TimeZone.SHORT;
+			return new ZoneNamePrinter(timeZone.getDisplayName(false, style), timeZone.getDisplayName(true, style));
+		case 'Z':
+			return new OffsetPrinter(false, 4);
+		case 'X':
+			if (count > 3) {
+				throw new IllegalArgumentException("Too many pattern letters: " + letter);
+			}
+			return new OffsetPrinter(true, count);
+		default:
+			throw new IllegalArgumentException("Illegal pattern character '" + letter + "'");
+		}
+	}
+
+	static void appendNumber(StringBuilder buffer, int value, int minDigits) {
+		int digits = 1;
+		for (int limit = 10; digits < minDigits && value >= limit; limit *= 10) {
+			digits++;
+		}
+
+		for (int i = digits; i < minDigits; i++) {
+			buffer.append('0');
+		}
+
+		buffer.append(value);
+	}
+
+	/**
+	 * The date of one local day, in the Gregorian calendar.
+	 */
+	private static final class LocalDate {
+		final long dayNumber;
+
+		final int year;
+
+		final int month;
+
+		final int dayOfMonth;
+
+		final int dayOfYear;
+
+		/**
+		 * 1 is Monday and 7 is Sunday.
+		 */
+		final int dayOfWeek;
+
+		LocalDate(long dayNumber) {
+			this.dayNumber = dayNumber;
+
+			// Convert the days since 1970-01-01 to a civil date, counting in
+			// 400 year eras that start on March 1.
+			long days = dayNumber + 719468;
+			long era = (days >= 0 ? days : days - 146096) / 146097;
+			int dayOfEra = (int) (days - era * 146097);
+			int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+			int dayOfShiftedYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+			int shiftedMonth = (5 * dayOfShiftedYear + 2) / 153;
+
+			dayOfMonth = dayOfShiftedYear - (153 * shiftedMonth + 2) / 5 + 1;
+			month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+			year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+			boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+			dayOfYear = DAYS_BEFORE_MONTH[month - 1] + dayOfMonth + (leapYear && month > 2 ? 1 : 0);
+
+			// 1970-01-01 was a Thursday.
+			dayOfWeek = (int) floorMod(dayNumber + 3, 7) + 1;
+		}
+
+		/**
+		 * @return the year as it is printed with the era, i.e. year 0 is
+		 *         1 BC.
+		 */
+		int getYearOfEra() {
+			return year > 0 ? year : 1 - year;
+		}
+
+		private static long floorMod(long dividend, long divisor) {
+			return dividend - floorDiv(dividend, divisor) * divisor;
+		}
+	}
+
+	/**
+	 * A period in which the offset of the time zone does not change.
+	 */
+	private static final class OffsetPeriod {
+		final long start;
+
+		final long end;
+
+		final int offset;
+
+		final boolean daylight;
+
+		OffsetPeriod(long start, long end, int offset, boolean daylight) {
+			this.start = start;
+			this.end = end;
+			this.offset = offset;
+			this.daylight = daylight;
+		}
+	}
+
+	private interface FieldPrinter {
+		void append(LocalDate date, int millisOfDay, OffsetPeriod period, StringBuilder buffer);
+	}
+
+	private static final class LiteralPrinter implements FieldPrinter {
+		private final String literal;
+
+		LiteralPrinter(String literal) {
+			this.literal = literal;
+		}
+
+		public void append(LocalDate date, int millisOfDay, OffsetPeriod period, StringBuilder buffer) {
+			buffer.append(literal);
+		}
+	}
+
+	private static final class NumberPrinter implements FieldPrinter {
+		private final int field;
+
+		private final int minDigits;
+
+		NumberPrinter(int field, int minDigits) {
+			this.field = field;
+			this.minDigits = minDigits;
+		}
+
+		public void append(LocalDate date, int millisOfDay, OffsetPeriod period, StringBuilder buffer) {
+			int value;
+
+			switch (field) {
+			case YEAR:
+				value = date.getYearOfEra();
+				break;
+			case TWO_DIGIT_YEAR:
+				value = date.getYearOfEra() % 100;
+				break;
+			case MONTH:
+				value = date.month;
+				break;
+			case DAY_OF_MONTH:
+				value = date.dayOfMonth;
+				break;
+			case DAY_OF_YEAR:
+				value = date.dayOfYear;
+				break;
+			case DAY_OF_WEEK_NUMBER:
+				value = date.dayOfWeek;
+				break;
+			case HOUR_OF_DAY:
+				value = millisOfDay / MILLIS_PER_HOUR;
+				break;
+			case HOUR_OF_DAY_1:
+				value = millisOfDay / MILLIS_PER_HOUR;
+				value = value == 0 ? 24 : value;
+				break;
+			case HOUR:
+				value = millisOfDay / MILLIS_PER_HOUR % 12;
+				break;
+			case HOUR_1:
+				value = millisOfDay / MILLIS_PER_HOUR % 12;
+				value = value == 0 ? 12 : value;
+				break;
+			case MINUTE:
+				value = millisOfDay / MILLIS_PER_MINUTE % 60;
+				break;
+			case SECOND:
+				value = millisOfDay / 1000 % 60;
+				break;
+			default:
+				value = millisOfDay % 1000;
+				break;
+			}
+
+			appendNumber(buffer, value, minDigits);
+		}
+	}
+
+	private static final class TextPrinter implements FieldPrinter {
+		private final int field;
+
+		private final String[] texts;
+
+		TextPrinter(int field, String[] texts) {
+			this.field = field;
+			this.texts = texts;
+		}
+
+		public void append(LocalDate date, int millisOfDay, OffsetPeriod period, StringBuilder buffer) {
+			switch (field) {
+			case MONTH_TEXT:
+				buffer.append(texts[date.month - 1]);
+				break;
+			case DAY_OF_WEEK_TEXT:
+				// The weekdays are indexed by Calendar.SUNDAY (1) to
+				// Calendar.SATURDAY (7).
+				buffer.append(texts[date.dayOfWeek % 7 + 1]);
+				break;
+			case AM_PM_TEXT:
+				buffer.append(texts[millisOfDay < 12 * MILLIS_PER_HOUR ? 0 : 1]);
+				break;
+			default:
+				buffer.append(texts[date.year > 0 ? 1 : 0]);
+				break;
+			}
+		}
+	}
+
+	private static final class ZoneNamePrinter implements FieldPrinter {
+		private final String standardName;
+
+		private final String daylightName;
+
+		ZoneNamePrinter(String standardName, String daylightName) {
+			this.standardName = standardName;
+			this.daylightName = daylightName;
+		}
+
+		public void append(LocalDate date, int millisOfDay, OffsetPeriod period, StringBuilder buffer) {
+			buffer.append(period.daylight ? daylightName : standardName);
+		}
+	}
+
+	/**
+	 * Prints the offset as <code>+HHMM</code> (RFC 822), or in the ISO 8601
+	 * forms <code>+HH</code>, <code>+HHMM</code> and <code>+HH:MM</code> where
+	 * a zero offset is printed as <code>Z</code>.
+	 */
+	private static final class OffsetPrinter implements FieldPrinter {
+		private final boolean iso8601;
+
+		private final int count;
+
+		OffsetPrinter(boolean iso8601, int count) {
+			this.iso8601 = iso8601;
+			this.count = count;
+		}
+
+		public void append(LocalDate date, int millisOfDay, OffsetPeriod period, StringBuilder buffer) {
+			int offset = period.offset;
+
+			if (iso8601 && offset == 0) {
+				buffer.append('Z');
+				return;
+			}
+
+			if (offset < 0) {
+				buffer.append('-');
+				offset = -offset;
+			} else {
+				buffer.append('+');
+			}
+
+			appendNumber(buffer, offset / MILLIS_PER_HOUR, 2);
+
+			if (iso8601 && count == 1) {
+				return;
+			}
+
+			if (iso8601 && count == 3) {
+				buffer.append(':');
+			}
+
+			appendNumber(buffer, offset / MILLIS_PER_MINUTE % 60, 2);
+		}
+	}
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2011 The Microlog project @sourceforge.net
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.code.microlog4android.format.command.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders the stack trace of a <code>Throwable</code> in the same format as
+ * <code>Throwable.printStackTrace()</code>, i.e. with the causes and the
+ * frames they have in common with the enclosing trace elided. The rendered
+ * text can be limited to a number of lines, and frames of filtered packages
+ * are collapsed into one line.
+ * 
+ * The rendered text is cached by the structure of the trace, i.e. the
+ * <code>toString()</code> and the stack frames of the <code>Throwable</code>
+ * and its causes. An exception that is logged over and over again is thus
+ * only rendered once.
+ */
+public final class StackTraceRenderer {
+	public static final int NO_MAX_LINES = -1;
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator", "\n");
+
+	/**
+	 * Traces are not cached when there are this many cached traces, which
+	 * keeps traces with changing messages from filling up the memory.
+	 */
+	private static final int MAX_CACHED_TRACES = 128;
+
+	private final int maxLines;
+
+	private final String[] filteredPackages;
+
+	private final ConcurrentHashMap<TraceKey, String> traceCache = new ConcurrentHashMap<TraceKey, String>(16);
+
+	/**
+	 * Create a renderer that renders the full trace.
+	 */
+	public StackTraceRenderer() {
+		this(NO_MAX_LINES, null);
+	}
+
+	/**
+	 * Create a renderer.
+	 * 
+	 * @param maxLines
+	 *            the maximum number of lines to render, or
+	 *            <code>NO_MAX_LINES</code>.
+	 * @param filteredPackages
+	 *            the package (or class name) prefixes of the frames that
+	 *            shall be left out, may be <code>null</code>.
+	 */
+	public StackTraceRenderer(int maxLines, String[] filteredPackages) {
+		this.maxLines = maxLines;
+		this.filteredPackages = filteredPackages == null ? new String[0] : filteredPackages.clone();
+	}
+
+	/**
+	 * @return the maximum number of lines to render.
+	 */
+	public int getMaxLines() {
+		return maxLines;
+	}
+
+	/**
+	 * Append the stack trace to the buffer. Each line, including the last
+	 * one, ends with a line separator.
+	 * 
+	 * @param throwable
+	 *            the <code>Throwable</code> to render.
+	 * @param buffer
+	 *            the buffer to append to.
+	 */
+	public void append(Throwable throwable, StringBuilder buffer) {
+		if (maxLines == 0 || throwable == null) {
+			return;
+		}
+
+		TraceKey key = new TraceKey(throwable);
+		String trace = traceCache.get(key);
+
+		if (trace == null) {
+			trace = render(key);
+
+			if (traceCache.size() < MAX_CACHED_TRACES) {
+				traceCache.put(key, trace);
+			}
+		}
+
+		buffer.append(trace);
+	}
+
+	/**
+	 * Render the stack trace.
+	 * 
+	 * @param throwable
+	 *            the <code>Throwable</code> to render.
+	 * @return the rendered trace.
+	 */
+	public String render(Throwable throwable) {
+		StringBuilder buffer = new StringBuilder();
+		append(throwable, buffer);
+		return buffer.toString();
+	}
+
+	private String render(TraceKey key) {
+		StringBuilder buffer = new StringBuilder(512);
+
+		for (int index = 0; index < key.descriptions.length; index++) {
+			StackTraceElement[] trace = key.traces[index];
+
+			if (index > 0) {
+				buffer.append("Caused by: ");
+			}
+			buffer.append(key.descriptions[index]).append(LINE_SEPARATOR);
+
+			// Leave out the frames at the end that are the same as in the
+			// enclosing trace.
+			int last = trace.length - 1;
+
+			if (index > 0) {
+				StackTraceElement[] enclosingTrace = key.traces[index - 1];
+				int enclosingIndex = enclosingTrace.length - 1;
+
+				while (last >= 0 && enclosingIndex >= 0 && trace[last].equals(enclosingTrace[enclosingIndex])) {
+					last--;
+					enclosingIndex--;
+				}
+			}
+
+			int filteredCount = 0;
+
+			for (int frame = 0; frame <= last; frame++) {
+				if (isFiltered(trace[frame])) {
+					filteredCount++;
+					continue;
+				}
+
+				if (filteredCount > 0) {
+					appendFilteredLine(buffer, filteredCount);
+					filteredCount = 0;
+				}
+
+				buffer.append("\tat ").append(trace[frame]).append(LINE_SEPARATOR);
+			}
+
+			if (filteredCount > 0) {
+				appendFilteredLine(buffer, filteredCount);
+			}
+
+			int framesInCommon = trace.length - 1 - last;
+
+			if (framesInCommon > 0) {
+				buffer.append("\t... ").append(framesInCommon).append(" more").append(LINE_SEPARATOR);
+			}
+		}
+
+		if (key.circularReference != null) {
+			buffer.append("Caused by: [CIRCULAR REFERENCE: ").append(key.circularReference).append(']').append(
+					LINE_SEPARATOR);
+		}
+
+		if (maxLines > 0) {
+			truncate(buffer, maxLines);
+		}
+
+		return buffer.toString();
+	}
+
+	private static void appendFilteredLine(StringBuilder buffer, int filteredCount) {
+		buffer.append("\t... ").append(filteredCount).append(" filtered").append(LINE_SEPARATOR);
+	}
+
+	/**
+	 * Cut the text after the specified number of lines.
+	 */
+	private static void truncate(StringBuilder buffer, int lines) {
+		int index = 0;
+
+		for (int line = 0; line < lines; line++) {
+			index = buffer.indexOf(LINE_SEPARATOR, index);
+
+			if (index == -1) {
+				return;
+			}
+
+			index += LINE_SEPARATOR.length();
+		}
+
+		buffer.setLength(index);
+	}
+
+	private boolean isFiltered(StackTraceElement element) {
+		if (filteredPackages.length == 0) {
+			return false;
+		}
+
+		String className = element.getClassName();
+
+		for (int index = 0; index < filteredPackages.length; index++) {
+			if (className.startsWith(filteredPackages[index])) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * The structure of a trace, i.e. the description and the frames of the
+	 * <code>Throwable</code> and each of its causes.
+	 */
+	private static final class TraceKey {
+		final String[] descriptions;
+
+		final StackTraceElement[][] traces;
+
+		final String circularReference;
+
+		private final int hash;
+
+		TraceKey(Throwable throwable) {
+			List<Throwable> chain = new ArrayList<Throwable>(4);
+			String circular = null;
+
+			for (Throwable current = throwable; current != null; current = current.getCause()) {
+				if (containsIdentical(chain, current)) {
+					circular = current.toString();
+					break;
+				}
+
+				chain.add(current);
+			}
+
+			int length = chain.size();
+			descriptions = new String[length];
+			traces = new StackTraceElement[length][];
+			int hashCode = 0;
+
+			for (int index = 0; index < length; index++) {
+				Throwable current = chain.get(index);
+				descriptions[index] = current.toString();
+				traces[index] = current.getStackTrace();
+				hashCode = 31 * hashCode + descriptions[index].hashCode();
+				hashCode = 31 * hashCode + Arrays.hashCode(traces[index]);
+			}
+
+			circularReference = circular;
+			hash = circular == null ? hashCode : 31 * hashCode + circular.hashCode();
+		}
+
+		private static boolean containsIdentical(List<Throwable> chain, Throwable throwable) {
+			for (int index = 0; index < chain.size(); index++) {
+				if (chain.get(index) == throwable) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+
+			if (!(object instanceof TraceKey)) {
+				return false;
+			}
+
+			TraceKey other = (TraceKey) object;
+
+			if (hash != other.hash || descriptions.length != other.descriptions.length) {
+				return false;
+			}
+
+			for (int index = 0; index < descriptions.length; index++) {
+				if (!descriptions[index].equals(other.descriptions[index])
+						|| !Arrays.equals(traces[index], other.traces[index])) {
+					return false;
+				}
+			}
+
+			return circularReference == null ? other.circularReference == null : circularReference
+					.equals(other.circularReference);
+		}
+	}
+}
@@ -35,8 +35,24 @@ public enum StringUtil {
 	 * @return the partial class name.
 	 */
 	public static String extractPartialClassName(String className, int parts) {
-		String partialCategoryName = className;
+		int beginIndex = getPartialClassNameIndex(className, parts);
 
+		return beginIndex == 0 ? className : className.substring(beginIndex);
+	}
+
+	/**
+	 * Get the index where the partial name of a class name starts, i.e. the
+	 * partial name is the part of the class name from this index to the end.
+	 * 
+	 * @param className
+	 *            the name of the class
+	 * @param parts
+	 *            the number of parts of the class name that you want to be
+	 *            returned.
+	 * 
+	 * @return the begin index of the partial class name.
+	 */
+	public static int getPartialClassNameIndex(String className, int parts) {
 		int nofDots = 0;
 		int dotIndex = className.lastIndexOf('.');
 		if (dotIndex != -1) {
@@ -52,10 +68,54 @@ public enum StringUtil {
 		}
 
 		if (dotIndex > -1 && nofDots <= parts) {
-			partialCategoryName = className.substring(dotIndex + 1);
+			return dotIndex + 1;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Abbreviate a class name to the target length, by shortening the package
+	 * names to their first character from the left until the name fits, e.g.
+	 * <code>com.google.code.microlog4android.Logger</code> becomes
+	 * <code>c.g.c.m.Logger</code> for the length 20. The last part of the name
+	 * is never shortened, so the result may be longer than the target.
+	 * 
+	 * @param className
+	 *            the name of the class
+	 * @param targetLength
+	 *            the length that the name should fit in.
+	 * 
+	 * @return the abbreviated class name.
+	 */
+	public static String abbreviateClassName(String className, int targetLength) {
+		int length = className.length();
+
+		if (length <= targetLength) {
+			return className;
+		}
+
+		StringBuilder buffer = new StringBuilder(length);
+		int lastDotIndex = className.lastIndexOf('.');
+		int beginIndex = 0;
+
+		while (beginIndex <= lastDotIndex && length > targetLength) {
+			int dotIndex = className.indexOf('.', beginIndex);
+
+			// Keep the first character of the part and the dot.
+			if (dotIndex - beginIndex > 1) {
+				buffer.append(className.charAt(beginIndex));
+				length -= dotIndex - beginIndex - 1;
+			} else {
+				buffer.append(className, beginIndex, dotIndex);
+			}
+
+			buffer.append('.');
+			beginIndex = dotIndex + 1;
 		}
 
-		return partialCategoryName;
+		buffer.append(className, beginIndex, className.length());
+		return buffer.toString();
 	}
 
 }
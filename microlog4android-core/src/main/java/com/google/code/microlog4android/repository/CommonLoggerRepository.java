@@ -1,6 +1,8 @@
 package com.google.code.microlog4android.repository;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.appender.Appender;
 
 
 
@@ -14,4 +16,57 @@ public interface CommonLoggerRepository {
 	 * @return the effective <code>Level</code>
 	 */
 	public Level getEffectiveLevel(String loggerName);
+
+	/**
+	 * Get the level generation. The generation is incremented before and after
+	 * the level of any logger is changed and pushed down the tree, so it is odd
+	 * while a change is in progress. A logger that is resolving its effective
+	 * level waits while the generation is odd, and resolves the level again if
+	 * the generation has changed.
+	 * 
+	 * @return the level generation.
+	 */
+	public int getLevelGeneration();
+
+	/**
+	 * Notify the repository that the level of a logger has been changed. The
+	 * new effective level is pushed down to the logger and to every descendant
+	 * that has no level of its own.
+	 * 
+	 * @param logger
+	 *            the logger whose level was changed.
+	 */
+	public void levelChanged(Logger logger);
+
+	/**
+	 * Get the appenders that the specified logger inherits from its ancestors,
+	 * nearest ancestor first. The walk up the tree stops after the first
+	 * ancestor that is not additive. Note that the appenders of the logger
+	 * itself are not included.
+	 * 
+	 * @return the inherited appenders, never <code>null</code>.
+	 */
+	public Appender[] getInheritedAppenders(String loggerName);
+
+	/**
+	 * Get the configuration generation. The generation is changed every time
+	 * the appenders or the additivity of any logger are changed, which tells
+	 * the loggers to rebuild their cached appender arrays.
+	 * 
+	 * @return the configuration generation.
+	 */
+	public int getConfigurationGeneration();
+
+	/**
+	 * Notify the repository that the appenders or the additivity of a logger
+	 * have been changed.
+	 */
+	public void configurationChanged();
+
+	/**
+	 * Get the root logger.
+	 * 
+	 * @return the root <code>Logger</code>.
+	 */
+	public Logger getRootLogger();
 }
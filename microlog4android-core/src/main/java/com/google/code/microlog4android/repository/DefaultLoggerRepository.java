@@ -15,11 +15,14 @@
 package com.google.code.microlog4android.repository;
 
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.code.microlog4android.Level;
 import com.google.code.microlog4android.Logger;
+import com.google.code.microlog4android.appender.Appender;
 
 import android.util.Log;
 
@@ -38,15 +41,34 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 
 	private static final String TAG = "Microlog.DefaultLoggerRepository";
 	private MicrologRepositoryRootNode rootNode;
-	private Hashtable<String, MicrologRepositoryNode> leafNodeHashtable = new Hashtable<String, MicrologRepositoryNode>(43);
+	/**
+	 * The nodes of the loggers that have been asked for by name. Existing
+	 * loggers are found here without taking any lock.
+	 */
+	private final ConcurrentHashMap<String, MicrologRepositoryNode> leafNodeHashtable = new ConcurrentHashMap<String, MicrologRepositoryNode>(
+			64);
+	private final AtomicInteger configurationGeneration = new AtomicInteger();
+	private final AtomicInteger levelGeneration = new AtomicInteger();
+
+	/**
+	 * Guards the pushing of the effective levels down the tree, so that the
+	 * pushes of two level changes do not interleave.
+	 */
+	private final Object levelLock = new Object();
+
+	/**
+	 * The logger whose subtree is given its level by
+	 * <code>setSubtreeLevel</code>, guarded by the <code>levelLock</code>.
+	 */
+	private Logger subtreeLogger;
 
 	/**
 	 * Create a <code>LoggerRepository</code>.
 	 */
 	private DefaultLoggerRepository() {
 		Logger rootLogger = new Logger("", this);
-		rootLogger.setLevel(Level.DEBUG);
 		rootNode = new MicrologRepositoryRootNode("", rootLogger);
+		rootLogger.setLevel(Level.DEBUG);
 	}
 
 	/**
@@ -59,7 +81,7 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	/**
 	 * @see com.google.code.microlog4android.repository.LoggerRepository#getLogger(java.lang.String)
 	 */
-	public synchronized Logger getLogger(String name) {
+	public Logger getLogger(String name) {
 		return getLogger(name, /*registerLeadNode*/true);
 	}
 	
@@ -73,15 +95,14 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	 *            Pass <code>true</code> to register the logger as a leaf node if it isn't one already.
 	 * @return The logger for the name.
 	 */
-	public synchronized Logger getLogger(String name, boolean registerLeafNode) {
+	public Logger getLogger(String name, boolean registerLeafNode) {
 		
 		MicrologRepositoryNode node = leafNodeHashtable.get(name);
 		
 		Logger logger;
 		
 		if (node == null) {
-			logger = new Logger(name, this);
-			logger = addLogger(logger, registerLeafNode);
+			logger = addLogger(name, registerLeafNode);
 		} else {
 			logger = node.getLogger();
 		}
@@ -111,24 +132,36 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	 * @return The logger passed in or the 
 	 */
 	Logger addLogger(Logger newLogger, boolean registerLeafNode) {
+		return addLogger(newLogger.getName(), registerLeafNode);
+	}
+
+	/**
+	 * Adds the node of the named logger to the tree, walking the name one
+	 * component at a time without splitting it.
+	 */
+	private Logger addLogger(String name, boolean registerLeafNode) {
 		MicrologRepositoryNode currentNode = rootNode;
-		String[] pathComponents = LoggerNamesUtil.getLoggerNameComponents(newLogger.getName());
-		
-		// Create intermediate nodes
-		for (int i = 0; i < pathComponents.length; i++) {
-			MicrologRepositoryNode child = currentNode.getChildNode(pathComponents[i]);
+		int length = getPathLength(name);
+		int beginIndex = 0;
+
+		// Walk the path components of the name, creating any missing nodes.
+		do {
+			int endIndex = getComponentEnd(name, beginIndex, length);
+			MicrologRepositoryNode child = currentNode.getChildNode(name, beginIndex, endIndex);
 
 			if (child == null) {
 				// No child => add the child
-				currentNode = createNewChildNode(pathComponents[i], currentNode);
+				currentNode = createNewChildNode(name, beginIndex, endIndex, currentNode);
 			} else {
 				currentNode = child;
 			}
-		}
+
+			beginIndex = endIndex + 1;
+		} while (beginIndex <= length);
 
 		// If requested, add the node to the leafNodeHashtable so it can be found directly next time
 		if (registerLeafNode) {
-			leafNodeHashtable.put(newLogger.getName(), currentNode);
+			leafNodeHashtable.putIfAbsent(name, currentNode);
 		}
 		
 		return currentNode.getLogger();
@@ -139,6 +172,11 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	 *      com.google.code.microlog4android.Level)
 	 */
 	public void setLevel(String name, Level level) {
+		if (name.endsWith(LoggerNamesUtil.SUBTREE_WILDCARD)) {
+			setSubtreeLevel(name.substring(0, name.length() - LoggerNamesUtil.SUBTREE_WILDCARD.length()), level);
+			return;
+		}
+
 		getLogger(name).setLevel(level);
 		
 		/*
@@ -166,21 +204,83 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 		*/
 	}
 
-	private MicrologRepositoryNode createNewChildNode(final String pathComponent, final MicrologRepositoryNode currentNode) {
-		//MicrologRepositoryNode newChild = new MicrologRepositoryNode(pathComponent, currentNode);
-		String loggerName;
-		
-		if (currentNode.getName().length() == 0) {
-			loggerName = pathComponent;
-		} else {
-			loggerName = currentNode.getPath() + LoggerNamesUtil.SEPARATOR + pathComponent;
+	/**
+	 * Create a child node, unless another thread created it first. Only the
+	 * parent node is locked, so loggers in other parts of the tree are created
+	 * concurrently. The name of the child is the part of the logger name
+	 * between <code>beginIndex</code> and <code>endIndex</code>, and its path
+	 * is the logger name up to <code>endIndex</code>.
+	 */
+	private MicrologRepositoryNode createNewChildNode(final String loggerName, final int beginIndex,
+			final int endIndex, final MicrologRepositoryNode currentNode) {
+		synchronized (currentNode) {
+			MicrologRepositoryNode child = currentNode.getChildNode(loggerName, beginIndex, endIndex);
+
+			if (child != null) {
+				return child;
+			}
+
+			String path = endIndex == loggerName.length() ? loggerName : loggerName.substring(0, endIndex);
+			String pathComponent = beginIndex == 0 ? path : loggerName.substring(beginIndex, endIndex);
+
+			MicrologRepositoryNode newChild = new MicrologRepositoryNode(pathComponent, path, 
+					new Logger(path, DefaultLoggerRepository.INSTANCE), currentNode);
+			currentNode.addChild(newChild);
+
+			return newChild;
+		}
+	}
+
+	/**
+	 * Get the length of the logger name without any trailing separators, which
+	 * are ignored just like <code>String.split</code> ignores them.
+	 */
+	private static int getPathLength(String loggerName) {
+		int length = loggerName.length();
+
+		while (length > 0 && loggerName.charAt(length - 1) == LoggerNamesUtil.SEPARATOR_CHAR) {
+			length--;
 		}
-		
-		MicrologRepositoryNode newChild = new MicrologRepositoryNode(pathComponent, 
-				new Logger(loggerName, DefaultLoggerRepository.INSTANCE), currentNode);
-		currentNode.addChild(newChild);
 
-		return newChild;
+		return length;
+	}
+
+	/**
+	 * Get the index after the path component that starts at
+	 * <code>beginIndex</code>.
+	 */
+	private static int getComponentEnd(String loggerName, int beginIndex, int length) {
+		int endIndex = loggerName.indexOf(LoggerNamesUtil.SEPARATOR_CHAR, beginIndex);
+
+		if (endIndex == -1 || endIndex > length) {
+			endIndex = length;
+		}
+
+		return endIndex;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.repository.LoggerRepository#setSubtreeLevel(java.lang.String,
+	 *      com.google.code.microlog4android.Level)
+	 */
+	public void setSubtreeLevel(String name, Level level) {
+		if (level == null) {
+			throw new IllegalArgumentException("The level must not be null.");
+		}
+
+		Logger logger = name.length() == 0 ? getRootLogger() : getLogger(name);
+
+		synchronized (levelLock) {
+			// The push down that follows the level change clears the levels of
+			// the descendants on its way.
+			subtreeLogger = logger;
+
+			try {
+				logger.setLevel(level);
+			} finally {
+				subtreeLogger = null;
+			}
+		}
 	}
 
 	/**
@@ -189,7 +289,13 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	 */
 	public Level getEffectiveLevel(String loggerName) {
 		Level effectiveLevel = null;
-		MicrologRepositoryNode currentNode = leafNodeHashtable.get(loggerName);
+		MicrologRepositoryNode currentNode = findNode(loggerName);
+
+		if (currentNode == null) {
+			// A logger that was detached by a reset inherits from the nearest
+			// ancestor in the new tree.
+			currentNode = findNearestAncestor(loggerName);
+		}
 
 		while (effectiveLevel == null && currentNode != null) {
 			effectiveLevel = currentNode.getLogger().getLevel();
@@ -203,6 +309,183 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 		return effectiveLevel;
 	}
 
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#getLevelGeneration()
+	 */
+	public int getLevelGeneration() {
+		return levelGeneration.get();
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#levelChanged(com.google.code.microlog4android.Logger)
+	 */
+	public void levelChanged(Logger logger) {
+		synchronized (levelLock) {
+			// The generation is odd while the level is pushed down, so that
+			// the loggers resolving their level wait for the push to finish.
+			levelGeneration.incrementAndGet();
+
+			try {
+				MicrologRepositoryNode node = logger == rootNode.getLogger() ? rootNode : findNode(logger
+						.getName());
+
+				// A logger that is not in the tree resolves its level by
+				// itself.
+				if (node == null || node.getLogger() != logger) {
+					return;
+				}
+
+				Level inheritedLevel = getEffectiveLevel(node.getParent());
+				logger.inheritLevel(inheritedLevel, false);
+
+				Level level = logger.getLevel();
+				pushLevelToChildren(node, level != null ? level : inheritedLevel, logger == subtreeLogger);
+			} finally {
+				levelGeneration.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Push the effective level of a node down to its children, and on to their
+	 * children, skipping every subtree that has a level of its own unless the
+	 * levels are cleared.
+	 */
+	private void pushLevelToChildren(MicrologRepositoryNode node, Level effectiveLevel, boolean clearLevels) {
+		MicrologRepositoryNode[] children = node.getChildNodes();
+
+		for (int i = 0; i < children.length; i++) {
+			MicrologRepositoryNode child = children[i];
+			Logger logger = child.getLogger();
+
+			if (clearLevels || logger.getLevel() == null) {
+				logger.inheritLevel(effectiveLevel, clearLevels);
+
+				Level level = logger.getLevel();
+				pushLevelToChildren(child, level != null ? level : effectiveLevel, clearLevels);
+			}
+		}
+	}
+
+	/**
+	 * Get the effective level of a node by walking up the tree.
+	 */
+	private static Level getEffectiveLevel(MicrologRepositoryNode node) {
+		MicrologRepositoryNode currentNode = node;
+
+		while (currentNode != null) {
+			Level level = currentNode.getLogger().getLevel();
+
+			if (level != null) {
+				return level;
+			}
+
+			currentNode = currentNode.getParent();
+		}
+
+		return Level.OFF;
+	}
+
+	/**
+	 * Find the node of the named logger without creating any nodes.
+	 * 
+	 * @return the node or <code>null</code> if the logger is not in the tree.
+	 */
+	private MicrologRepositoryNode findNode(String loggerName) {
+		MicrologRepositoryNode currentNode = leafNodeHashtable.get(loggerName);
+
+		if (currentNode != null) {
+			return currentNode;
+		}
+
+		currentNode = rootNode;
+		int length = getPathLength(loggerName);
+		int beginIndex = 0;
+
+		do {
+			int endIndex = getComponentEnd(loggerName, beginIndex, length);
+			currentNode = currentNode.getChildNode(loggerName, beginIndex, endIndex);
+			beginIndex = endIndex + 1;
+		} while (currentNode != null && beginIndex <= length);
+
+		return currentNode;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#getInheritedAppenders(java.lang.String)
+	 */
+	public Appender[] getInheritedAppenders(String loggerName) {
+		MicrologRepositoryNode currentNode = leafNodeHashtable.get(loggerName);
+
+		if (currentNode != null) {
+			currentNode = currentNode.getParent();
+		} else {
+			currentNode = findNearestAncestor(loggerName);
+		}
+
+		List<Appender> appenderList = new ArrayList<Appender>();
+
+		while (currentNode != null) {
+			Logger logger = currentNode.getLogger();
+			int numberOfAppenders = logger.getNumberOfAppenders();
+
+			for (int i = 0; i < numberOfAppenders; i++) {
+				appenderList.add(logger.getAppender(i));
+			}
+
+			if (!logger.getAdditivity()) {
+				break;
+			}
+
+			currentNode = currentNode.getParent();
+		}
+
+		return appenderList.toArray(new Appender[appenderList.size()]);
+	}
+
+	/**
+	 * Find the nearest existing ancestor of a logger that is not in the tree.
+	 */
+	private MicrologRepositoryNode findNearestAncestor(String loggerName) {
+		if (loggerName.length() == 0) {
+			return null;
+		}
+
+		MicrologRepositoryNode currentNode = rootNode;
+		int length = getPathLength(loggerName);
+		int beginIndex = 0;
+		int endIndex = getComponentEnd(loggerName, beginIndex, length);
+
+		// The last component is the logger itself
+		while (endIndex < length) {
+			MicrologRepositoryNode child = currentNode.getChildNode(loggerName, beginIndex, endIndex);
+
+			if (child == null) {
+				break;
+			}
+
+			currentNode = child;
+			beginIndex = endIndex + 1;
+			endIndex = getComponentEnd(loggerName, beginIndex, length);
+		}
+
+		return currentNode;
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#getConfigurationGeneration()
+	 */
+	public int getConfigurationGeneration() {
+		return configurationGeneration.get();
+	}
+
+	/**
+	 * @see com.google.code.microlog4android.repository.CommonLoggerRepository#configurationChanged()
+	 */
+	public void configurationChanged() {
+		configurationGeneration.incrementAndGet();
+	}
+
 	/**
 	 * @see com.google.code.microlog4android.repository.LoggerRepository#contains(java.lang.String)
 	 */
@@ -218,28 +501,53 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	}
 
 	/**
-	 * Reset the tree and configuration at the root level.
+	 * Reset the tree and configuration at the root level. The loggers that
+	 * were in the tree are detached from it, so that a logger that is still
+	 * held by a caller resolves its level from the new tree.
 	 */
 	public void reset() {
-		rootNode.reset();
-		leafNodeHashtable.clear();
-		resetConfig();
+		synchronized (levelLock) {
+			// The generation is odd while the loggers are detached, so that a
+			// logger resolving its level meanwhile resolves it again.
+			levelGeneration.incrementAndGet();
+
+			try {
+				detachLoggers(rootNode);
+				rootNode.reset();
+				leafNodeHashtable.clear();
+			} finally {
+				levelGeneration.incrementAndGet();
+			}
+
+			resetConfig();
+		}
+	}
+
+	/**
+	 * Detach the loggers of all the descendants of a node.
+	 */
+	private static void detachLoggers(MicrologRepositoryNode node) {
+		MicrologRepositoryNode[] children = node.getChildNodes();
+
+		for (int i = 0; i < children.length; i++) {
+			children[i].getLogger().detach();
+			detachLoggers(children[i]);
+		}
 	}
 	
 	/**
 	 * Reset the level and appender configuration but keep the tree intact. 
 	 */
 	public void resetConfig() {
-		rootNode.getLogger().resetLogger(Level.DEBUG);
-		Logger.resetAppenders();
+		synchronized (levelLock) {
+			rootNode.getLogger().resetLogger(Level.DEBUG);
+			Logger.resetAppenders();
 
-		// Reset each existing logger to force everything to delegate to the root.
-		Enumeration<MicrologRepositoryNode> leafNodes = leafNodeHashtable.elements();
-
-		while (leafNodes.hasMoreElements()) {
-			MicrologRepositoryNode node = leafNodes.nextElement();
-			Logger logger = node.getLogger();
-			logger.resetLogger(/*level*/null);
+			// Reset each existing logger to force everything to delegate to the root.
+			for (MicrologRepositoryNode node : leafNodeHashtable.values()) {
+				Logger logger = node.getLogger();
+				logger.resetLogger(/*level*/null);
+			}
 		}
 	}
 
@@ -248,10 +556,13 @@ public enum DefaultLoggerRepository implements LoggerRepository, CommonLoggerRep
 	 * resources.
 	 */
 	public void shutdown() {
-		Enumeration<MicrologRepositoryNode> leafNodes = leafNodeHashtable.elements();
+		try {
+			getRootLogger().close();
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to close the root logger");
+		}
 
-		while (leafNodes.hasMoreElements()) {
-			MicrologRepositoryNode node = leafNodes.nextElement();
+		for (MicrologRepositoryNode node : leafNodeHashtable.values()) {
 			Logger logger = node.getLogger();
 
 			if (logger != null) {
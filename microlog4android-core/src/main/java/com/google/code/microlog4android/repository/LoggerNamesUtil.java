@@ -7,6 +7,14 @@ public enum LoggerNamesUtil {
 	private static final String EMPTY = "";
 	
 	public static final String SEPARATOR = ".";
+
+	public static final char SEPARATOR_CHAR = '.';
+
+	/**
+	 * The suffix that selects a logger and all its descendants, e.g.
+	 * <code>com.example.*</code>.
+	 */
+	public static final String SUBTREE_WILDCARD = ".*";
 	
 	public static String[] getLoggerNameComponents(final String loggerName) {
 		return loggerName.split("\\.");
@@ -34,7 +34,9 @@ public abstract interface LoggerRepository {
 	public Logger getLogger(String name);
 
 	/**
-	 * Set the level on the specified part of the logging hierarchy.
+	 * Set the level on the specified part of the logging hierarchy. A name
+	 * that ends with <code>.*</code>, e.g. <code>com.example.*</code>, sets
+	 * the level of the whole subtree, see <code>setSubtreeLevel</code>.
 	 * 
 	 * @param name
 	 *            the name of the logging hierarchy to set the level on.
@@ -43,6 +45,20 @@ public abstract interface LoggerRepository {
 	 */
 	public void setLevel(String name, Level level);
 
+	/**
+	 * Set the level of a logger and of all its descendants in one pass. The
+	 * levels of the descendants are removed, so that they inherit the new
+	 * level, also when it is changed later on.
+	 * 
+	 * @param name
+	 *            the name of the logger at the top of the subtree.
+	 * @param level
+	 *            the level to set.
+	 * @throws IllegalArgumentException
+	 *             if the <code>level</code> is <code>null</code>.
+	 */
+	public void setSubtreeLevel(String name, Level level) throws IllegalArgumentException;
+
 	/**
 	 * Check if the <code>LoggerRepository</code> contains the specified
 	 * <code>Logger</code> object.
@@ -16,8 +16,8 @@
 package com.google.code.microlog4android.repository;
 
 import java.util.ArrayList;
-import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.google.code.microlog4android.Logger;
 
@@ -29,9 +29,32 @@ import com.google.code.microlog4android.Logger;
  * 
  */
 public class MicrologRepositoryNode extends AbstractRepositoryNode {
+	private static final int INITIAL_CAPACITY = 4;
+
 	private MicrologRepositoryNode parent = null;
 
-	protected Hashtable<String, MicrologRepositoryNode> children = new Hashtable<String, MicrologRepositoryNode>(17);
+	/**
+	 * The children in an open addressing hash table, so that a child can be
+	 * looked up by a part of a logger name without creating a substring. The
+	 * table is read without locking, while a child is only added while
+	 * holding the lock of this node. A reader that misses a child that is
+	 * being added takes the lock and looks again, see
+	 * <code>DefaultLoggerRepository</code>.
+	 */
+	private volatile AtomicReferenceArray<MicrologRepositoryNode> children = new AtomicReferenceArray<MicrologRepositoryNode>(
+			INITIAL_CAPACITY);
+
+	private int numberOfChildren;
+
+	/**
+	 * The hash of the name, see <code>hash</code>.
+	 */
+	private final int nameHash;
+
+	/**
+	 * The full dotted name of the node, which is the name of its logger.
+	 */
+	private String path;
 
 	protected Logger logger;
 
@@ -48,26 +71,79 @@ public class MicrologRepositoryNode extends AbstractRepositoryNode {
 	public MicrologRepositoryNode(String name, Logger logger) {
 		this.name = name;
 		this.logger = logger;
+		this.path = name;
+		this.nameHash = hash(name, 0, name.length());
 	}
 	
-	/*
-	public MicrologRepositoryNode(String name, MicrologRepositoryNode parent) {
-		this.name = name;
-		this.parent = parent;
-		this.logger = new Logger(name);
-		logger.setCommonRepository(DefaultLoggerRepository.INSTANCE);
-	}
-	*/
-	
 	public MicrologRepositoryNode(String name, Logger logger, MicrologRepositoryNode parent) {
+		this(name, createPath(name, parent), logger, parent);
+	}
+
+	/**
+	 * Create a node with a path that is already known, e.g. a prefix of the
+	 * name of the logger that is being added.
+	 * 
+	 * @param name
+	 *            the name of the node, i.e. the last component of the path.
+	 * @param path
+	 *            the full path to the node.
+	 * @param logger
+	 *            the <code>Logger</code> of the node.
+	 * @param parent
+	 *            the parent node.
+	 */
+	public MicrologRepositoryNode(String name, String path, Logger logger, MicrologRepositoryNode parent) {
 		this.name = name;
+		this.path = path;
 		this.logger = logger;
 		this.parent = parent;
+		this.nameHash = hash(name, 0, name.length());
 	}
 
+	/**
+	 * Add a child, replacing any child with the same name.
+	 * 
+	 * @param child
+	 *            the child to add.
+	 */
+	public synchronized void addChild(MicrologRepositoryNode child) {
+		AtomicReferenceArray<MicrologRepositoryNode> table = children;
+		String childName = child.getName();
+		int index = indexOf(table, childName, 0, childName.length(), child.nameHash);
+
+		if (table.get(index) != null) {
+			table.set(index, child);
+			return;
+		}
+
+		numberOfChildren++;
 
-	public void addChild(MicrologRepositoryNode child) {
-		children.put(child.getName(), child);
+		// Keep the table at most half full so that the probe sequences stay
+		// short. The new table is filled in before it is published.
+		if (numberOfChildren * 2 > table.length()) {
+			AtomicReferenceArray<MicrologRepositoryNode> newTable = new AtomicReferenceArray<MicrologRepositoryNode>(
+					table.length() * 2);
+
+			for (int i = 0; i < table.length(); i++) {
+				MicrologRepositoryNode existing = table.get(i);
+				if (existing != null) {
+					insert(newTable, existing);
+				}
+			}
+
+			insert(newTable, child);
+			children = newTable;
+		} else {
+			table.set(index, child);
+		}
+	}
+
+	/**
+	 * Remove all the children.
+	 */
+	public synchronized void removeChildren() {
+		children = new AtomicReferenceArray<MicrologRepositoryNode>(INITIAL_CAPACITY);
+		numberOfChildren = 0;
 	}
 
 	/**
@@ -78,7 +154,44 @@ public class MicrologRepositoryNode extends AbstractRepositoryNode {
 	}
 
 	public MicrologRepositoryNode getChildNode(String name) {
-		return children.get(name);
+		return getChildNode(name, 0, name.length());
+	}
+
+	/**
+	 * Get a snapshot of the children.
+	 * 
+	 * @return the children of this node.
+	 */
+	public MicrologRepositoryNode[] getChildNodes() {
+		AtomicReferenceArray<MicrologRepositoryNode> table = children;
+		List<MicrologRepositoryNode> childList = new ArrayList<MicrologRepositoryNode>(table.length() / 2);
+
+		for (int i = 0; i < table.length(); i++) {
+			MicrologRepositoryNode child = table.get(i);
+
+			if (child != null) {
+				childList.add(child);
+			}
+		}
+
+		return childList.toArray(new MicrologRepositoryNode[childList.size()]);
+	}
+
+	/**
+	 * Get the child whose name is the specified part of a string, e.g. one
+	 * component of a dotted logger name.
+	 * 
+	 * @param string
+	 *            the string that contains the name.
+	 * @param beginIndex
+	 *            the index of the first character of the name.
+	 * @param endIndex
+	 *            the index after the last character of the name.
+	 * @return the child, or <code>null</code> if there is none.
+	 */
+	public MicrologRepositoryNode getChildNode(String string, int beginIndex, int endIndex) {
+		AtomicReferenceArray<MicrologRepositoryNode> table = children;
+		return table.get(indexOf(table, string, beginIndex, endIndex, hash(string, beginIndex, endIndex)));
 	}
 	
 	/**
@@ -93,6 +206,7 @@ public class MicrologRepositoryNode extends AbstractRepositoryNode {
 	 */
 	public void setParent(MicrologRepositoryNode parent) {
 		this.parent = parent;
+		this.path = createPath(name, parent);
 	}
 	
 	/**
@@ -101,24 +215,66 @@ public class MicrologRepositoryNode extends AbstractRepositoryNode {
 	 * @return The full path to the node.
 	 */
 	public String getPath() {
-		List<String> components = new ArrayList<String>();
-		MicrologRepositoryNode currentNode = this;
-		
-		while (currentNode != null && currentNode.getName().length() > 0) {
-			components.add(currentNode.getName());
-			currentNode = currentNode.getParent();
+		return path;
+	}
+
+	private static String createPath(String name, MicrologRepositoryNode parent) {
+		if (parent == null || parent.getPath().length() == 0) {
+			return name;
 		}
-		
-		StringBuilder path = new StringBuilder();
-		
-		for (int i = components.size() - 1; i >= 0; i--) {
-			path.append(components.get(i));
-			path.append(LoggerNamesUtil.SEPARATOR);
+
+		return parent.getPath() + LoggerNamesUtil.SEPARATOR + name;
+	}
+
+	/**
+	 * Get the index of the child with the specified name, or of the free slot
+	 * where it would be inserted.
+	 */
+	private static int indexOf(AtomicReferenceArray<MicrologRepositoryNode> table, String string, int beginIndex,
+			int endIndex, int hash) {
+		int length = endIndex - beginIndex;
+		int mask = table.length() - 1;
+		int index = hash & mask;
+
+		for (;;) {
+			MicrologRepositoryNode child = table.get(index);
+
+			if (child == null) {
+				return index;
+			}
+
+			String childName = child.getName();
+			if (child.nameHash == hash && childName.length() == length
+					&& childName.regionMatches(0, string, beginIndex, length)) {
+				return index;
+			}
+
+			index = (index + 1) & mask;
+		}
+	}
+
+	private static void insert(AtomicReferenceArray<MicrologRepositoryNode> table, MicrologRepositoryNode child) {
+		int mask = table.length() - 1;
+		int index = child.nameHash & mask;
+
+		while (table.get(index) != null) {
+			index = (index + 1) & mask;
 		}
-		
-		if (path.length() > 0)
-			path.deleteCharAt(path.length() - 1);
-		
-		return path.toString();
+
+		table.set(index, child);
+	}
+
+	/**
+	 * The same hash code as <code>String.hashCode()</code> of the substring,
+	 * spread so that the low bits depend on all the characters.
+	 */
+	private static int hash(String string, int beginIndex, int endIndex) {
+		int hash = 0;
+
+		for (int i = beginIndex; i < endIndex; i++) {
+			hash = 31 * hash + string.charAt(i);
+		}
+
+		return hash ^ (hash >>> 16);
 	}
 }
@@ -8,6 +8,6 @@ public class MicrologRepositoryRootNode extends MicrologRepositoryNode {
 	}
 
 	public void reset() {
-		children.clear();
+		removeChildren();
 	}
 }
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
 import com.google.code.microlog4android.appender.Appender;
 import com.google.code.microlog4android.format.Formatter;
 
@@ -21,6 +22,11 @@ public class JunitTestAppender implements Appender {
 		loggerList.add((String)message);
 	}
 
+	public void append(LogEvent event) {
+		doLog(event.getClientID(), event.getLoggerName(), event.getTime(), event.getLevel(), event.getMessage(),
+				event.getThrowable());
+	}
+
 	public Formatter getFormatter() {
 		return null;
 	}
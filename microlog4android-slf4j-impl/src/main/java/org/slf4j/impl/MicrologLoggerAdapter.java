@@ -46,18 +46,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void trace(final String format, final Object param1) {
-		// TODO trace format + object
-		throw new UnsupportedOperationException("trace(String, Object) is not implemented yet");
+		logger.trace(format, param1);
 	}
 
 	public void trace(final String format, final Object param1, final Object param2) {
-		// TODO trace format + multiple objects
-		throw new UnsupportedOperationException("trace(String, Object, Object) is not implemented yet");
+		logger.trace(format, param1, param2);
 	}
 	
 	public void trace(final String format, final Object[] argArray) {
-		// TODO trace format + object array
-		throw new UnsupportedOperationException("trace(String, Object[]) is not implemented yet");
+		logger.trace(format, argArray);
 	}
 
 	public void trace(final String msg, final Throwable t) {
@@ -73,18 +70,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void debug(final String format, final Object arg1) {
-		// TODO debug format + object
-		throw new UnsupportedOperationException("debug(String, Object) is not implemented yet");
+		logger.debug(format, arg1);
 	}
 
 	public void debug(final String format, final Object param1, final Object param2) {
-		// TODO debug format + multiple objects
-		throw new UnsupportedOperationException("debug(String, Object, Object) is not implemented yet");
+		logger.debug(format, param1, param2);
 	}
 
 	public void debug(final String format, final Object[] argArray) {
-		// TODO debug format + object array
-		throw new UnsupportedOperationException("debug(String, Object[]) is not implemented yet");
+		logger.debug(format, argArray);
 	}
 
 	public void debug(final String msg, final Throwable t) {
@@ -100,18 +94,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void info(final String format, final Object arg) {
-		// TODO info format + object
-		throw new UnsupportedOperationException("info(String, Object) is not implemented yet");
+		logger.info(format, arg);
 	}
 
 	public void info(final String format, final Object arg1, final Object arg2) {
-		// TODO info format + multiple objects
-		throw new UnsupportedOperationException("info(String, Object, Object) is not implemented yet");
+		logger.info(format, arg1, arg2);
 	}
 
 	public void info(final String format, final Object[] argArray) {
-		// TODO info format + object array
-		throw new UnsupportedOperationException("info(String, Object[]) is not implemented yet");
+		logger.info(format, argArray);
 	}
 
 	public void info(final String msg, final Throwable t) {
@@ -127,17 +118,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void warn(final String format, final Object arg) {
-		// TODO warn format + object
-		throw new UnsupportedOperationException("warn(String, Object) is not implemented yet");
+		logger.warn(format, arg);
 	}
 
 	public void warn(final String format, final Object arg1, final Object arg2) {
-		// TODO warn format + multiple objects
-		throw new UnsupportedOperationException("warn(String, Object, Object) is not implemented yet");
+		logger.warn(format, arg1, arg2);
 	}
 
 	public void warn(final String format, final Object[] argArray) {
-		// TODO warn format + object array
+		logger.warn(format, argArray);
 	}
 
 	public void warn(final String msg, final Throwable t) {
@@ -145,7 +134,7 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public boolean isErrorEnabled() {
-		return true; // why is there no isErrorEnabled in the microlog logger?
+		return isLoggerEnabled(Level.ERROR);
 	}
 
 	public void error(final String msg) {
@@ -153,18 +142,15 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 
 	public void error(final String format, final Object arg) {
-		// TODO error format + object
-		throw new UnsupportedOperationException("error(String, Object) is not implemented yet");
+		logger.error(format, arg);
 	}
 
 	public void error(final String format, final Object arg1, final Object arg2) {
-		// TODO error format + multiple objects
-		throw new UnsupportedOperationException("error(String, Object, Object) is not implemented yet");
+		logger.error(format, arg1, arg2);
 	}
 
 	public void error(final String format, final Object[] argArray) {
-		// TODO error format + object array
-		throw new UnsupportedOperationException("error(String, Object[]) is not implemented yet");
+		logger.error(format, argArray);
 	}
 
 	public void error(final String msg, final Throwable t) {
@@ -172,7 +158,7 @@ public class MicrologLoggerAdapter extends MarkerIgnoringBase {
 	}
 	
 	private boolean isLoggerEnabled(final Level level) {
-		return logger.getEffectiveLevel().toInt() <= level.toInt();
+		return logger.isEnabledFor(level);
 	}
 	
 }
@@ -0,0 +1,90 @@
+package org.slf4j.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.impl.repository.Slf4jLoggerRepository;
+
+import com.google.code.microlog4android.Level;
+import com.google.code.microlog4android.LogEvent;
+import com.google.code.microlog4android.appender.AbstractAppender;
+import com.google.code.microlog4android.appender.Appender;
+
+public class MicrologLoggerAdapterTest {
+	private MicrologLoggerAdapter adapter;
+
+	private Appender appender;
+
+	@Before
+	public void setup() {
+		adapter = (MicrologLoggerAdapter) Slf4jLoggerRepository.INSTANCE.getLogger(MicrologLoggerAdapterTest.class.getName());
+		appender = mockAbstractAppender();
+		adapter.getMicrologLogger().addAppender(appender);
+	}
+
+	@After
+	public void teardown() {
+		Slf4jLoggerRepository.INSTANCE.reset();
+	}
+
+	@Test
+	public void testOneArgument() {
+		adapter.info("Read {} bytes", 42);
+
+		verify(appender).doLog(anyString(), anyString(), anyLong(), eq(Level.INFO), eq("Read 42 bytes"),
+				(Throwable) isNull());
+	}
+
+	@Test
+	public void testTwoArguments() {
+		adapter.debug("Read {} bytes from {}", 42, "file");
+
+		verify(appender).doLog(anyString(), anyString(), anyLong(), eq(Level.DEBUG), eq("Read 42 bytes from file"),
+				(Throwable) isNull());
+	}
+
+	@Test
+	public void testArgumentArrayWithThrowable() {
+		Exception e = new Exception();
+		adapter.error("Failed to read {} from {}", new Object[] { 42, "file", e });
+
+		verify(appender).doLog(anyString(), anyString(), anyLong(), eq(Level.ERROR),
+				eq("Failed to read 42 from file"), same(e));
+	}
+
+	@Test
+	public void testDisabledLevel() {
+		adapter.getMicrologLogger().setLevel(Level.WARN);
+		Object argument = mock(Object.class);
+
+		adapter.info("Argument {}", argument);
+
+		assertFalse(adapter.isInfoEnabled());
+		assertTrue(adapter.isErrorEnabled());
+		verifyZeroInteractions(appender);
+		verifyZeroInteractions(argument);
+	}
+
+	/**
+	 * Mock an appender that passes the events to <code>doLog</code>, so that
+	 * the data can be verified although the events are recycled.
+	 */
+	private static Appender mockAbstractAppender() {
+		AbstractAppender appender = mock(AbstractAppender.class);
+		doCallRealMethod().when(appender).append(any(LogEvent.class));
+		return appender;
+	}
+}